@@ -0,0 +1,48 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.events.ClickEvent;
+import com.vaibhavgala.url_shortner.service.events.ClickEventCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Click payload -> entity, for the binary wire format and for legacy JSON events
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+public class AnalyticsServiceBenchmark {
+
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36";
+
+    private final AnalyticsService analyticsService = new AnalyticsService();
+    private byte[] binaryPayload;
+    private byte[] jsonPayload;
+
+    @Setup
+    public void setUp() {
+        ClickEvent event = new ClickEvent("aB3dE5gH7j", "203.0.113.42", USER_AGENT,
+                "https://news.example.com/article", 1_700_000_000_000L);
+        binaryPayload = ClickEventCodec.encode(event);
+        jsonPayload = ("{\"shortCode\":\"aB3dE5gH7j\",\"ipAddress\":\"203.0.113.42\",\"userAgent\":\"" + USER_AGENT
+                + "\",\"referer\":\"https://news.example.com/article\",\"timestamp\":\"2023-11-14T22:13:20\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public UrlClickAnalytics buildFromBinary() {
+        return analyticsService.buildAnalyticsEntity(binaryPayload);
+    }
+
+    @Benchmark
+    public UrlClickAnalytics buildFromLegacyJson() {
+        return analyticsService.buildAnalyticsEntity(jsonPayload);
+    }
+}
@@ -0,0 +1,57 @@
+package com.vaibhavgala.url_shortner.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoIP lookups with a warm prefix cache (few /24s) and a cold one (every lookup a new /24).
+ * Needs GEOIP_DB_PATH pointing at a GeoLite2-City.mmdb; without it only the no-database
+ * fast path is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+public class GeoIPServiceBenchmark {
+
+    private static final int ADDRESSES = 4096;
+
+    @Param({"64", "1000000"})
+    public int distinctPrefixes;
+
+    private GeoIPService geoIpService;
+    private String[] addresses;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geoIpService = new GeoIPService(50_000, false);
+
+        // Fixed seed so every run looks up the same addresses
+        SplittableRandom random = new SplittableRandom(42);
+        addresses = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            int prefix = random.nextInt(distinctPrefixes);
+            // 1.0.0.0 upwards is public space, so no lookup is skipped as private
+            addresses[i] = (1 + (prefix >>> 16) % 222) + "." + ((prefix >>> 8) & 0xFF) + "." + (prefix & 0xFF)
+                    + "." + (1 + random.nextInt(254));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        geoIpService.close();
+    }
+
+    @Benchmark
+    public GeoIPService.GeoLocation lookup() {
+        String address = addresses[next];
+        next = (next + 1) & (ADDRESSES - 1);
+        return geoIpService.lookup(address);
+    }
+}
@@ -0,0 +1,70 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.repo.UrlMappingStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-code generation and alias validation. The url mapping store is stubbed so
+ * createUniqueShortCode measures the generation + collision-check path without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+public class UrlShortnerServiceBenchmark {
+
+    private UrlShortnerService service;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = new UrlShortnerService();
+        UrlMappingStore repository = (UrlMappingStore) Proxy.newProxyInstance(
+                UrlMappingStore.class.getClassLoader(),
+                new Class<?>[]{UrlMappingStore.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("existsByShortCode")) {
+                        return false;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        Field field = UrlShortnerService.class.getDeclaredField("repository");
+        field.setAccessible(true);
+        field.set(service, repository);
+
+        // The service logs every generated code to stdout; keep that out of the JMH output
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public String generateRandomCode() {
+        return service.generateRandomCode();
+    }
+
+    @Benchmark
+    public String createUniqueShortCode() {
+        return service.createUniqueShortCode();
+    }
+
+    @Benchmark
+    public void isValidAlias(Blackhole bh) {
+        bh.consume(service.isValidAlias("my-campaign_2024"));
+        bh.consume(service.isValidAlias("no spaces allowed"));
+        bh.consume(service.isValidAlias("admin"));
+    }
+}
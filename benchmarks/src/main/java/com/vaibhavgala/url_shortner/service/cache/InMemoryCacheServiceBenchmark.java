@@ -0,0 +1,63 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lite-mode cache under contention: 6 reader threads and 2 writer threads sharing one
+ * cache of 10k short codes (roughly the redirect read/write mix)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+public class InMemoryCacheServiceBenchmark {
+
+    private static final int KEYS = 10_000;
+    private static final Duration TTL = Duration.ofHours(24);
+
+    private InMemoryCacheService cache;
+    private String[] keys;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        // set() logs every write to stdout; keep that out of the JMH output
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        cache = new InMemoryCacheService();
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "url:code" + i;
+            cache.set(keys[i], "https://example.com/page/" + i, TTL);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public String get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void set() {
+        int i = ThreadLocalRandom.current().nextInt(KEYS);
+        cache.set(keys[i], "https://example.com/page/" + i, TTL);
+    }
+}
@@ -0,0 +1,142 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Memory per cached mapping in each Redis layout: writes the same synthetic mappings as string
+ * keys, as hashed buckets, and as hashed buckets with compression, reading used_memory before
+ * and after each. Every key it writes is deleted again, but point it at a scratch Redis
+ * (or database index) rather than a shared one.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar \
+ *      com.vaibhavgala.url_shortner.service.cache.RedisLayoutMemoryReport [host] [port] [database] [mappings]
+ * </pre>
+ */
+public class RedisLayoutMemoryReport {
+
+    private static final String PREFIX = "memreport:url:";
+    private static final Duration TTL = Duration.ofHours(24);
+
+    private static final String DELETE_BY_PATTERN = """
+            local cursor = '0'
+            local deleted = 0
+            repeat
+                local page = redis.call('SCAN', cursor, 'MATCH', ARGV[1], 'COUNT', 1000)
+                cursor = page[1]
+                if #page[2] > 0 then
+                    deleted = deleted + redis.call('DEL', unpack(page[2]))
+                end
+            until cursor == '0'
+            return deleted
+            """;
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6379;
+        int database = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        int mappings = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(host, port);
+        configuration.setDatabase(database);
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        // Same bucket sizing rule as production: about 100 fields per hash
+        int buckets = Math.max(1, mappings / 100);
+        System.out.printf("%d mappings, %d buckets, hash-max-listpack-value=%s%n", mappings, buckets,
+                config(redisTemplate, "hash-max-listpack-value"));
+
+        Map<String, Double> bytesPerMapping = new LinkedHashMap<>();
+        bytesPerMapping.put("strings", measure(redisTemplate, mappings,
+                batch -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    batch.forEach((key, entry) -> connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8),
+                            entry.value().getBytes(StandardCharsets.UTF_8), Expiration.from(entry.ttl()),
+                            RedisStringCommands.SetOption.upsert()));
+                    return null;
+                }), PREFIX + "*"));
+        RedisHashBuckets plain = new RedisHashBuckets(redisTemplate, buckets, 0);
+        bytesPerMapping.put("hashed", measure(redisTemplate, mappings, plain::multiSet, RedisHashBuckets.BUCKET_PREFIX + "*"));
+        RedisHashBuckets compressed = new RedisHashBuckets(redisTemplate, buckets, 32);
+        bytesPerMapping.put("hashed+deflate", measure(redisTemplate, mappings, compressed::multiSet,
+                RedisHashBuckets.BUCKET_PREFIX + "*"));
+
+        double baseline = bytesPerMapping.get("strings");
+        bytesPerMapping.forEach((layout, bytes) -> System.out.printf("%-16s %8.1f bytes/mapping  %6.1f%% of strings%n",
+                layout, bytes, 100 * bytes / baseline));
+
+        connectionFactory.destroy();
+    }
+
+    private static double measure(RedisTemplate<String, String> redisTemplate, int mappings,
+                                  Consumer<Map<String, CacheService.Entry>> writer, String pattern) {
+        long before = usedMemory(redisTemplate);
+        Random random = new Random(42);
+        Map<String, CacheService.Entry> batch = new LinkedHashMap<>();
+        for (int i = 0; i < mappings; i++) {
+            batch.put(PREFIX + code(random), new CacheService.Entry(url(random), TTL));
+            if (batch.size() == 1000) {
+                writer.accept(batch);
+                batch.clear();
+            }
+        }
+        writer.accept(batch);
+        long after = usedMemory(redisTemplate);
+
+        redisTemplate.execute(new DefaultRedisScript<>(DELETE_BY_PATTERN, Long.class), List.of(), pattern);
+        return (after - before) / (double) mappings;
+    }
+
+    private static long usedMemory(RedisTemplate<String, String> redisTemplate) {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("memory"));
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    private static String config(RedisTemplate<String, String> redisTemplate, String name) {
+        Properties config = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().getConfig(name));
+        return config.getProperty(name);
+    }
+
+    private static String code(Random random) {
+        String alphabet = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        StringBuilder code = new StringBuilder(10);
+        for (int i = 0; i < 10; i++) {
+            code.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return code.toString();
+    }
+
+    // Roughly the shape of shortened links: a site, a path, often campaign parameters
+    private static String url(Random random) {
+        String[] hosts = {"https://www.example.com", "https://github.com", "https://shop.example.org", "https://news.example.net"};
+        StringBuilder url = new StringBuilder(hosts[random.nextInt(hosts.length)]);
+        url.append("/article/").append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+        if (random.nextBoolean()) {
+            url.append("?utm_source=newsletter&utm_medium=email&utm_campaign=").append(random.nextInt(1000));
+        }
+        return url.toString();
+    }
+}
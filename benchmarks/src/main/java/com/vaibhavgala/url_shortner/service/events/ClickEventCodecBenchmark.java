@@ -0,0 +1,35 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+public class ClickEventCodecBenchmark {
+
+    private ClickEvent event;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        event = new ClickEvent("aB3dE5gH7j", "203.0.113.42",
+                "Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X) AppleWebKit/605.1.15 Mobile/15E148",
+                "https://news.example.com/article", 1_700_000_000_000L);
+        encoded = ClickEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ClickEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public ClickEvent decode() {
+        return ClickEventCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,93 @@
+package com.vaibhavgala.url_shortner.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end click-to-DB lag while the load runs: redirect a dedicated short code,
+ * then poll its url_mapping.click_count until the click has been committed by the consumer.
+ * One probe at a time, so each sample is a single click's full path through Kafka.
+ */
+final class ClickLagProbe implements Runnable {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long GIVE_UP_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final LoadGenerator generator;
+    private final String jdbcUrl;
+    private final String probeCode;
+    private final Duration interval;
+    private final Histogram lag = new Histogram(TimeUnit.MINUTES.toNanos(2), 3);
+    private volatile boolean running = true;
+    private long timeouts;
+    private long sent;
+
+    ClickLagProbe(LoadGenerator generator, String jdbcUrl, String probeCode, Duration interval) {
+        this.generator = generator;
+        this.jdbcUrl = jdbcUrl;
+        this.probeCode = probeCode;
+        this.interval = interval;
+    }
+
+    @Override
+    public void run() {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "postgres", "postgres");
+             PreparedStatement clicks = connection.prepareStatement(
+                     "SELECT click_count FROM url_mapping WHERE short_code = ?")) {
+            clicks.setString(1, probeCode);
+            while (running) {
+                long before = clickCount(clicks);
+                long start = System.nanoTime();
+                if (generator.redirect(probeCode)) {
+                    sent++;
+                    awaitCount(clicks, before + 1, start);
+                }
+                Thread.sleep(interval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Click lag probe failed", e);
+        }
+    }
+
+    private void awaitCount(PreparedStatement clicks, long expected, long start) throws SQLException, InterruptedException {
+        while (System.nanoTime() - start < GIVE_UP_NANOS) {
+            if (clickCount(clicks) >= expected) {
+                lag.recordValue(Math.min(System.nanoTime() - start, lag.getHighestTrackableValue()));
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(POLL_NANOS);
+        }
+        timeouts++;
+    }
+
+    private static long clickCount(PreparedStatement clicks) throws SQLException {
+        try (ResultSet rs = clicks.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    Histogram lag() {
+        return lag;
+    }
+
+    long timeouts() {
+        return timeouts;
+    }
+
+    long sent() {
+        return sent;
+    }
+}
@@ -0,0 +1,173 @@
+package com.vaibhavgala.url_shortner.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load: requests are issued on a fixed schedule whether or not earlier ones
+ * have returned, and latency is measured from each request's scheduled start, so a stalled
+ * server shows up in the percentiles instead of silently slowing the generator down.
+ */
+final class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final LoadTestConfig config;
+
+    LoadGenerator(HttpClient client, URI baseUri, LoadTestConfig config) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.config = config;
+    }
+
+    /**
+     * Per-operation results of one run
+     */
+    static final class OperationStats {
+        final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+        final AtomicLong ok = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        Histogram histogram;
+    }
+
+    record RunResult(OperationStats redirect, OperationStats shorten, long dropped, long elapsedNanos) {
+    }
+
+    /**
+     * Creates the short codes redirects are drawn from
+     */
+    List<String> seed(int count) throws InterruptedException {
+        List<String> codes = Collections.synchronizedList(new ArrayList<>(count));
+        Semaphore permits = new Semaphore(64);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        String code = shorten();
+                        if (code != null) {
+                            codes.add(code);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(codes);
+    }
+
+    RunResult run(List<String> codes, Duration duration) {
+        OperationStats redirect = new OperationStats();
+        OperationStats shorten = new OperationStats();
+        ZipfianGenerator zipf = new ZipfianGenerator(codes.size(), config.zipfTheta());
+        // Fixed seed so every run offers the same key sequence
+        SplittableRandom random = new SplittableRandom(42);
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long dropped = 0;
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * intervalNanos;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                boolean isShorten = random.nextDouble() < config.shortenRatio();
+                String code = isShorten ? null : codes.get(zipf.next(random));
+                if (!inFlight.tryAcquire()) {
+                    // Client-side saturation; reported separately so it isn't mistaken for server speed
+                    dropped++;
+                    continue;
+                }
+                executor.submit(() -> {
+                    try {
+                        if (isShorten) {
+                            timed(shorten, intended, () -> shorten() != null);
+                        } else {
+                            timed(redirect, intended, () -> redirect(code));
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        redirect.histogram = redirect.recorder.getIntervalHistogram();
+        shorten.histogram = shorten.recorder.getIntervalHistogram();
+        return new RunResult(redirect, shorten, dropped, elapsed);
+    }
+
+    boolean redirect(String code) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/" + code))
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", "snaplink-loadtest")
+                .GET()
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 302;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String shorten() {
+        String url = "https://example.com/loadtest/" + UUID.randomUUID();
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/shorten?url=" + url))
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            String shortUrl = response.body().trim();
+            return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private interface Call {
+        boolean execute();
+    }
+
+    private static void timed(OperationStats stats, long intendedNanos, Call call) {
+        boolean success = call.execute();
+        long latency = Math.min(System.nanoTime() - intendedNanos, MAX_LATENCY_NANOS);
+        stats.recorder.recordValue(Math.max(latency, 1));
+        (success ? stats.ok : stats.errors).incrementAndGet();
+    }
+}
@@ -0,0 +1,67 @@
+package com.vaibhavgala.url_shortner.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test knobs, read from -Dloadtest.* system properties.
+ *
+ * @param rate            requests per second offered (open model: arrivals don't wait for responses)
+ * @param warmup          run before measuring, so JIT and pools settle
+ * @param duration        measured run
+ * @param keys            short codes created before the run and redirected to
+ * @param zipfTheta       skew of the redirect key distribution (0 = uniform, 0.99 = YCSB default)
+ * @param shortenRatio    share of requests that are /api/shorten, the rest are redirects
+ * @param maxInFlight     requests outstanding before the generator counts arrivals as dropped
+ * @param partitions      partitions of the embedded click-events topic (and listener threads)
+ * @param probeInterval   pause between click-to-DB lag probes
+ * @param target          base URL of an already running stack to drive instead of booting one
+ *                        (e.g. http://localhost:8081 for the reactive stack); empty = embedded
+ * @param label           free text stored in the report, e.g. the commit under test
+ */
+public record LoadTestConfig(
+        int rate,
+        Duration warmup,
+        Duration duration,
+        int keys,
+        double zipfTheta,
+        double shortenRatio,
+        int maxInFlight,
+        int partitions,
+        Duration probeInterval,
+        String resultsDir,
+        String target,
+        String label) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.rate", 1000),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT60S")),
+                Integer.getInteger("loadtest.keys", 10_000),
+                Double.parseDouble(System.getProperty("loadtest.zipf-theta", "0.99")),
+                Double.parseDouble(System.getProperty("loadtest.shorten-ratio", "0.05")),
+                Integer.getInteger("loadtest.max-in-flight", 2000),
+                Integer.getInteger("loadtest.partitions", 8),
+                Duration.parse(System.getProperty("loadtest.probe-interval", "PT1S")),
+                System.getProperty("loadtest.results-dir", "results"),
+                System.getProperty("loadtest.target", ""),
+                System.getProperty("loadtest.label", ""));
+    }
+
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("rate", rate);
+        map.put("warmup", warmup.toString());
+        map.put("duration", duration.toString());
+        map.put("keys", keys);
+        map.put("zipfTheta", zipfTheta);
+        map.put("shortenRatio", shortenRatio);
+        map.put("maxInFlight", maxInFlight);
+        map.put("partitions", partitions);
+        map.put("probeInterval", probeInterval.toString());
+        map.put("target", target.isEmpty() ? "embedded" : target);
+        return map;
+    }
+}
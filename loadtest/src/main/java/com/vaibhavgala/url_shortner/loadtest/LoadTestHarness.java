@@ -0,0 +1,169 @@
+package com.vaibhavgala.url_shortner.loadtest;
+
+import com.vaibhavgala.url_shortner.UrlShortnerApplication;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the app against embedded Postgres and a single-node KRaft Kafka (cache in lite,
+ * in-memory mode), seeds short codes, drives a Zipfian redirect/shorten mix at a fixed rate,
+ * probes click-to-DB lag throughout, and writes a JSON report to results/. With
+ * -Dloadtest.target it drives an already running stack instead (throughput and latency only).
+ */
+public final class LoadTestHarness {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Instant started = Instant.now();
+
+        if (!config.target().isEmpty()) {
+            // A stack started elsewhere: same load, but no database access for lag or drain
+            measure(config, URI.create(config.target()), null, started);
+            System.exit(0);
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, config.partitions(), ClickTopics.MAIN);
+            kafka.afterPropertiesSet();
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+
+            try (ConfigurableApplicationContext app = startApplication(config, jdbcUrl, kafka.getBrokersAsString())) {
+                int port = Integer.parseInt(app.getEnvironment().getProperty("local.server.port"));
+                measure(config, URI.create("http://localhost:" + port), jdbcUrl, started);
+            } finally {
+                kafka.destroy();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Seeds, warms up and measures against baseUri; click lag and drain are only measured
+     * when jdbcUrl is given
+     */
+    private static void measure(LoadTestConfig config, URI baseUri, String jdbcUrl, Instant started) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LoadGenerator generator = new LoadGenerator(client, baseUri, config);
+
+        System.out.println("🌱 Seeding " + config.keys() + " short codes");
+        List<String> codes = generator.seed(config.keys() + 1);
+        if (codes.size() < 2) {
+            throw new IllegalStateException("Seeding failed, only " + codes.size() + " codes created");
+        }
+        String probeCode = codes.removeLast();
+
+        System.out.println("🔥 Warm-up " + config.warmup());
+        LoadGenerator.RunResult warmup = generator.run(codes, config.warmup());
+
+        ClickLagProbe probe = null;
+        Thread probeThread = null;
+        if (jdbcUrl != null) {
+            probe = new ClickLagProbe(generator, jdbcUrl, probeCode, config.probeInterval());
+            probeThread = Thread.ofPlatform().name("click-lag-probe").start(probe);
+        }
+
+        System.out.println("🚀 Measuring " + config.duration() + " at " + config.rate() + " req/s against " + baseUri);
+        LoadGenerator.RunResult result = generator.run(codes, config.duration());
+
+        Map<String, Object> lag = null;
+        Long drainMillis = null;
+        if (probe != null) {
+            probe.stop();
+            probeThread.join();
+            long expectedClicks = warmup.redirect().ok.get() + result.redirect().ok.get() + probe.sent();
+            drainMillis = awaitDrain(jdbcUrl, expectedClicks);
+            lag = LoadTestReport.percentiles(probe.lag());
+            lag.put("timeouts", probe.timeouts());
+        }
+
+        double seconds = result.elapsedNanos() / 1e9;
+        LoadTestReport report = new LoadTestReport(
+                config.label(),
+                started.toString(),
+                config.asMap(),
+                seconds,
+                LoadTestReport.operation(result.redirect(), seconds),
+                LoadTestReport.operation(result.shorten(), seconds),
+                result.dropped(),
+                lag,
+                drainMillis);
+
+        Path file = report.write(Path.of(config.resultsDir()), started);
+        System.out.println(report.summary());
+        System.out.println("📄 Report written to " + file.toAbsolutePath());
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config, String jdbcUrl,
+                                                                   String bootstrapServers) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "postgres");
+        properties.put("spring.datasource.hikari.minimum-idle", 5);
+        properties.put("spring.kafka.bootstrap-servers", bootstrapServers);
+        properties.put("spring.kafka.listener.concurrency", config.partitions());
+        properties.put("app.features.kafka.enabled", true);
+        // In-memory cache stands in for Redis
+        properties.put("app.features.redis.enabled", false);
+        // All load comes from one client IP; measure the service, not the limiter
+        properties.put("app.ratelimit.enabled", false);
+        properties.put("app.spool.dir", Files.createTempDirectory("loadtest-spool").toString());
+        properties.put("logging.level.com.vaibhavgala.url_shortner", "WARN");
+        properties.put("logging.level.org.apache.kafka", "WARN");
+
+        return new SpringApplicationBuilder(UrlShortnerApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * Time from the end of the load until every accepted click is in url_click_analytics,
+     * or null if it did not catch up within DRAIN_TIMEOUT
+     */
+    private static Long awaitDrain(String jdbcUrl, long expectedClicks) throws SQLException, InterruptedException {
+        long start = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "postgres", "postgres");
+             Statement statement = connection.createStatement()) {
+            while (System.nanoTime() - start < DRAIN_TIMEOUT.toNanos()) {
+                try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM url_click_analytics")) {
+                    rs.next();
+                    if (rs.getLong(1) >= expectedClicks) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                }
+                Thread.sleep(100);
+            }
+        }
+        return null;
+    }
+}
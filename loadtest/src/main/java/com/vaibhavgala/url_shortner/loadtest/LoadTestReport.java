@@ -0,0 +1,78 @@
+package com.vaibhavgala.url_shortner.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON report of one run; written to results/ so runs can be diffed
+ */
+record LoadTestReport(
+        String label,
+        String startedAt,
+        Map<String, Object> config,
+        double measuredSeconds,
+        Map<String, Object> redirect,
+        Map<String, Object> shorten,
+        long droppedByClient,
+        Map<String, Object> clickToDbLag,
+        Long drainMillis) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    static Map<String, Object> operation(LoadGenerator.OperationStats stats, double seconds) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("ok", stats.ok.get());
+        map.put("errors", stats.errors.get());
+        map.put("throughputPerSecond", round((stats.ok.get() + stats.errors.get()) / seconds));
+        map.putAll(percentiles(stats.histogram));
+        return map;
+    }
+
+    static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("samples", histogram.getTotalCount());
+        map.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        map.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+        map.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        map.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        map.put("maxMs", millis(histogram.getMaxValue()));
+        return map;
+    }
+
+    Path write(Path directory, Instant started) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("loadtest-" + FILE_TIME.format(started) + ".json");
+        MAPPER.writeValue(file.toFile(), this);
+        return file;
+    }
+
+    String summary() {
+        return String.format("""
+                ---------------- load test %s ----------------
+                redirect  %s
+                shorten   %s
+                dropped by client: %d
+                click->DB lag: %s
+                drain after load: %s ms
+                """, label, redirect, shorten, droppedByClient, clickToDbLag, drainMillis);
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
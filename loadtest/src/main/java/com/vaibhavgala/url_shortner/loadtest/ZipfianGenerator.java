@@ -0,0 +1,60 @@
+package com.vaibhavgala.url_shortner.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipfian ranks in [0, items), rank 0 the most popular (Gray et al., "Quickly Generating
+ * Billion-Record Synthetic Databases", as used by YCSB). Setup is O(items), draws are O(1).
+ */
+final class ZipfianGenerator {
+
+    private final int items;
+    private final double theta;
+    private final double alpha;
+    private final double zetaN;
+    private final double eta;
+
+    ZipfianGenerator(int items, double theta) {
+        if (theta >= 1) {
+            throw new IllegalArgumentException("zipf theta must be below 1, got " + theta);
+        }
+        if (theta <= 0) {
+            // Degenerates to uniform
+            this.items = items;
+            this.theta = 0;
+            this.alpha = 0;
+            this.zetaN = 0;
+            this.eta = 0;
+            return;
+        }
+        this.items = items;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetaN = zeta(items, theta);
+        double zeta2 = zeta(2, theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetaN);
+    }
+
+    int next(SplittableRandom random) {
+        if (theta == 0) {
+            return random.nextInt(items);
+        }
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < 1.0 + Math.pow(0.5, theta)) {
+            return Math.min(1, items - 1);
+        }
+        return (int) Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,45 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import com.vaibhavgala.url_shortner.service.events.ClickEvent;
+import com.vaibhavgala.url_shortner.service.events.ClickEventCodec;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Click events in the servlet app's wire format (ClickEventCodec) to the same topic, so the
+ * existing consumer ingests them. send() can block on metadata or a full buffer, so it runs
+ * off the event loop; there is no local spool here, a failed send is counted and dropped.
+ */
+@Service
+public class ReactiveClickPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveClickPublisher.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final Counter dropped;
+
+    public ReactiveClickPublisher(KafkaTemplate<String, byte[]> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.dropped = Counter.builder("clicks.dropped")
+                .description("Click events that could not be handed to Kafka")
+                .register(meterRegistry);
+    }
+
+    public void publish(String shortCode, String ipAddress, String userAgent, String referer) {
+        byte[] clickEvent = ClickEventCodec.encode(ClickEvent.now(shortCode, ipAddress, userAgent, referer));
+        // Keyed by short code: one link's clicks stay on one partition
+        Mono.fromFuture(() -> kafkaTemplate.send(ClickTopics.MAIN, shortCode, clickEvent))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(result -> { }, e -> {
+                    dropped.increment();
+                    log.warn("⚠️ Click event for {} not sent: {}", shortCode, e.getMessage());
+                });
+    }
+}
@@ -0,0 +1,21 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+public class ReactiveRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> urlRoutes(UrlHandler handler) {
+        return route(POST("/api/shorten"), handler::shorten)
+                // One path segment, as in the servlet app's @GetMapping("/{shortCode}")
+                .andRoute(GET("/{shortCode}"), handler::redirect);
+    }
+}
@@ -0,0 +1,13 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUrlMappingRepository extends ReactiveCrudRepository<UrlMappingRow, Long> {
+    Mono<UrlMappingRow> findByShortCode(String shortCode);
+
+    Flux<UrlMappingRow> findByOriginalUrl(String originalUrl);
+
+    Mono<Boolean> existsByShortCode(String shortCode);
+}
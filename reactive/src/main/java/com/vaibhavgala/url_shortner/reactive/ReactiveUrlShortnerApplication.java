@@ -0,0 +1,20 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Non-blocking deployment of /{shortCode} and /api/shorten: Netty event loops end to end, no
+ * request thread ever waits on Redis, Postgres or Kafka. Analytics, the dashboard and the click
+ * consumer stay in the servlet application, which also owns the url_mapping schema.
+ */
+@SpringBootApplication
+public class ReactiveUrlShortnerApplication {
+
+	public static void main(String[] args) {
+		// reactive.properties, so the servlet app's application.properties (also on the classpath) is ignored
+		new SpringApplicationBuilder(ReactiveUrlShortnerApplication.class)
+				.properties("spring.config.name=reactive")
+				.run(args);
+	}
+}
@@ -0,0 +1,149 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import com.vaibhavgala.url_shortner.service.ShortLinkRules;
+import com.vaibhavgala.url_shortner.service.cache.CacheService;
+import com.vaibhavgala.url_shortner.service.cache.CachedUrl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UrlShortnerService on reactive Redis and R2DBC, with the same rules (ShortLinkRules) and
+ * the same cache entries, so both stacks can serve from one Redis and one database. Only the
+ * strings cache layout is supported.
+ */
+@Service
+public class ReactiveUrlShortnerService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUrlShortnerService.class);
+
+    @Autowired
+    private ReactiveUrlMappingRepository repository;
+
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Value("${app.cache.ttl-jitter:0.1}")
+    private double ttlJitter;
+
+    @Value("${app.cache.xfetch.beta:1.0}")
+    private double xfetchBeta;
+
+    @Value("${app.cache.xfetch.enabled:false}")
+    private boolean xfetchEnabled;
+
+    // A slow Redis costs a database read, never a stalled redirect
+    @Value("${app.cache.timeout-ms:50}")
+    private long cacheTimeoutMillis;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cache first, then the database; empty for unknown or expired codes
+     */
+    public Mono<String> getOriginalUrl(String shortCode) {
+        return cacheGet(ShortLinkRules.CACHE_PREFIX + shortCode)
+                .mapNotNull(CachedUrl::decode)
+                .doOnNext(cached -> refreshEarlyIfDue(shortCode, cached))
+                .map(CachedUrl::url)
+                .switchIfEmpty(Mono.defer(() -> loadAndCache(shortCode)));
+    }
+
+    public Mono<String> shortenUrl(String originalUrl, String customAlias, LocalDateTime expiresAt) {
+        boolean hasCustomAlias = (customAlias != null && !customAlias.trim().isEmpty());
+
+        if (hasCustomAlias) {
+            String alias = customAlias.trim();
+            if (!ShortLinkRules.isValidAlias(alias)) {
+                return Mono.error(ShortLinkRules.invalidAlias());
+            }
+            // Same URL + same alias returns the existing mapping; a different URL is an error
+            return repository.findByShortCode(alias)
+                    .flatMap(existing -> existing.originalUrl().equals(originalUrl)
+                            ? reuseExistingMapping(existing)
+                            : Mono.<String>error(ShortLinkRules.aliasTaken(alias)))
+                    .switchIfEmpty(Mono.defer(() -> createNewMapping(originalUrl, alias, expiresAt)));
+        }
+
+        return repository.findByOriginalUrl(originalUrl)
+                .filter(existing -> !ShortLinkRules.isExpired(existing.expiresAt()))
+                .next()
+                .flatMap(this::reuseExistingMapping)
+                .switchIfEmpty(Mono.defer(() -> createUniqueShortCode()
+                        .flatMap(code -> createNewMapping(originalUrl, code, expiresAt))));
+    }
+
+    private Mono<String> createUniqueShortCode() {
+        return Flux.range(0, ShortLinkRules.MAX_RETRIES)
+                .concatMap(attempt -> {
+                    String code = ShortLinkRules.generateRandomCode();
+                    return repository.existsByShortCode(code).filter(exists -> !exists).map(exists -> code);
+                })
+                .next()
+                .switchIfEmpty(Mono.error(ShortLinkRules::codeSpaceExhausted));
+    }
+
+    private Mono<String> createNewMapping(String originalUrl, String shortCode, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime effectiveExpiry = ShortLinkRules.effectiveExpiry(expiresAt, now);
+        return repository.save(UrlMappingRow.newMapping(originalUrl, shortCode, effectiveExpiry, now))
+                .doOnNext(saved -> cacheMapping(shortCode, originalUrl, effectiveExpiry, 0))
+                .map(UrlMappingRow::shortCode);
+    }
+
+    private Mono<String> reuseExistingMapping(UrlMappingRow existing) {
+        cacheMapping(existing.shortCode(), existing.originalUrl(), existing.expiresAt(), 0);
+        return Mono.just(existing.shortCode());
+    }
+
+    private Mono<String> loadAndCache(String shortCode) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return repository.findByShortCode(shortCode)
+                    .filter(mapping -> !ShortLinkRules.isExpired(mapping.expiresAt()))
+                    .doOnNext(mapping -> cacheMapping(shortCode, mapping.originalUrl(), mapping.expiresAt(),
+                            (System.nanoTime() - started) / 1_000))
+                    .map(UrlMappingRow::originalUrl);
+        });
+    }
+
+    /**
+     * Reloads a hot entry in the background before it expires, at most once at a time per code
+     */
+    private void refreshEarlyIfDue(String shortCode, CachedUrl cached) {
+        if (!cached.shouldRefreshEarly(System.currentTimeMillis(), xfetchBeta) || !refreshing.add(shortCode)) {
+            return;
+        }
+        loadAndCache(shortCode)
+                .doFinally(signal -> refreshing.remove(shortCode))
+                .subscribe(url -> log.debug("🔄 Refreshed cache early for: {}", shortCode),
+                        e -> log.warn("⚠️ Early cache refresh failed for {}: {}", shortCode, e.getMessage()));
+    }
+
+    private Mono<String> cacheGet(String key) {
+        return redisTemplate.opsForValue().get(key)
+                .timeout(Duration.ofMillis(cacheTimeoutMillis))
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Redis Cache get failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    // Fire and forget: the response never waits for the cache write
+    private void cacheMapping(String shortCode, String originalUrl, LocalDateTime expiresAt, long recomputeMicros) {
+        CacheService.Entry entry = ShortLinkRules.cacheEntry(originalUrl, expiresAt, recomputeMicros, ttlJitter,
+                xfetchEnabled);
+        redisTemplate.opsForValue().set(ShortLinkRules.CACHE_PREFIX + shortCode, entry.value(), entry.ttl())
+                .subscribe(ok -> { }, e -> log.warn("⚠️ Redis Cache set failed: {}", e.getMessage()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Same contract as UrlShortenerController's shorten and redirect endpoints
+ */
+@Component
+public class UrlHandler {
+
+    @Autowired
+    private ReactiveUrlShortnerService service;
+
+    @Autowired
+    private ReactiveClickPublisher clickPublisher;
+
+    @Autowired
+    private Environment env;
+
+    public Mono<ServerResponse> redirect(ServerRequest request) {
+        String shortCode = request.pathVariable("shortCode");
+        return service.getOriginalUrl(shortCode)
+                .flatMap(originalUrl -> {
+                    clickPublisher.publish(
+                            shortCode,
+                            request.remoteAddress().map(InetSocketAddress::getHostString).orElse(null),
+                            request.headers().firstHeader(HttpHeaders.USER_AGENT),
+                            request.headers().firstHeader(HttpHeaders.REFERER));
+                    return ServerResponse.status(HttpStatus.FOUND).location(URI.create(originalUrl)).build();
+                })
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    // Parameters from the query string or a form body, like @RequestParam
+    public Mono<ServerResponse> shorten(ServerRequest request) {
+        return request.formData().flatMap(form -> {
+            String url = param(request, form, "url");
+            if (url == null || url.isBlank()) {
+                return ServerResponse.badRequest().bodyValue("Required parameter 'url' is not present.");
+            }
+            LocalDateTime expiresAt;
+            try {
+                String expiry = param(request, form, "expiresAt");
+                expiresAt = expiry == null || expiry.isBlank() ? null : LocalDateTime.parse(expiry);
+            } catch (DateTimeParseException e) {
+                return ServerResponse.badRequest().bodyValue("Invalid expiresAt, expected ISO date-time");
+            }
+
+            String prefix = env.getProperty("PREFIX_WEBSITE_DOMAIN");
+            if (prefix == null || prefix.isBlank()) {
+                URI uri = request.uri();
+                prefix = uri.getScheme() + "://" + request.headers().firstHeader(HttpHeaders.HOST) + "/";
+            }
+            String shortUrlPrefix = prefix;
+            return service.shortenUrl(url, param(request, form, "alias"), expiresAt)
+                    .flatMap(shortCode -> ServerResponse.ok().bodyValue(shortUrlPrefix + shortCode))
+                    .onErrorResume(IllegalArgumentException.class,
+                            e -> ServerResponse.badRequest().bodyValue(e.getMessage()));
+        });
+    }
+
+    private static String param(ServerRequest request, MultiValueMap<String, String> form, String name) {
+        return request.queryParam(name).orElseGet(() -> form.getFirst(name));
+    }
+}
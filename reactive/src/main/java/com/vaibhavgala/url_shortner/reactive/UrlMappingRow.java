@@ -0,0 +1,29 @@
+package com.vaibhavgala.url_shortner.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC view of the url_mapping table (the JPA entity UrlMapping in the servlet app)
+ */
+@Table("url_mapping")
+public record UrlMappingRow(
+        @Id Long id,
+        String originalUrl,
+        String shortCode,
+        @Column("is_custom") Boolean custom,
+        LocalDateTime expiresAt,
+        Long clickCount,
+        LocalDateTime createdAt) {
+
+    static UrlMappingRow newMapping(String originalUrl, String shortCode, LocalDateTime expiresAt, LocalDateTime createdAt) {
+        return new UrlMappingRow(null, originalUrl, shortCode, null, expiresAt, 0L, createdAt);
+    }
+
+    public UrlMappingRow withId(Long id) {
+        return new UrlMappingRow(id, originalUrl, shortCode, custom, expiresAt, clickCount, createdAt);
+    }
+}
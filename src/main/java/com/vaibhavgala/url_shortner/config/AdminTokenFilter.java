@@ -0,0 +1,80 @@
+package com.vaibhavgala.url_shortner.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards /api/admin/** (dead-letter replay, shard rebalancing) with a shared bearer token
+ * from ADMIN_TOKEN. Without a token configured the admin API is switched off entirely.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdminTokenFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminTokenFilter.class);
+
+    private static final String ADMIN_PATH = "/api/admin";
+    private static final String BEARER = "Bearer ";
+
+    private final byte[] token;
+
+    public AdminTokenFilter(@Value("${app.admin.token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        if (token.isBlank()) {
+            log.info("🔒 ADMIN_TOKEN not set, /api/admin is disabled");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // The path handler mapping routes on (decoded, ;parameters removed), not the raw URI:
+        // otherwise /api/%61dmin/... or /api/admin;x/... would reach the controllers unchecked
+        String path = UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+        return !path.equals(ADMIN_PATH) && !path.startsWith(ADMIN_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (token.length == 0) {
+            reject(response, HttpStatus.FORBIDDEN, "Admin API is disabled");
+            return;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            reject(response, HttpStatus.UNAUTHORIZED, "Admin token required");
+            return;
+        }
+        // Constant time, so the token can't be guessed byte by byte from response times
+        byte[] presented = authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(presented, token)) {
+            reject(response, HttpStatus.FORBIDDEN, "Invalid admin token");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String error) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+    }
+}
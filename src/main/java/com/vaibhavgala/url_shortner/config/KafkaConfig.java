@@ -1,17 +1,28 @@
 package com.vaibhavgala.url_shortner.config;
 
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import com.vaibhavgala.url_shortner.service.ingest.AdaptiveBatchController;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,49 +34,25 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
-    private static final String GROUP_ID = "click-tracking-group-v4";
-
-    // Producer Configuration
-    @Bean
-    public ProducerFactory<String, String> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-
-        // Idempotent producer settings - required for exactly-once guarantees
-        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
-        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
-
-        // High-throughput batching and compression options
-        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536); // 64KB batch size
-        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5); // Wait up to 5ms to batch records
-        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");// Compression codec
-
-        // Retry config
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 67108864); // 64MB buffer memory
-
-        return new DefaultKafkaProducerFactory<>(configProps);
-    }
-
-    @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
-    }
-
-    // Consumer Configuration
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+    // Upper bound per poll; the adaptive controller decides how many polls make a window
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+    @Value("${spring.kafka.listener.concurrency:8}")
+    private int concurrency;
+
+    // Consumer Configuration (the producer is in KafkaProducerConfig)
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, byte[]> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class); // ClickEventCodec payloads
 
         // Optimized consumer batch processing configs
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 50); // Max batch size
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords); // Max records per poll
         props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000); // 5 min max poll interval
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000); // 30 sec session timeout
         props.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 10000); // 10 sec heartbeat
@@ -80,25 +67,79 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory(
+            ConsumerAwareRebalanceListener clickWindowRebalanceListener, AdaptiveBatchController batchController) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
 
         factory.setConsumerFactory(consumerFactory());
 
         // Enable batch listener for batch processing
         factory.setBatchListener(true);
 
-        // Set concurrency to 8 if you have 8 partitions for throughput
-        factory.setConcurrency(8);
+        // One thread per partition for throughput
+        factory.setConcurrency(concurrency);
 
         // Configure container properties for batch acknowledgment and polling
         ContainerProperties containerProps = factory.getContainerProperties();
-        containerProps.setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE); // Acknowledge offset after batch
-                                                                                 // processing
+        // Offsets are committed by KafkaClickConsumer itself once a pre-aggregated window is written
+        containerProps.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProps.setConsumerRebalanceListener(clickWindowRebalanceListener); // Flush windows before revocation
         containerProps.setPollTimeout(3000); // 3 second poll timeout
-        containerProps.setIdleEventInterval(30000L); // 30 second idle event interval
+        containerProps.setIdleEventInterval(batchController.minWindowMillis()); // Idle event flushes the last window of a quiet partition
         containerProps.setMissingTopicsFatal(false); // Don't fail if topic missing
 
         return factory;
     }
+
+    // ========== Retry / dead-letter topics ==========
+
+    @Bean
+    public NewTopic clickRetryTopic() {
+        return TopicBuilder.name(ClickTopics.RETRY).partitions(3).build();
+    }
+
+    @Bean
+    public NewTopic clickDeadLetterTopic() {
+        return TopicBuilder.name(ClickTopics.DLT).partitions(1).build();
+    }
+
+    // Routes a failed record to the retry topic (partition chosen by the record key), stamped
+    // with the send time: the record's own timestamp may be the original click's
+    @Bean
+    public DeadLetterPublishingRecoverer clickRetryRecoverer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(ClickTopics.RETRY, -1));
+        recoverer.setHeadersFunction((record, ex) -> new RecordHeaders().add(ClickTopics.RETRY_SENT_AT_HEADER,
+                ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis()).array()));
+        return recoverer;
+    }
+
+    // Routes a record that can't be decoded, or exhausted its retries, to the dead-letter topic
+    @Bean
+    public DeadLetterPublishingRecoverer clickDeadLetterRecoverer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(ClickTopics.DLT, -1));
+    }
+
+    /**
+     * Record-at-a-time container for the retry topic: a failing record is retried in place
+     * with exponential backoff (1s, 4s, 16s, 64s) and then published to the dead-letter topic
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> retryListenerContainerFactory(
+            @Qualifier("clickDeadLetterRecoverer") DeadLetterPublishingRecoverer clickDeadLetterRecoverer) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(1);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(4);
+        backOff.setInitialInterval(1000L);
+        backOff.setMultiplier(4.0);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(clickDeadLetterRecoverer, backOff));
+
+        ContainerProperties containerProps = factory.getContainerProperties();
+        containerProps.setAckMode(ContainerProperties.AckMode.RECORD);
+        containerProps.setMissingTopicsFatal(false);
+        return factory;
+    }
 }
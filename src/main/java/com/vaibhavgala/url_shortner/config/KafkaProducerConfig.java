@@ -0,0 +1,62 @@
+package com.vaibhavgala.url_shortner.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Click event producer, kept apart from the consumer side in KafkaConfig so redirect-only
+ * edge nodes can publish clicks without the ingestion pipeline
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaProducerConfig {
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+    // How long send() may block a redirect thread before the event goes to the local spool
+    @Value("${app.spool.producer-max-block-ms:50}")
+    private long producerMaxBlockMillis;
+
+    // Producer Configuration
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class); // ClickEventCodec payloads
+
+        // Idempotent producer settings - required for exactly-once guarantees
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+
+        // High-throughput batching and compression options
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536); // 64KB batch size
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5); // Wait up to 5ms to batch records
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");// Compression codec
+
+        // Retry config
+        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 67108864); // 64MB buffer memory
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producerMaxBlockMillis); // Fail fast into the spool
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 15000);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000); // Spool undelivered events after 30s (>= linger + request timeout)
+
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+}
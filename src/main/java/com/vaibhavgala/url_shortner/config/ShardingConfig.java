@@ -0,0 +1,72 @@
+package com.vaibhavgala.url_shortner.config;
+
+import com.vaibhavgala.url_shortner.repo.shard.ShardRebalancer;
+import com.vaibhavgala.url_shortner.repo.shard.ShardRouter;
+import com.vaibhavgala.url_shortner.repo.shard.ShardSet;
+import com.vaibhavgala.url_shortner.repo.shard.ShardedUrlMappingStore;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * url_mapping shards. Click analytics and visitor sketches stay on the primary datasource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.features.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    // Shards are named shard0, shard1, ... by position, so new shards are only ever appended
+    @Value("${app.sharding.urls}")
+    private List<String> urls;
+    @Value("${spring.datasource.username}")
+    private String username;
+    @Value("${spring.datasource.password}")
+    private String password;
+    @Value("${app.sharding.pool-size:20}")
+    private int poolSize;
+    @Value("${app.sharding.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Bean(destroyMethod = "close")
+    public ShardSet urlMappingShards() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(urls.get(i).trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setPoolName("HikariPool-shard" + i);
+            dataSources.put("shard" + i, dataSource);
+        }
+        ShardSet shards = new ShardSet(dataSources);
+        shards.createSchema();
+        return shards;
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardSet urlMappingShards) {
+        return new ShardRouter(urlMappingShards, virtualNodes);
+    }
+
+    @Bean
+    public ShardedUrlMappingStore urlMappingStore(ShardSet urlMappingShards, ShardRouter shardRouter) {
+        return new ShardedUrlMappingStore(urlMappingShards, shardRouter);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardSet urlMappingShards, ShardRouter shardRouter,
+                                           @Value("${app.sharding.rebalance.batch-size:500}") int batchSize,
+                                           @Value("${app.sharding.rebalance.pause-ms:10}") long pauseMillis,
+                                           @Value("${app.sharding.ring-refresh-ms:5000}") long ringRefreshMillis) {
+        // Two refresh intervals: every node routes new mappings by the target ring before rows move
+        return new ShardRebalancer(urlMappingShards, shardRouter, batchSize, pauseMillis, 2 * ringRefreshMillis);
+    }
+}
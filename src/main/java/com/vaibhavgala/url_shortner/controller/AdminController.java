@@ -0,0 +1,28 @@
+package com.vaibhavgala.url_shortner.controller;
+
+import com.vaibhavgala.url_shortner.service.DeadLetterReplayService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class AdminController {
+
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+
+    // Re-publishes up to max dead-lettered clicks to the main click topic
+    @PostMapping("/dlq/replay")
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(@RequestParam(defaultValue = "1000") int max) {
+        if (max <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "max must be positive"));
+        }
+        int replayed = deadLetterReplayService.replay(max);
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+}
@@ -1,14 +1,34 @@
 package com.vaibhavgala.url_shortner.controller;
 
-import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vaibhavgala.url_shortner.repo.UrlClickAnalyticsRepository;
+import com.vaibhavgala.url_shortner.service.analytics.AnalyticsResponseCache;
+import com.vaibhavgala.url_shortner.service.analytics.ClickExportService;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import com.vaibhavgala.url_shortner.service.live.LiveAnalyticsHub;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -17,14 +37,69 @@ public class AnalyticsController {
     @Autowired
     private UrlClickAnalyticsRepository analyticsRepository;
 
+    @Autowired
+    private UniqueVisitorService uniqueVisitorService;
+
+    @Autowired
+    private LiveAnalyticsHub liveAnalyticsHub;
+
+    @Autowired
+    private AnalyticsResponseCache responseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClickExportService clickExportService;
+
+    // Longest from/to range for unique visitors: each day is one sketch in the count
+    @Value("${app.analytics.max-range-days:366}")
+    private long maxRangeDays;
+
     @GetMapping("/{shortCode}")
-    public Map<String, Object> getAnalytics(@PathVariable String shortCode) {
+    public ResponseEntity<byte[]> getAnalytics(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // Unique visitors over [from, to), last 24 hours by default
+        LocalDateTime rangeEnd = to != null ? to : LocalDateTime.now();
+        LocalDateTime rangeStart = from != null ? from : rangeEnd.minusHours(24);
+        if (!rangeStart.isBefore(rangeEnd) || ChronoUnit.DAYS.between(rangeStart, rangeEnd) > maxRangeDays) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String queryKey = from + "|" + to;
+        AnalyticsResponseCache.CachedResponse response = responseCache.get(shortCode, queryKey, () -> {
+            try {
+                return objectMapper.writeValueAsBytes(buildAnalytics(shortCode, rangeStart, rangeEnd));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize analytics for " + shortCode, e);
+            }
+        });
+
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofMillis(responseCache.getTtlMillis())).mustRevalidate();
+        if (matches(ifNoneMatch, response.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(response.etag())
+                .cacheControl(cacheControl)
+                .body(response.body());
+    }
+
+    private Map<String, Object> buildAnalytics(String shortCode, LocalDateTime rangeStart, LocalDateTime rangeEnd) {
         Map<String, Object> analytics = new HashMap<>();
 
         // Basic stats
-        List<UrlClickAnalytics> clicks = analyticsRepository.findByShortCodeOrderByTimestampDesc(shortCode);
-        analytics.put("totalClicks", clicks.size());
-        analytics.put("recentClicks", clicks.subList(0, Math.min(10, clicks.size())));
+        analytics.put("totalClicks", analyticsRepository.countByShortCode(shortCode));
+        analytics.put("recentClicks", analyticsRepository.findTop10ByShortCodeOrderByTimestampDesc(shortCode));
 
         // Geographic breakdown
         analytics.put("clicksByCountry", analyticsRepository.findClicksByCountry(shortCode));
@@ -39,7 +114,85 @@ public class AnalyticsController {
         // Top referrers
         analytics.put("topReferrers", analyticsRepository.findTopReferrers(shortCode));
 
+        // Unique visitors (HyperLogLog estimate)
+        analytics.put("uniqueVisitors", uniqueVisitorService.countUniqueVisitors(shortCode, rangeStart, rangeEnd));
+
         return analytics;
     }
-}
 
+    // If-None-Match may list several validators (or "*"); weak prefixes are ignored for GET
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Raw clicks with from <= timestamp < to (default now), oldest first, as CSV or NDJSON,
+     * optionally gzipped. Streamed, so it works for any number of clicks.
+     */
+    @GetMapping("/{shortCode}/export")
+    public ResponseEntity<StreamingResponseBody> exportClicks(
+            @PathVariable String shortCode,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            NativeWebRequest webRequest) {
+
+        ClickExportService.Format exportFormat;
+        try {
+            exportFormat = ClickExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime rangeEnd = to != null ? to : LocalDateTime.now();
+        if (!from.isBefore(rangeEnd)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ClickExportService.Slot slot = clickExportService.tryAcquire();
+        if (slot == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        // The body may never run (async timeout, client gone before it starts); the slot is
+        // released when async processing completes either way
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor("clickExportSlot",
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        slot.close();
+                    }
+                });
+
+        String filename = shortCode + "-clicks." + exportFormat.extension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> {
+                    try (slot) {
+                        clickExportService.export(shortCode, from, rangeEnd, exportFormat, gzip, out);
+                    }
+                });
+    }
+
+    // Live incremental updates (event name "delta") pushed from the click consumer
+    @GetMapping(value = "/{shortCode}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAnalytics(@PathVariable String shortCode) {
+        try {
+            return ResponseEntity.ok(liveAnalyticsHub.subscribe(shortCode));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).build();
+        }
+    }
+}
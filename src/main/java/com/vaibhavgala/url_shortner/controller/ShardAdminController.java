@@ -0,0 +1,40 @@
+package com.vaibhavgala.url_shortner.controller;
+
+import com.vaibhavgala.url_shortner.repo.shard.ShardRebalancer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@ConditionalOnProperty(name = "app.features.sharding.enabled", havingValue = "true")
+public class ShardAdminController {
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @GetMapping
+    public ShardRebalancer.Status status() {
+        return rebalancer.status();
+    }
+
+    // Moves url mappings onto a new set of shards, e.g. members=shard0,shard1,shard2 after adding shard2
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance(@RequestParam List<String> members) {
+        if (members.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "members must not be empty"));
+        }
+        try {
+            return ResponseEntity.accepted().body(rebalancer.start(members));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
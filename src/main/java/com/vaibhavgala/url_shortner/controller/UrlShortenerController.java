@@ -7,13 +7,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 
 import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.vaibhavgala.url_shortner.service.events.EventProducer;
+import com.vaibhavgala.url_shortner.service.jfr.RedirectEvent;
+import com.vaibhavgala.url_shortner.service.startup.StartupMetrics;
 
 @RestController
 public class UrlShortenerController {
@@ -29,6 +35,15 @@ public class UrlShortenerController {
     @Autowired
     private EventProducer eventProducer;
 
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    @Value("${app.resolve.max-codes:10000}")
+    private int maxResolveCodes;
+
+    public record ResolvedCode(String shortCode, String url) {
+    }
+
     public UrlShortenerController(UrlShortnerService service) {
         this.service = service;
     }
@@ -52,11 +67,29 @@ public class UrlShortenerController {
         return ResponseEntity.ok(shortUrl);
     }
 
+    // Bulk lookup for link checkers and renderers: ["abc", "def"] -> [{shortCode, url}] in the same order
+    // (url is null for unknown or expired codes); no redirects, so no click events
+    @PostMapping("/api/resolve")
+    public ResponseEntity<?> resolve(@RequestBody List<String> shortCodes) {
+        if (shortCodes.size() > maxResolveCodes) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxResolveCodes + " codes per request"));
+        }
+        List<Optional<String>> urls = service.getOriginalUrls(shortCodes);
+        List<ResolvedCode> results = new ArrayList<>(shortCodes.size());
+        for (int i = 0; i < shortCodes.size(); i++) {
+            results.add(new ResolvedCode(shortCodes.get(i), urls.get(i).orElse(null)));
+        }
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping("/{shortCode}")
     public ResponseEntity<Object> redirect(@PathVariable String shortCode, HttpServletRequest request) {
+        RedirectEvent event = new RedirectEvent();
+        event.begin();
         Optional<String> originalUrl = service.getOriginalUrl(shortCode);
         // String IP_ADDRESS = clientIPService.getClientIP(request);
 
+        ResponseEntity<Object> response;
         if (originalUrl.isPresent()) {
             // Send click event (non-blocking for Kafka, blocking for Sync)
             eventProducer.sendClickEvent(
@@ -65,9 +98,16 @@ public class UrlShortenerController {
                     request.getHeader("User-Agent"),
                     request.getHeader("Referer"));
 
-            return ResponseEntity.status(302).location(URI.create(originalUrl.get())).build();
+            response = ResponseEntity.status(302).location(URI.create(originalUrl.get())).build();
+            startupMetrics.redirectServed();
+        } else {
+            response = ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+
+        event.shortCode = shortCode;
+        event.status = response.getStatusCode().value();
+        event.commit();
+        return response;
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
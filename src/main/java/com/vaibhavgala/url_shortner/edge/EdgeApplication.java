@@ -0,0 +1,47 @@
+package com.vaibhavgala.url_shortner.edge;
+
+import com.vaibhavgala.url_shortner.config.KafkaProducerConfig;
+import com.vaibhavgala.url_shortner.service.KafkaClickProducer;
+import com.vaibhavgala.url_shortner.service.events.ClickSpool;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Redirect-only edge node: serves /{shortCode} from the snapshot files SnapshotExporter writes,
+ * with no Postgres or Redis. Clicks still go to Kafka through KafkaClickProducer (and its spool).
+ * Scans only this package; the conditional keeps the main application's scan from picking it up.
+ *
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.vaibhavgala.url_shortner.edge.EdgeApplication org.springframework.boot.loader.launch.PropertiesLauncher
+ * </pre>
+ */
+@SpringBootApplication(exclude = {
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        RedisAutoConfiguration.class})
+@ConditionalOnProperty(name = "app.edge.enabled", havingValue = "true")
+@Import({KafkaProducerConfig.class, ClickSpool.class, KafkaClickProducer.class})
+@EnableScheduling
+public class EdgeApplication {
+
+	public static void main(String[] args) {
+		Dotenv dotenv = Dotenv.configure()
+				.ignoreIfMissing()
+				.load();
+		dotenv.entries().forEach(entry -> {
+			System.setProperty(entry.getKey(), entry.getValue());
+		});
+
+		new SpringApplicationBuilder(EdgeApplication.class)
+				.profiles("edge")
+				.properties("app.edge.enabled=true")
+				.run(args);
+	}
+}
@@ -0,0 +1,46 @@
+package com.vaibhavgala.url_shortner.edge;
+
+import com.vaibhavgala.url_shortner.service.events.EventProducer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+@RestController
+@ConditionalOnProperty(name = "app.edge.enabled", havingValue = "true")
+public class EdgeRedirectController {
+
+    @Autowired
+    private EdgeSnapshotStore store;
+
+    @Autowired
+    private EventProducer eventProducer;
+
+    // Codes the snapshot doesn't know yet (created since the last delta) are sent here, if set
+    @Value("${app.edge.origin-url:}")
+    private String originUrl;
+
+    @GetMapping("/{shortCode}")
+    public ResponseEntity<Object> redirect(@PathVariable String shortCode, HttpServletRequest request) {
+        String originalUrl = store.find(shortCode);
+        if (originalUrl != null) {
+            eventProducer.sendClickEvent(
+                    shortCode,
+                    request.getRemoteAddr(),
+                    request.getHeader("User-Agent"),
+                    request.getHeader("Referer"));
+            return ResponseEntity.status(302).location(URI.create(originalUrl)).build();
+        }
+        if (!originUrl.isBlank()) {
+            // The origin records the click if it finds the code
+            return ResponseEntity.status(302).location(URI.create(originUrl + "/" + shortCode)).build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
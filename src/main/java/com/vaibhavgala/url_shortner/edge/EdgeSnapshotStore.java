@@ -0,0 +1,108 @@
+package com.vaibhavgala.url_shortner.edge;
+
+import com.vaibhavgala.url_shortner.service.snapshot.MappedSnapshot;
+import com.vaibhavgala.url_shortner.service.snapshot.SnapshotFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The mappings an edge node serves: the newest full snapshot, memory-mapped, plus a small
+ * on-heap overlay built from the deltas exported after it. Both are replaced together by
+ * publishing a new View, so a lookup sees either the old or the new state, never a mix.
+ * OUT_OF_SERVICE (readiness group) until the first snapshot is loaded.
+ */
+@Component("snapshot")
+@ConditionalOnProperty(name = "app.edge.enabled", havingValue = "true")
+public class EdgeSnapshotStore implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(EdgeSnapshotStore.class);
+
+    private record View(MappedSnapshot snapshot, Map<String, MappedSnapshot.Entry> overlay, long lastDeltaMillis) {
+    }
+
+    private final Path directory;
+    private volatile View view;
+
+    public EdgeSnapshotStore(@Value("${app.snapshot.dir:${java.io.tmpdir}/snaplink-snapshots}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * @return the URL, or null for an unknown or expired code
+     */
+    public String find(String shortCode) {
+        View current = view;
+        if (current == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        MappedSnapshot.Entry recent = current.overlay().get(shortCode);
+        if (recent != null) {
+            return recent.isLive(now) ? recent.url() : null;
+        }
+        return current.snapshot().find(shortCode, now);
+    }
+
+    @Scheduled(fixedDelayString = "${app.edge.poll-interval-ms:5000}")
+    public void refresh() {
+        try {
+            List<SnapshotFiles.SnapshotFile> fulls = SnapshotFiles.list(directory, SnapshotFiles.FULL);
+            if (fulls.isEmpty()) {
+                return;
+            }
+            View current = view;
+            SnapshotFiles.SnapshotFile newest = fulls.getLast();
+            boolean newSnapshot = current == null || newest.exportedAtMillis() > current.snapshot().exportedAtMillis();
+
+            MappedSnapshot snapshot = newSnapshot ? MappedSnapshot.open(newest.path()) : current.snapshot();
+            Map<String, MappedSnapshot.Entry> overlay = newSnapshot ? new HashMap<>() : new HashMap<>(current.overlay());
+            long lastDelta = newSnapshot ? snapshot.exportedAtMillis() : current.lastDeltaMillis();
+
+            int applied = 0;
+            for (SnapshotFiles.SnapshotFile delta : SnapshotFiles.list(directory, SnapshotFiles.DELTA)) {
+                if (delta.exportedAtMillis() > lastDelta) {
+                    MappedSnapshot.open(delta.path()).forEach(overlay::put);
+                    lastDelta = delta.exportedAtMillis();
+                    applied++;
+                }
+            }
+            if (!newSnapshot && applied == 0) {
+                return;
+            }
+
+            view = new View(snapshot, Map.copyOf(overlay), lastDelta);
+            if (newSnapshot) {
+                log.info("📸 Serving snapshot {} ({} mappings, {} from deltas)", newest.path().getFileName(),
+                        snapshot.count(), overlay.size());
+            }
+        } catch (Exception e) {
+            // Keep serving the current view; the next poll tries again
+            log.error("❌ Snapshot refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Health health() {
+        View current = view;
+        if (current == null) {
+            return Health.outOfService().withDetail("snapshot", "waiting for " + directory).build();
+        }
+        return Health.up()
+                .withDetail("snapshot", current.snapshot().path().getFileName().toString())
+                .withDetail("mappings", current.snapshot().count())
+                .withDetail("overlay", current.overlay().size())
+                .withDetail("ageMillis", System.currentTimeMillis() - current.lastDeltaMillis())
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.vaibhavgala.url_shortner.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized HyperLogLog of visitor IPs for one short code and one hour/day bucket.
+ */
+@Entity
+@Table(name = "unique_visitor_sketch", uniqueConstraints = @UniqueConstraint(
+        name = "uk_unique_visitor_sketch_bucket",
+        columnNames = {"short_code", "granularity", "bucket_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueVisitorSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "short_code", nullable = false)
+    private String shortCode;
+
+    // "H" = hourly bucket, "D" = daily bucket
+    @Column(name = "granularity", nullable = false, length = 1)
+    private String granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "registers", nullable = false)
+    private byte[] registers;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public void setShortCode(String shortCode) {
+        this.shortCode = shortCode;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
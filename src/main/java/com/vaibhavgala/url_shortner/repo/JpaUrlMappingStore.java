@@ -0,0 +1,104 @@
+package com.vaibhavgala.url_shortner.repo;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Component
+@ConditionalOnProperty(name = "app.features.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaUrlMappingStore implements UrlMappingStore {
+
+    private static final String LIVE = "SELECT short_code, original_url, expires_at, created_at FROM url_mapping "
+            + "WHERE (expires_at IS NULL OR expires_at > ?)";
+    // COLLATE "C": byte order, whatever the database collation
+    private static final String BY_CODE = " ORDER BY short_code COLLATE \"C\"";
+
+    @Autowired
+    private UrlMappingRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<UrlMapping> findByShortCode(String shortCode) {
+        return repository.findByShortCode(shortCode);
+    }
+
+    @Override
+    public List<UrlMapping> findByShortCodeIn(Collection<String> shortCodes) {
+        return repository.findByShortCodeIn(shortCodes);
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return repository.existsByShortCode(shortCode);
+    }
+
+    @Override
+    public Optional<UrlMapping> findByOriginalUrl(String originalUrl) {
+        return repository.findByOriginalUrl(originalUrl);
+    }
+
+    @Override
+    public UrlMapping save(UrlMapping mapping) {
+        return repository.save(mapping);
+    }
+
+    @Override
+    public void incrementClickCountBy(String shortCode, int count) {
+        repository.incrementClickCountBy(shortCode, count);
+    }
+
+    @Override
+    public long count() {
+        return repository.count();
+    }
+
+    @Override
+    public long countByCustom(boolean custom) {
+        return repository.countByCustom(custom);
+    }
+
+    @Override
+    public Stream<UrlMapping> streamLive(LocalDateTime createdSince, int fetchSize) {
+        return streamLive(jdbcTemplate, createdSince, fetchSize);
+    }
+
+    /**
+     * Postgres only uses a cursor (instead of reading the whole result) outside auto-commit
+     * and with a fetch size
+     */
+    public static Stream<UrlMapping> streamLive(JdbcTemplate jdbc, LocalDateTime createdSince, int fetchSize) {
+        String sql = createdSince != null ? LIVE + " AND created_at >= ?" + BY_CODE : LIVE + BY_CODE;
+        return jdbc.queryForStream(connection -> {
+            connection.setAutoCommit(false);
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, LocalDateTime.now());
+            if (createdSince != null) {
+                statement.setObject(2, createdSince);
+            }
+            return statement;
+        }, JpaUrlMappingStore::mapLiveRow);
+    }
+
+    private static UrlMapping mapLiveRow(ResultSet rs, int rowNum) throws SQLException {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setShortCode(rs.getString("short_code"));
+        mapping.setOriginalUrl(rs.getString("original_url"));
+        mapping.setExpiresAt(rs.getObject("expires_at", LocalDateTime.class));
+        mapping.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        return mapping;
+    }
+}
@@ -0,0 +1,32 @@
+package com.vaibhavgala.url_shortner.repo;
+
+import com.vaibhavgala.url_shortner.models.UniqueVisitorSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UniqueVisitorSketchRepository extends JpaRepository<UniqueVisitorSketch, Long> {
+
+    // Creates an empty bucket row so concurrent writers can lock it instead of racing on insert
+    @Modifying
+    @Query(value = "INSERT INTO unique_visitor_sketch (short_code, granularity, bucket_start, registers, updated_at) " +
+            "VALUES (:shortCode, :granularity, :bucketStart, :registers, now()) " +
+            "ON CONFLICT (short_code, granularity, bucket_start) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(String shortCode, String granularity, LocalDateTime bucketStart, byte[] registers);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<UniqueVisitorSketch> findByShortCodeAndGranularityAndBucketStart(
+            String shortCode, String granularity, LocalDateTime bucketStart);
+
+    List<UniqueVisitorSketch> findByShortCodeAndGranularityAndBucketStartIn(
+            String shortCode, String granularity, Collection<LocalDateTime> bucketStarts);
+}
@@ -11,8 +11,10 @@ import java.util.List;
 @Repository
 public interface UrlClickAnalyticsRepository extends JpaRepository<UrlClickAnalytics, Long> {
 
-    // Find clicks by short code
-    List<UrlClickAnalytics> findByShortCodeOrderByTimestampDesc(String shortCode);
+    // Click count and most recent clicks (full exports stream through ClickExportService)
+    long countByShortCode(String shortCode);
+
+    List<UrlClickAnalytics> findTop10ByShortCodeOrderByTimestampDesc(String shortCode);
 
     // Count clicks by country
     @Query("SELECT country, COUNT(*) FROM UrlClickAnalytics WHERE shortCode = ?1 GROUP BY country")
@@ -0,0 +1,42 @@
+package com.vaibhavgala.url_shortner.repo;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Url mapping storage used by the services: the JPA repository on the primary datasource,
+ * or hash-sharded across several Postgres instances (app.features.sharding.enabled=true)
+ */
+public interface UrlMappingStore {
+
+    Optional<UrlMapping> findByShortCode(String shortCode);
+
+    /**
+     * Mappings that exist among shortCodes, in no particular order
+     */
+    List<UrlMapping> findByShortCodeIn(Collection<String> shortCodes);
+
+    boolean existsByShortCode(String shortCode);
+
+    Optional<UrlMapping> findByOriginalUrl(String originalUrl);
+
+    UrlMapping save(UrlMapping mapping);
+
+    void incrementClickCountBy(String shortCode, int count);
+
+    long count();
+
+    long countByCustom(boolean custom);
+
+    /**
+     * Mappings not expired now and created at or after createdSince (null = all), ordered by
+     * short code bytes and read through a server-side cursor of fetchSize rows. The stream holds
+     * a connection until it is closed.
+     */
+    Stream<UrlMapping> streamLive(LocalDateTime createdSince, int fetchSize);
+}
@@ -0,0 +1,56 @@
+package com.vaibhavgala.url_shortner.repo.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring over shard names. Each shard owns virtualNodes points on the ring, so
+ * adding or removing a shard moves about 1/N of the keys, taken evenly from every other shard.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A shard ring needs at least one member");
+        }
+        this.members = List.copyOf(members);
+        for (String member : this.members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    public String shardFor(String key) {
+        Map.Entry<Long, String> point = ring.ceilingEntry(hash(key));
+        return (point != null ? point : ring.firstEntry()).getValue();
+    }
+
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes followed by the Murmur3 fmix64 finalizer
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,165 @@
+package com.vaibhavgala.url_shortner.repo.shard;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves url mappings to the shards a new ring assigns them to, while the store keeps serving.
+ * <p>
+ * Each source shard is scanned by id in batches. The rows of a batch that belong elsewhere are
+ * locked on the source, inserted on their target shard, and deleted from the source in the same
+ * source transaction. Readers look on the source shard first and fall back to the target, and
+ * click-count updates do the same, so a row is visible and countable throughout the move.
+ * A batch that fails is retried from the same point; re-copying a row overwrites the target's
+ * copy with the source's count, since clicks keep going to the source until its delete commits.
+ */
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    public record Status(boolean running, List<String> current, List<String> target, long scanned, long moved,
+                         String lastError) {
+    }
+
+    private final ShardSet shards;
+    private final ShardRouter router;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final long settleMillis;
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private volatile Thread worker;
+    private volatile String lastError;
+
+    /**
+     * @param settleMillis wait before moving rows, so every node has picked up the new ring and
+     *                     sends new mappings to their target shard
+     */
+    public ShardRebalancer(ShardSet shards, ShardRouter router, int batchSize, long pauseMillis, long settleMillis) {
+        this.shards = shards;
+        this.router = router;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.settleMillis = settleMillis;
+    }
+
+    public synchronized Status start(List<String> targetMembers) {
+        if (worker != null && worker.isAlive()) {
+            throw new IllegalStateException("A rebalance is already running on this node");
+        }
+        router.beginRebalance(targetMembers);
+        launch();
+        return status();
+    }
+
+    /**
+     * Picks a rebalance back up after a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeIfInterrupted() {
+        if (router.state().rebalancing() && (worker == null || !worker.isAlive())) {
+            log.warn("🔀 Resuming interrupted rebalance to {}", router.state().target().members());
+            launch();
+        }
+    }
+
+    // Other nodes learn about a started or completed rebalance from the meta shard
+    @Scheduled(fixedDelayString = "${app.sharding.ring-refresh-ms:5000}")
+    public void refreshRing() {
+        router.refresh();
+    }
+
+    public Status status() {
+        ShardRouter.RingState ring = router.state();
+        return new Status(worker != null && worker.isAlive(), ring.current().members(),
+                ring.rebalancing() ? ring.target().members() : null, scanned.get(), moved.get(), lastError);
+    }
+
+    private void launch() {
+        scanned.set(0);
+        moved.set(0);
+        lastError = null;
+        worker = Thread.ofPlatform().name("shard-rebalancer").daemon().start(this::run);
+    }
+
+    /**
+     * Runs the whole move; exposed for tests that drive it synchronously
+     */
+    void run() {
+        try {
+            Thread.sleep(settleMillis);
+            ShardRouter.RingState ring = router.state();
+            for (String source : ring.current().members()) {
+                drain(source, ring.target());
+            }
+            router.completeRebalance();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("❌ Rebalance stopped, restart it or the node to resume: {}", e.getMessage(), e);
+        }
+    }
+
+    private void drain(String source, ConsistentHashRing target) throws InterruptedException {
+        ShardSet.Shard shard = shards.get(source);
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> page = shard.jdbc().queryForList(
+                    "SELECT id, short_code FROM url_mapping WHERE id > ? ORDER BY id LIMIT ?", afterId, batchSize);
+            if (page.isEmpty()) {
+                log.info("🔀 Shard {} drained", source);
+                return;
+            }
+            afterId = ((Number) page.get(page.size() - 1).get("id")).longValue();
+            scanned.addAndGet(page.size());
+
+            List<String> leaving = new ArrayList<>();
+            for (Map<String, Object> row : page) {
+                String shortCode = (String) row.get("short_code");
+                if (!target.shardFor(shortCode).equals(source)) {
+                    leaving.add(shortCode);
+                }
+            }
+            if (!leaving.isEmpty()) {
+                moved.addAndGet(move(shard, leaving, target));
+            }
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+    }
+
+    private int move(ShardSet.Shard source, List<String> shortCodes, ConsistentHashRing target) {
+        Integer count = source.transaction().execute(status -> {
+            // Held until the delete commits, so no click-count update can land on a copied row
+            List<UrlMapping> rows = source.jdbc().query(
+                    "SELECT " + ShardedUrlMappingStore.COLUMNS + " FROM url_mapping WHERE short_code = ANY (?) FOR UPDATE",
+                    ShardedUrlMappingStore.ROW_MAPPER, (Object) shortCodes.toArray(String[]::new));
+
+            Map<String, List<Object[]>> byTarget = new LinkedHashMap<>();
+            for (UrlMapping row : rows) {
+                byTarget.computeIfAbsent(target.shardFor(row.getShortCode()), k -> new ArrayList<>())
+                        .add(ShardedUrlMappingStore.insertArgs(row));
+            }
+            byTarget.forEach((name, args) -> shards.get(name).jdbc()
+                    .batchUpdate(ShardedUrlMappingStore.INSERT
+                            + " ON CONFLICT (short_code) DO UPDATE SET click_count = EXCLUDED.click_count", args));
+
+            source.jdbc().update("DELETE FROM url_mapping WHERE short_code = ANY (?)",
+                    (Object) rows.stream().map(UrlMapping::getShortCode).toArray(String[]::new));
+            return rows.size();
+        });
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,132 @@
+package com.vaibhavgala.url_shortner.repo.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps short codes to shards. Outside a rebalance there is one ring; during one there is the
+ * current ring (where rows are now) and the target ring (where they are moving to). The state
+ * is kept in shard_ring on the meta shard, so every node and a restart agree on it.
+ */
+public class ShardRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    /**
+     * @param target null unless a rebalance is in progress
+     */
+    public record RingState(ConsistentHashRing current, ConsistentHashRing target) {
+        public boolean rebalancing() {
+            return target != null;
+        }
+    }
+
+    private final ShardSet shards;
+    private final int virtualNodes;
+    private volatile RingState state;
+
+    public ShardRouter(ShardSet shards, int virtualNodes) {
+        this.shards = shards;
+        this.virtualNodes = virtualNodes;
+        shards.meta().jdbc().execute("""
+                CREATE TABLE IF NOT EXISTS shard_ring (
+                    id int PRIMARY KEY,
+                    members text NOT NULL,
+                    target_members text
+                )""");
+        // First start: every configured shard is in the ring
+        shards.meta().jdbc().update("INSERT INTO shard_ring (id, members) VALUES (1, ?) ON CONFLICT (id) DO NOTHING",
+                String.join(",", shards.names()));
+        refresh();
+    }
+
+    public RingState state() {
+        return state;
+    }
+
+    /**
+     * Shard the row lives on now (or lived on before a rebalance moved it)
+     */
+    public String currentShard(String shortCode) {
+        return state.current().shardFor(shortCode);
+    }
+
+    /**
+     * Shard new rows go to; differs from currentShard only for keys a rebalance is moving
+     */
+    public String writeShard(String shortCode) {
+        RingState ring = state;
+        return (ring.rebalancing() ? ring.target() : ring.current()).shardFor(shortCode);
+    }
+
+    /**
+     * Every shard that can hold rows right now
+     */
+    public List<String> activeShards() {
+        RingState ring = state;
+        if (!ring.rebalancing()) {
+            return ring.current().members();
+        }
+        return shards.names().stream()
+                .filter(name -> ring.current().members().contains(name) || ring.target().members().contains(name))
+                .toList();
+    }
+
+    public synchronized void beginRebalance(List<String> targetMembers) {
+        refresh();
+        if (state.rebalancing()) {
+            throw new IllegalStateException("A rebalance to " + state.target().members() + " is already in progress");
+        }
+        for (String member : targetMembers) {
+            if (!shards.contains(member)) {
+                throw new IllegalArgumentException("Unknown shard: " + member);
+            }
+        }
+        shards.meta().jdbc().update("UPDATE shard_ring SET target_members = ? WHERE id = 1", String.join(",", targetMembers));
+        refresh();
+        log.info("🔀 Rebalancing url mappings from {} to {}", state.current().members(), targetMembers);
+    }
+
+    public synchronized void completeRebalance() {
+        // Another node resuming the same rebalance may have completed it already
+        shards.meta().jdbc().update(
+                "UPDATE shard_ring SET members = target_members, target_members = NULL WHERE id = 1 AND target_members IS NOT NULL");
+        refresh();
+        log.info("✅ Rebalance complete, shard ring is now {}", state.current().members());
+    }
+
+    /**
+     * Re-reads the ring from the meta shard, e.g. after another node started a rebalance
+     */
+    public synchronized void refresh() {
+        RingState stored = shards.meta().jdbc().queryForObject(
+                "SELECT members, target_members FROM shard_ring WHERE id = 1",
+                (rs, rowNum) -> new RingState(ring(rs.getString("members")), ring(rs.getString("target_members"))));
+        RingState previous = state;
+        if (previous == null || !sameMembers(previous, stored)) {
+            state = stored;
+        }
+    }
+
+    private ConsistentHashRing ring(String members) {
+        if (members == null) {
+            return null;
+        }
+        List<String> names = Arrays.stream(members.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        for (String name : names) {
+            if (!shards.contains(name)) {
+                throw new IllegalStateException("shard_ring lists " + name + ", which has no configured datasource");
+            }
+        }
+        return new ConsistentHashRing(names, virtualNodes);
+    }
+
+    private static boolean sameMembers(RingState a, RingState b) {
+        return a.current().members().equals(b.current().members())
+                && (a.target() == null ? b.target() == null
+                : b.target() != null && a.target().members().equals(b.target().members()));
+    }
+}
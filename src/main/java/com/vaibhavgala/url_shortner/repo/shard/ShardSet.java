@@ -0,0 +1,79 @@
+package com.vaibhavgala.url_shortner.repo.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configured url_mapping shards by name. The first one also holds the ring state.
+ * Not exposed as DataSource beans, so the primary datasource keeps its auto-configuration.
+ */
+public class ShardSet implements AutoCloseable {
+
+    public record Shard(String name, DataSource dataSource, JdbcTemplate jdbc, TransactionTemplate transaction) {
+    }
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+
+    public ShardSet(Map<String, DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard datasource is required");
+        }
+        dataSources.forEach((name, dataSource) -> shards.put(name, new Shard(name, dataSource,
+                new JdbcTemplate(dataSource), new TransactionTemplate(new DataSourceTransactionManager(dataSource)))));
+    }
+
+    public Shard get(String name) {
+        Shard shard = shards.get(name);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown shard: " + name);
+        }
+        return shard;
+    }
+
+    public boolean contains(String name) {
+        return shards.containsKey(name);
+    }
+
+    public List<String> names() {
+        return List.copyOf(shards.keySet());
+    }
+
+    public Shard meta() {
+        return shards.values().iterator().next();
+    }
+
+    /**
+     * Creates url_mapping on every shard; the columns match the JPA entity
+     */
+    public void createSchema() {
+        for (Shard shard : shards.values()) {
+            shard.jdbc().execute("""
+                    CREATE TABLE IF NOT EXISTS url_mapping (
+                        id bigserial PRIMARY KEY,
+                        original_url varchar(255),
+                        short_code varchar(255) NOT NULL UNIQUE,
+                        is_custom boolean,
+                        expires_at timestamp(6),
+                        click_count bigint,
+                        created_at timestamp(6)
+                    )""");
+            // findByOriginalUrl fans out to every shard
+            shard.jdbc().execute("CREATE INDEX IF NOT EXISTS url_mapping_original_url_idx ON url_mapping (original_url)");
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Shard shard : shards.values()) {
+            if (shard.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.vaibhavgala.url_shortner.repo.shard;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+import com.vaibhavgala.url_shortner.repo.JpaUrlMappingStore;
+import com.vaibhavgala.url_shortner.repo.UrlMappingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * url_mapping spread over several Postgres instances by a consistent hash of the short code.
+ * Lookups by short code go to one shard; lookups by original URL and counts fan out to all of
+ * them in parallel. While a rebalance is moving a key, it is read from its current shard first
+ * and from its target shard if it is no longer there: a move commits the target's copy before
+ * the source's delete, so a key missing from its current shard is already on its target.
+ */
+public class ShardedUrlMappingStore implements UrlMappingStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedUrlMappingStore.class);
+
+    static final String COLUMNS = "id, original_url, short_code, is_custom, expires_at, click_count, created_at";
+
+    static final String INSERT = "INSERT INTO url_mapping (original_url, short_code, is_custom, expires_at, click_count, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    static final RowMapper<UrlMapping> ROW_MAPPER = ShardedUrlMappingStore::mapRow;
+
+    private final ShardSet shards;
+    private final ShardRouter router;
+    private final ExecutorService fanOutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedUrlMappingStore(ShardSet shards, ShardRouter router) {
+        this.shards = shards;
+        this.router = router;
+    }
+
+    @Override
+    public Optional<UrlMapping> findByShortCode(String shortCode) {
+        String currentShard = router.currentShard(shortCode);
+        Optional<UrlMapping> found = findOn(currentShard, shortCode);
+        String writeShard = router.writeShard(shortCode);
+        if (found.isEmpty() && !writeShard.equals(currentShard)) {
+            // Moved already (or created since the rebalance started)
+            found = findOn(writeShard, shortCode);
+        }
+        return found;
+    }
+
+    /**
+     * One ANY(...) query per shard holding some of the codes, run in parallel. Codes a rebalance
+     * is moving are then looked up on their target shard if their current shard no longer has them.
+     */
+    @Override
+    public List<UrlMapping> findByShortCodeIn(Collection<String> shortCodes) {
+        Map<String, List<String>> byCurrentShard = new LinkedHashMap<>();
+        for (String shortCode : shortCodes) {
+            byCurrentShard.computeIfAbsent(router.currentShard(shortCode), k -> new ArrayList<>()).add(shortCode);
+        }
+        Map<String, UrlMapping> found = new LinkedHashMap<>();
+        findAllOn(byCurrentShard).forEach(row -> found.putIfAbsent(row.getShortCode(), row));
+
+        Map<String, List<String>> byWriteShard = new LinkedHashMap<>();
+        for (String shortCode : shortCodes) {
+            String writeShard = router.writeShard(shortCode);
+            if (!found.containsKey(shortCode) && !writeShard.equals(router.currentShard(shortCode))) {
+                byWriteShard.computeIfAbsent(writeShard, k -> new ArrayList<>()).add(shortCode);
+            }
+        }
+        if (!byWriteShard.isEmpty()) {
+            findAllOn(byWriteShard).forEach(row -> found.putIfAbsent(row.getShortCode(), row));
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    List<UrlMapping> findAllOn(Map<String, List<String>> codesByShard) {
+        List<Callable<List<UrlMapping>>> queries = new ArrayList<>();
+        codesByShard.forEach((shard, codes) -> {
+            JdbcTemplate jdbc = shards.get(shard).jdbc();
+            queries.add(() -> jdbc.query("SELECT " + COLUMNS + " FROM url_mapping WHERE short_code = ANY (?)",
+                    ROW_MAPPER, (Object) codes.toArray(String[]::new)));
+        });
+        return inParallel(queries).stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return findByShortCode(shortCode).isPresent();
+    }
+
+    /**
+     * Not keyed by short code, so every shard is asked; the newest mapping wins
+     */
+    @Override
+    public Optional<UrlMapping> findByOriginalUrl(String originalUrl) {
+        return fanOut(jdbc -> jdbc.query("SELECT " + COLUMNS + " FROM url_mapping WHERE original_url = ?",
+                ROW_MAPPER, originalUrl))
+                .stream()
+                .flatMap(List::stream)
+                .max(Comparator.comparing(UrlMapping::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    /**
+     * Inserts a new mapping on the shard that owns its short code (mappings are never updated in place)
+     */
+    @Override
+    public UrlMapping save(UrlMapping mapping) {
+        if (mapping.getId() != null) {
+            throw new UnsupportedOperationException("Sharded url mappings are insert-only");
+        }
+        mapping.prePersist();
+        JdbcTemplate jdbc = shards.get(router.writeShard(mapping.getShortCode())).jdbc();
+        mapping.setId(jdbc.queryForObject(INSERT + " RETURNING id", Long.class, insertArgs(mapping)));
+        return mapping;
+    }
+
+    /**
+     * The count lives on a different database from the click rows, so inside a transaction the
+     * update runs after it commits; a rolled-back window does not count its clicks twice on retry
+     */
+    @Override
+    public void incrementClickCountBy(String shortCode, int count) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyIncrement(shortCode, count);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    applyIncrement(shortCode, count);
+                } catch (Exception e) {
+                    log.error("❌ Click count +{} for {} lost: {}", count, shortCode, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void applyIncrement(String shortCode, int count) {
+        // Same order as reads. A move holds the source row locked until its delete commits, so
+        // an update waiting on it finds the row gone and the count goes to the target's copy.
+        String currentShard = router.currentShard(shortCode);
+        if (updateCount(currentShard, shortCode, count) > 0) {
+            return;
+        }
+        String writeShard = router.writeShard(shortCode);
+        if (!writeShard.equals(currentShard)) {
+            updateCount(writeShard, shortCode, count);
+        }
+    }
+
+    int updateCount(String shard, String shortCode, int count) {
+        return shards.get(shard).jdbc().update(
+                "UPDATE url_mapping SET click_count = click_count + ? WHERE short_code = ?", count, shortCode);
+    }
+
+    @Override
+    public long count() {
+        return sum("SELECT count(*) FROM url_mapping");
+    }
+
+    @Override
+    public long countByCustom(boolean custom) {
+        return sum("SELECT count(*) FROM url_mapping WHERE is_custom = " + custom);
+    }
+
+    /**
+     * Merges one ordered cursor per shard. A key being moved by a rebalance can be on two
+     * shards at once; it is returned once.
+     */
+    @Override
+    public Stream<UrlMapping> streamLive(LocalDateTime createdSince, int fetchSize) {
+        List<Stream<UrlMapping>> perShard = new ArrayList<>();
+        PriorityQueue<ShardCursor> heads = new PriorityQueue<>(Comparator.comparing(ShardCursor::shortCode));
+        try {
+            for (String shard : router.activeShards()) {
+                Stream<UrlMapping> rows = JpaUrlMappingStore.streamLive(shards.get(shard).jdbc(), createdSince, fetchSize);
+                perShard.add(rows);
+                ShardCursor cursor = new ShardCursor(rows.iterator());
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        } catch (RuntimeException e) {
+            perShard.forEach(Stream::close);
+            throw e;
+        }
+
+        Iterator<UrlMapping> merged = new Iterator<>() {
+            private String lastCode;
+
+            @Override
+            public boolean hasNext() {
+                while (!heads.isEmpty() && heads.peek().shortCode().equals(lastCode)) {
+                    pollAndAdvance();
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public UrlMapping next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                UrlMapping next = pollAndAdvance();
+                lastCode = next.getShortCode();
+                return next;
+            }
+
+            private UrlMapping pollAndAdvance() {
+                ShardCursor cursor = heads.poll();
+                UrlMapping head = cursor.head;
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+                return head;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> perShard.forEach(Stream::close));
+    }
+
+    private static final class ShardCursor {
+        private final Iterator<UrlMapping> rows;
+        private UrlMapping head;
+
+        ShardCursor(Iterator<UrlMapping> rows) {
+            this.rows = rows;
+        }
+
+        boolean advance() {
+            head = rows.hasNext() ? rows.next() : null;
+            return head != null;
+        }
+
+        String shortCode() {
+            return head.getShortCode();
+        }
+    }
+
+    private long sum(String sql) {
+        return fanOut(jdbc -> jdbc.queryForObject(sql, Long.class)).stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    Optional<UrlMapping> findOn(String shard, String shortCode) {
+        return shards.get(shard).jdbc()
+                .query("SELECT " + COLUMNS + " FROM url_mapping WHERE short_code = ?", ROW_MAPPER, shortCode)
+                .stream()
+                .findFirst();
+    }
+
+    private <T> List<T> fanOut(Function<JdbcTemplate, T> query) {
+        List<Callable<T>> queries = new ArrayList<>();
+        for (String shard : router.activeShards()) {
+            JdbcTemplate jdbc = shards.get(shard).jdbc();
+            queries.add(() -> query.apply(jdbc));
+        }
+        return inParallel(queries);
+    }
+
+    private <T> List<T> inParallel(List<Callable<T>> queries) {
+        List<Future<T>> futures = new ArrayList<>(queries.size());
+        for (Callable<T> query : queries) {
+            futures.add(fanOutExecutor.submit(query));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during shard fan-out", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shard fan-out failed", e.getCause());
+        }
+        return results;
+    }
+
+    static Object[] insertArgs(UrlMapping mapping) {
+        return new Object[]{mapping.getOriginalUrl(), mapping.getShortCode(), mapping.getCustom(), mapping.getExpiresAt(),
+                mapping.getClickCount() != null ? mapping.getClickCount() : 0L, mapping.getCreatedAt()};
+    }
+
+    private static UrlMapping mapRow(ResultSet rs, int rowNum) throws SQLException {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setId(rs.getLong("id"));
+        mapping.setOriginalUrl(rs.getString("original_url"));
+        mapping.setShortCode(rs.getString("short_code"));
+        mapping.setCustom(rs.getObject("is_custom", Boolean.class));
+        mapping.setExpiresAt(rs.getObject("expires_at", LocalDateTime.class));
+        mapping.setClickCount(rs.getLong("click_count"));
+        mapping.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        return mapping;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.close();
+    }
+}
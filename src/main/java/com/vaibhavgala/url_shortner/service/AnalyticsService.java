@@ -1,80 +1,37 @@
 package com.vaibhavgala.url_shortner.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.events.ClickEvent;
+import com.vaibhavgala.url_shortner.service.events.ClickEventCodec;
 import org.springframework.stereotype.Service;
-import ua_parser.Client;
-import ua_parser.Parser;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.time.ZoneId;
 
 @Service
 public class AnalyticsService {
 
-    private final ObjectMapper objectMapper;
-    private final Parser uaParser;
-    private final GeoIPService geoIpService;
-
-    public AnalyticsService(GeoIPService geoIpService) {
-        this.objectMapper = new ObjectMapper();
-        this.uaParser = new Parser();
-        this.geoIpService = geoIpService;
-    }
-
-    // Build entity from JSON, no DB save here
-    public UrlClickAnalytics buildAnalyticsEntity(String clickEventJson) {
-        try {
-            Map<String, Object> event = objectMapper.readValue(clickEventJson, Map.class);
-
-            String shortCode = (String) event.get("shortCode");
-            String ipAddress = (String) event.get("ipAddress");
-            String userAgent = (String) event.get("userAgent");
-            String referer = (String) event.get("referer");
-            String timestampStr = (String) event.get("timestamp");
-
-//            Client client = uaParser.parse(userAgent);
-
-//            String country = geoIpService.getCountry(ipAddress);
-//            String city = geoIpService.getCity(ipAddress);
-
-            UrlClickAnalytics analytics = new UrlClickAnalytics();
-            analytics.setShortCode(shortCode);
-            analytics.setTimestamp(LocalDateTime.parse(timestampStr));
-            analytics.setIpAddress(ipAddress);
-            analytics.setUserAgent(userAgent);
-            analytics.setReferer(referer);
-
-//            analytics.setDeviceType(getDeviceType(client));
-//            analytics.setBrowser(client.userAgent.family);
-//            analytics.setBrowserVersion(client.userAgent.major);
-//            analytics.setOs(client.os.family);
-//            analytics.setOsVersion(client.os.major);
-
-//            analytics.setCountry(country != null && !country.equals("Unknown") ? country : null);
-//            analytics.setCity(city != null && !city.equals("Unknown") ? city : null);
-            analytics.setCreatedAt(LocalDateTime.now());
-
-            return analytics;
-
-        } catch (Exception e) {
-            System.err.println("❌ Analytics building error: " + e.getMessage());
+    // Build entity from a decoded click event, no DB save here.
+    // Device/browser/geo columns are filled in afterwards by ClickEnrichmentService.
+    public UrlClickAnalytics buildAnalyticsEntity(ClickEvent event) {
+        if (event == null || event.shortCode() == null) {
             return null;
         }
-    }
 
-    private String getDeviceType(Client client) {
-        if (client.device == null || client.device.family == null) {
-            return "Desktop";
-        }
+        UrlClickAnalytics analytics = new UrlClickAnalytics();
+        analytics.setShortCode(event.shortCode());
+        analytics.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestampMillis()), ZoneId.systemDefault()));
+        analytics.setIpAddress(event.ipAddress());
+        analytics.setUserAgent(event.userAgent());
+        analytics.setReferer(event.referer());
+        analytics.setCreatedAt(LocalDateTime.now());
 
-        String device = client.device.family.toLowerCase();
-        if (device.contains("mobile") || device.contains("phone")) {
-            return "Mobile";
-        } else if (device.contains("tablet") || device.contains("ipad")) {
-            return "Tablet";
-        } else {
-            return "Desktop";
-        }
+        return analytics;
+    }
+
+    // Decode a raw click-events payload (binary or legacy JSON) and build the entity
+    public UrlClickAnalytics buildAnalyticsEntity(byte[] payload) {
+        return buildAnalyticsEntity(ClickEventCodec.decode(payload));
     }
 }
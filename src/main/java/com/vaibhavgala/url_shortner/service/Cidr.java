@@ -0,0 +1,33 @@
+package com.vaibhavgala.url_shortner.service;
+
+import java.net.InetAddress;
+
+/**
+ * An IPv4 or IPv6 network such as 10.0.0.0/8; a bare address is a single-host network
+ */
+record Cidr(byte[] network, int prefixLength) {
+
+    static Cidr parse(String cidr) {
+        String[] parts = cidr.trim().split("/");
+        byte[] network = InetAddress.ofLiteral(parts[0]).getAddress();
+        return new Cidr(network, parts.length > 1 ? Integer.parseInt(parts[1]) : network.length * 8);
+    }
+
+    boolean contains(byte[] address) {
+        if (address.length != network.length) {
+            return false;
+        }
+        int fullBytes = prefixLength / 8;
+        for (int i = 0; i < fullBytes; i++) {
+            if (address[i] != network[i]) {
+                return false;
+            }
+        }
+        int remainingBits = prefixLength % 8;
+        if (remainingBits == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+        return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+    }
+}
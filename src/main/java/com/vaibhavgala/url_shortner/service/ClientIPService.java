@@ -1,31 +1,92 @@
 package com.vaibhavgala.url_shortner.service;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * The client address for per-client limits. Forwarding headers are only believed when the
+ * connection comes from a configured proxy (app.client-ip.trusted-proxies); otherwise any client
+ * could pick a fresh identity per request.
+ */
 @Service
 public class ClientIPService {
 
-    // Add this method for testing different IPs
+    private final List<Cidr> trustedProxies;
+
+    public ClientIPService(@Value("${app.client-ip.trusted-proxies:}") List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .filter(proxy -> !proxy.isBlank())
+                .map(Cidr::parse)
+                .toList();
+    }
+
+    /**
+     * The peer address, or behind trusted proxies the nearest X-Forwarded-For hop that isn't one
+     * of them (the leftmost hops are whatever the client chose to send)
+     */
     public String getClientIP(HttpServletRequest request) {
-        // For testing: Check headers first (you can comment these out after testing)
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+
         String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
+        if (xForwardedFor != null && !xForwardedFor.isBlank()) {
+            String[] hops = xForwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!isTrustedProxy(hop)) {
+                    return parse(hop) != null ? hop : remoteAddr;
+                }
+            }
         }
 
         String xRealIP = request.getHeader("X-Real-IP");
-        if (xRealIP != null && !xRealIP.isEmpty() && !"unknown".equalsIgnoreCase(xRealIP)) {
-            return xRealIP;
+        if (xRealIP != null && parse(xRealIP.trim()) != null) {
+            return xRealIP.trim();
         }
+        return remoteAddr;
+    }
 
-        String xClientIP = request.getHeader("X-Client-IP");
-        if (xClientIP != null && !xClientIP.isEmpty() && !"unknown".equalsIgnoreCase(xClientIP)) {
-            return xClientIP;
+    /**
+     * Rate-limit identity: the full IPv4 address, or the /64 of an IPv6 one, since a single
+     * subscriber is usually handed a whole /64 to rotate through
+     */
+    public String getClientKey(HttpServletRequest request) {
+        String ip = getClientIP(request);
+        InetAddress address = parse(ip);
+        if (address instanceof Inet6Address) {
+            return HexFormat.of().formatHex(Arrays.copyOf(address.getAddress(), 8)) + "::/64";
         }
+        return ip;
+    }
 
-        // Fallback to actual IP (your current method)
-        return request.getRemoteAddr();
+    private boolean isTrustedProxy(String ip) {
+        InetAddress address = parse(ip);
+        if (address == null) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        for (Cidr proxy : trustedProxies) {
+            if (proxy.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
     }
 
+    private static InetAddress parse(String ip) {
+        try {
+            return ip == null || ip.isEmpty() ? null : InetAddress.ofLiteral(ip);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Moves records from the dead-letter topic back onto the main click topic once the cause
+ * (bad deploy, schema drift, DB outage) has been fixed. Offsets on the dead-letter topic are
+ * committed only after the re-sends are acknowledged, so a crashed replay can be re-run.
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadLetterReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayService.class);
+    private static final String REPLAY_GROUP_ID = "click-dlt-replayer";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    @Autowired
+    private ConsumerFactory<String, byte[]> consumerFactory;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    /**
+     * @return number of records re-published to the main topic
+     */
+    public synchronized int replay(int maxRecords) {
+        Properties overrides = new Properties();
+        overrides.put("max.poll.records", String.valueOf(Math.min(maxRecords, 500)));
+
+        int replayed = 0;
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(REPLAY_GROUP_ID, null, null, overrides)) {
+            consumer.subscribe(List.of(ClickTopics.DLT));
+
+            while (replayed < maxRecords) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    // Same key, so the click lands on the same partition as its neighbours
+                    kafkaTemplate.send(ClickTopics.MAIN, record.key(), record.value()).join();
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                consumer.commitSync(offsets);
+            }
+        }
+
+        log.info("♻️ Replayed {} dead-lettered click events to {}", replayed, ClickTopics.MAIN);
+        return replayed;
+    }
+}
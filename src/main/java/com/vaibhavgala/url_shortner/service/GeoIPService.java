@@ -1,105 +1,226 @@
 package com.vaibhavgala.url_shortner.service;
 
+import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.model.CityResponse;
-import org.springframework.stereotype.Service;
+import com.vaibhavgala.url_shortner.service.cache.BoundedLruCache;
+import com.vaibhavgala.url_shortner.service.startup.BackgroundInit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class GeoIPService {
-    private final DatabaseReader geoReader;
 
-    public GeoIPService() throws IOException {
-        DatabaseReader reader = null;
-        String envPath = System.getenv("GEOIP_DB_PATH");
+    private static final Logger log = LoggerFactory.getLogger(GeoIPService.class);
 
-        if (envPath != null && !envPath.isBlank()) {
-            File database = new File(envPath);
-            if (database.exists()) {
-                System.out.println("✅ GeoLite2-City.mmdb loaded from GEOIP_DB_PATH");
-                reader = new DatabaseReader.Builder(database).build();
-            }
-        }
+    public record GeoLocation(String country, String city) {
+        public static final GeoLocation UNKNOWN = new GeoLocation(null, null);
+    }
 
-        if (reader == null) {
-            ClassPathResource resource = new ClassPathResource("GeoLite2-City.mmdb");
-            if (resource.exists()) {
-                System.out.println("✅ GeoLite2-City.mmdb loaded from classpath");
-                reader = new DatabaseReader.Builder(resource.getInputStream()).build();
-            }
-        }
+    // Loopback, RFC 1918, CGNAT, link-local, unspecified, IPv6 ULA and link-local
+    private static final List<Cidr> NON_ROUTABLE = List.of(
+            Cidr.parse("0.0.0.0/8"),
+            Cidr.parse("10.0.0.0/8"),
+            Cidr.parse("100.64.0.0/10"),
+            Cidr.parse("127.0.0.0/8"),
+            Cidr.parse("169.254.0.0/16"),
+            Cidr.parse("172.16.0.0/12"),
+            Cidr.parse("192.168.0.0/16"),
+            Cidr.parse("::/128"),
+            Cidr.parse("::1/128"),
+            Cidr.parse("fc00::/7"),
+            Cidr.parse("fe80::/10"));
+
+    private final AtomicReference<DatabaseReader> geoReader = new AtomicReference<>();
+    private final BoundedLruCache<String, GeoLocation> prefixCache;
+    // Resolved (and extracted from the classpath if needed) off the startup thread
+    private final CompletableFuture<String> databasePath;
+    private volatile long loadedModifiedTime;
+
+    public GeoIPService(@Value("${app.geoip.cache-size:50000}") int cacheSize,
+                        @Value("${app.startup.background-init:true}") boolean backgroundInit) {
+        this.prefixCache = new BoundedLruCache<>(cacheSize);
+        this.databasePath = BackgroundInit.start("geoip", backgroundInit, this::initialize);
+    }
 
-        if (reader == null) {
-            System.err.println("❌ GeoLite2-City.mmdb NOT FOUND (set GEOIP_DB_PATH or include resource)");
+    private String initialize() {
+        try {
+            String path = resolveDatabasePath();
+            if (path == null) {
+                log.error("❌ GeoLite2-City.mmdb NOT FOUND (set GEOIP_DB_PATH or include resource)");
+                return null;
+            }
+            load(path);
+            return path;
+        } catch (IOException e) {
+            log.error("❌ GeoIP database could not be loaded: {}", e.getMessage());
+            return null;
         }
+    }
 
-        this.geoReader = reader;
+    public boolean isReady() {
+        return BackgroundInit.isReady(databasePath);
     }
 
-    public String getCountry(String ip) {
-        System.out.println("🔍 Looking up country for IP: " + ip);
+    /**
+     * Country and city from a single database lookup. Results are cached per /24 (IPv4)
+     * or /48 (IPv6) prefix, the finest granularity GeoLite city data is published at.
+     */
+    public GeoLocation lookup(String ip) {
+        DatabaseReader reader = geoReader.get();
+        if (reader == null && !databasePath.isDone()) {
+            // Still loading: wait rather than record the click without a location
+            databasePath.join();
+            reader = geoReader.get();
+        }
+        if (reader == null) {
+            return GeoLocation.UNKNOWN;
+        }
 
-        if (geoReader == null) {
-            System.err.println("❌ GeoReader is null - database not loaded");
-            return "Unknown";
+        InetAddress address = parseLiteral(ip);
+        if (address == null || isPrivateIP(address)) {
+            return GeoLocation.UNKNOWN;
         }
 
-        if (isPrivateIP(ip)) {
-            System.out.println("⚠️ Private IP detected: " + ip + " - returning Unknown");
-            return "Unknown";
+        String prefix = prefixKey(address);
+        GeoLocation cached = prefixCache.get(prefix);
+        if (cached != null) {
+            return cached;
         }
 
+        GeoLocation location;
         try {
-            InetAddress inetAddress = InetAddress.getByName(ip);
-            CityResponse response = geoReader.city(inetAddress);
-            String country = response.getCountry().getName();
-
-            System.out.println("🌍 Country lookup result for " + ip + ": " + country);
-            return (country != null && !country.isEmpty()) ? country : "Unknown";
+            Optional<CityResponse> response = reader.tryCity(address);
+            location = response
+                    .map(r -> new GeoLocation(blankToNull(r.getCountry().getName()), blankToNull(r.getCity().getName())))
+                    .orElse(GeoLocation.UNKNOWN);
         } catch (Exception e) {
-            System.err.println("❌ GeoIP Country lookup failed for " + ip + ": " + e.getMessage());
-            e.printStackTrace();
-            return "Unknown";
+            log.debug("GeoIP lookup failed for {}: {}", ip, e.getMessage());
+            return GeoLocation.UNKNOWN;
+        }
+
+        prefixCache.put(prefix, location);
+        return location;
+    }
+
+    /**
+     * Picks up a replaced database file without a restart. Replace it with an atomic
+     * rename (write next to it, then mv) so a half-written file is never mapped.
+     */
+    @Scheduled(fixedDelayString = "${app.geoip.reload-check-ms:60000}")
+    public void reloadIfChanged() {
+        String path = databasePath.getNow(null);
+        if (path == null) {
+            return;
+        }
+        File file = new File(path);
+        if (file.exists() && file.lastModified() != loadedModifiedTime) {
+            try {
+                load(path);
+            } catch (IOException e) {
+                log.error("GeoIP reload from {} failed, keeping current database: {}", path, e.getMessage());
+            }
         }
     }
 
-    public String getCity(String ip) {
-        System.out.println("🔍 Looking up city for IP: " + ip);
+    private synchronized void load(String databasePath) throws IOException {
+        File file = new File(databasePath);
+        long modifiedTime = file.lastModified();
+        DatabaseReader fresh = new DatabaseReader.Builder(file)
+                .fileMode(Reader.FileMode.MEMORY_MAPPED)
+                .build();
+
+        geoReader.set(fresh);
+        loadedModifiedTime = modifiedTime;
+        prefixCache.clear();
+        log.info("✅ GeoIP database memory-mapped from {} ({})", databasePath, fresh.getMetadata().getDatabaseType());
+
+        // The previous reader is deliberately not closed: lookups still holding it would fail with
+        // ClosedDatabaseException. Its mapping is released once the last of them drops it and it
+        // is garbage collected.
+    }
 
-        if (geoReader == null) {
-            System.err.println("❌ GeoReader is null - database not loaded");
-            return "Unknown";
+    /**
+     * GEOIP_DB_PATH if set, otherwise the classpath copy extracted to a temp file so it can
+     * be memory-mapped instead of read onto the heap
+     */
+    private static String resolveDatabasePath() throws IOException {
+        String envPath = System.getenv("GEOIP_DB_PATH");
+        if (envPath != null && !envPath.isBlank() && new File(envPath).exists()) {
+            return envPath;
         }
 
-        if (isPrivateIP(ip)) {
-            System.out.println("⚠️ Private IP detected: " + ip + " - returning Unknown");
-            return "Unknown";
+        ClassPathResource resource = new ClassPathResource("GeoLite2-City.mmdb");
+        if (!resource.exists()) {
+            return null;
+        }
+        Path extracted = Files.createTempFile("GeoLite2-City", ".mmdb");
+        extracted.toFile().deleteOnExit();
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, extracted, StandardCopyOption.REPLACE_EXISTING);
         }
+        return extracted.toString();
+    }
 
-        try {
-            InetAddress inetAddress = InetAddress.getByName(ip);
-            CityResponse response = geoReader.city(inetAddress);
-            String city = response.getCity().getName();
+    private static boolean isPrivateIP(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        for (Cidr cidr : NON_ROUTABLE) {
+            if (cidr.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            System.out.println("🏙️ City lookup result for " + ip + ": " + city);
-            return (city != null && !city.isEmpty()) ? city : "Unknown";
-        } catch (Exception e) {
-            System.err.println("❌ GeoIP City lookup failed for " + ip + ": " + e.getMessage());
-            e.printStackTrace();
-            return "Unknown";
+    /**
+     * Only IP literals are accepted, so a hostname in X-Forwarded-For (even one spelt in hex
+     * digits, like bad.cafe) never triggers a DNS lookup
+     */
+    private static InetAddress parseLiteral(String ip) {
+        if (ip == null || ip.isBlank()) {
+            return null;
+        }
+        try {
+            return InetAddress.ofLiteral(ip.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
-    private boolean isPrivateIP(String ip) {
-        return ip.startsWith("127.") ||
-                ip.startsWith("192.168.") ||
-                ip.startsWith("10.") ||
-                ip.startsWith("172.16.") ||
-                ip.equals("localhost") ||
-                ip.equals("0:0:0:0:0:0:0:1"); // IPv6 localhost
+    private static String prefixKey(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        int prefixBytes = address instanceof Inet4Address ? 3 : 6;
+        return HexFormat.of().formatHex(bytes, 0, prefixBytes);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        DatabaseReader reader = geoReader.getAndSet(null);
+        if (reader != null) {
+            reader.close();
+        }
     }
 }
@@ -1,148 +1,401 @@
 package com.vaibhavgala.url_shortner.service;
 
 import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
-import com.vaibhavgala.url_shortner.repo.UrlMappingRepository;
-import com.vaibhavgala.url_shortner.repo.UrlClickAnalyticsRepository;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import com.vaibhavgala.url_shortner.service.ingest.AdaptiveBatchController;
+import com.vaibhavgala.url_shortner.service.ingest.ClickBatchWriter;
+import com.vaibhavgala.url_shortner.service.ingest.ClickEnrichmentService;
+import com.vaibhavgala.url_shortner.service.ingest.ClickWindow;
+import com.vaibhavgala.url_shortner.service.ingest.ClickWindowAggregator;
+import com.vaibhavgala.url_shortner.service.jfr.ClickWindowFlushEvent;
+import com.vaibhavgala.url_shortner.service.live.ClickDelta;
+import com.vaibhavgala.url_shortner.service.live.ClickDeltaPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
+/**
+ * Click ingestion as a three-stage pipeline per listener thread:
+ * <ol>
+ *   <li>parse + enrich each polled batch on a virtual thread (CPU, GeoIP)</li>
+ *   <li>fold parsed batches, in poll order, into the thread's window on the listener thread</li>
+ *   <li>write full windows on the shared write pool (DB), sized to its connection budget</li>
+ * </ol>
+ * So the next batch is parsed while the previous window is being written. Offsets are
+ * committed on the listener thread, strictly in window order, once a window's write is
+ * done; at most max-in-flight batches/windows are pending per thread before it blocks.
+ * If a stage fails, nothing after the last commit is committed: the pipeline is emptied and
+ * the thread's partitions are rewound to their committed offsets, so those clicks are polled
+ * and processed again.
+ */
 @Service
 @ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
-public class KafkaClickConsumer {
+public class KafkaClickConsumer implements ConsumerAwareRebalanceListener {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaClickConsumer.class);
+    public static final String LISTENER_ID = "click-events-listener";
+
     private final AtomicLong processedEvents = new AtomicLong(0);
     private final AtomicLong totalBatches = new AtomicLong(0);
+    private final AtomicLong totalWindows = new AtomicLong(0);
+
+    // One pipeline per listener thread; each thread owns its partitions
+    private final ThreadLocal<Pipeline> pipelines = ThreadLocal.withInitial(Pipeline::new);
+
+    private final ExecutorService parseExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService writeExecutor;
+    private final int maxInFlight;
+    private final long failureBackoffMillis;
 
     @Autowired
     private AnalyticsService analyticsService;
 
     @Autowired
-    private UrlClickAnalyticsRepository analyticsRepository;
+    private ClickEnrichmentService enrichmentService;
+
+    @Autowired
+    private ClickBatchWriter clickBatchWriter;
+
+    @Autowired
+    private AdaptiveBatchController batchController;
+
+    @Autowired
+    private UniqueVisitorService uniqueVisitorService;
+
+    @Autowired
+    private ClickDeltaPublisher clickDeltaPublisher;
+
+    @Autowired
+    @Qualifier("clickRetryRecoverer")
+    private DeadLetterPublishingRecoverer retryRecoverer;
 
     @Autowired
-    private UrlMappingRepository urlRepository;
+    @Qualifier("clickDeadLetterRecoverer")
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    private final Counter undecodableEvents;
+    private final Counter retriedEvents;
+    private final Counter rewinds;
+
+    public KafkaClickConsumer(MeterRegistry meterRegistry,
+                              @Value("${app.consumer.pipeline.write-threads:4}") int writeThreads,
+                              @Value("${app.consumer.pipeline.max-in-flight:4}") int maxInFlight,
+                              @Value("${app.consumer.pipeline.failure-backoff-ms:1000}") long failureBackoffMillis) {
+        this.writeExecutor = Executors.newFixedThreadPool(writeThreads,
+                Thread.ofPlatform().name("click-writer-", 0).daemon().factory());
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.failureBackoffMillis = failureBackoffMillis;
+        this.undecodableEvents = Counter.builder("clicks.quarantined").tag("reason", "undecodable")
+                .description("Click events sent straight to the dead-letter topic")
+                .register(meterRegistry);
+        this.retriedEvents = Counter.builder("clicks.quarantined").tag("reason", "write_failed")
+                .description("Click events sent to the retry topic after their row failed to write")
+                .register(meterRegistry);
+        this.rewinds = Counter.builder("clicks.pipeline.rewinds")
+                .description("Times a failed stage sent the click pipeline back to the committed offsets")
+                .register(meterRegistry);
+    }
 
     /**
-     * TRUE BATCH PROCESSING - processes entire batches at once
-     * Uses the new group ID to start fresh
+     * Hands each polled batch to the parse stage and moves everything that has finished
+     * one stage further; returns as soon as the pipeline has room for the next poll.
      */
     @KafkaListener(
-            topics = "click-events",
-            groupId = "click-tracking-group-v4",
+            id = LISTENER_ID,
+            topics = ClickTopics.MAIN,
+            groupId = "${spring.kafka.consumer.group-id}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    @Transactional
-    public void processBatchClickEvents(
-            List<String> clickEventsBatch,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
-            @Header(KafkaHeaders.OFFSET) List<Long> offsets,
-            Acknowledgment acknowledgment
-    ) {
-        long batchStartTime = System.currentTimeMillis();
+    public void processBatchClickEvents(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
         long batchNumber = totalBatches.incrementAndGet();
+        Pipeline pipeline = pipelines.get();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            pipeline.resumeAt.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }
 
-        // Get unique partitions for logging
-        Set<Integer> uniquePartitions = new HashSet<>(partitions);
-
-        log.info("🚀 BATCH #{}: Processing {} events from partitions {}",
-                batchNumber, clickEventsBatch.size(), uniquePartitions);
+        // Stage 1: parse + enrich off the listener thread
+        pipeline.parsing.addLast(CompletableFuture.supplyAsync(() -> parse(batchNumber, records), parseExecutor));
 
         try {
-            // Step 1: Parse all events in the batch
-            List<UrlClickAnalytics> validAnalytics = new ArrayList<>();
-            Map<String, Integer> clickCountUpdates = new HashMap<>();
-            int parseErrors = 0;
-
-            for (String eventJson : clickEventsBatch) {
-                try {
-                    UrlClickAnalytics analytics = analyticsService.buildAnalyticsEntity(eventJson);
-
-                    if (analytics != null && analytics.getShortCode() != null) {
-                        validAnalytics.add(analytics);
-
-                        // Aggregate click counts per short code
-                        String shortCode = analytics.getShortCode();
-                        clickCountUpdates.merge(shortCode, 1, Integer::sum);
-                    }
-                } catch (Exception e) {
-                    parseErrors++;
-                    log.debug("Failed to parse event in batch #{}: {} - Error: {}",
-                            batchNumber, eventJson, e.getMessage());
+            advance(pipeline, consumer, false);
+
+            // Backpressure: wait for the oldest stage to finish while too much is in flight
+            while (pipeline.inFlight() >= maxInFlight) {
+                if (!pipeline.writing.isEmpty()) {
+                    pipeline.writing.peekFirst().join();
+                } else {
+                    pipeline.parsing.peekFirst().join();
                 }
+                advance(pipeline, consumer, false);
             }
+        } catch (RuntimeException e) {
+            // Not rethrown: the container would redeliver this batch on top of the rewind
+            rewind(pipeline, consumer, e);
+        }
+    }
 
-            // Step 2: SINGLE batch insert for analytics
-            if (!validAnalytics.isEmpty()) {
-                long insertStart = System.currentTimeMillis();
-                analyticsRepository.saveAll(validAnalytics);
-                long insertTime = System.currentTimeMillis() - insertStart;
+    /**
+     * Published on the consumer thread when no records arrived for the idle interval,
+     * so a quiet partition still gets its last window written and committed
+     */
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        Pipeline pipeline = pipelines.get();
+        if (!pipeline.isIdle()) {
+            try {
+                drain(pipeline, event.getConsumer());
+            } catch (RuntimeException e) {
+                rewind(pipeline, event.getConsumer(), e);
+            }
+        }
+    }
 
-                log.info("✅ BATCH #{}: Saved {} analytics records in {}ms",
-                        batchNumber, validAnalytics.size(), insertTime);
+    /**
+     * Called on the consumer thread before a rebalance takes partitions away: finish
+     * everything in flight and commit it, so no counts move with the partitions
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Pipeline pipeline = pipelines.get();
+        if (!pipeline.isIdle()) {
+            log.info("Partitions {} revoked, draining click pipeline", partitions);
+            try {
+                drain(pipeline, consumer);
+            } catch (RuntimeException e) {
+                // The new owner starts from the committed offsets
+                rewind(pipeline, consumer, e);
             }
+        }
+        pipeline.resumeAt.keySet().removeAll(partitions);
+        batchController.onPartitionsRevoked(partitions);
+    }
 
-            // Step 3: Batch update click counts (one query per short code)
-            if (!clickCountUpdates.isEmpty()) {
-                long updateStart = System.currentTimeMillis();
-                int updateCount = 0;
-
-                for (Map.Entry<String, Integer> entry : clickCountUpdates.entrySet()) {
-                    try {
-                        urlRepository.incrementClickCountBy(entry.getKey(), entry.getValue());
-                        updateCount++;
-                    } catch (Exception e) {
-                        log.warn("BATCH #{}: Failed to update click count for {}: {}",
-                                batchNumber, entry.getKey(), e.getMessage());
-                    }
-                }
+    /**
+     * Moves finished work forward without blocking: parsed batches are folded in poll order,
+     * a due window is sent to the write stage, and finished writes are committed in order
+     */
+    private void advance(Pipeline pipeline, Consumer<?, ?> consumer, boolean forceFlush) {
+        // Stage 2: fold, in order, every batch whose parse has finished
+        while (!pipeline.parsing.isEmpty() && pipeline.parsing.peekFirst().isDone()) {
+            fold(pipeline.aggregator, pipeline.parsing.peekFirst().join());
+            pipeline.parsing.pollFirst();
+        }
 
-                long updateTime = System.currentTimeMillis() - updateStart;
-                log.info("✅ BATCH #{}: Updated {} short codes in {}ms",
-                        batchNumber, updateCount, updateTime);
-            }
+        // Stage 3: hand a due window to the write pool
+        ClickWindowAggregator aggregator = pipeline.aggregator;
+        if (!aggregator.isEmpty() && (forceFlush || aggregator.isDue(System.currentTimeMillis(),
+                batchController.targetWindowMillis(), batchController.targetEvents()))) {
+            long windowNumber = totalWindows.incrementAndGet();
+            ClickWindow window = aggregator.drain();
+            pipeline.writing.addLast(CompletableFuture.supplyAsync(() -> write(windowNumber, window), writeExecutor));
+        }
 
-            // Step 4: Performance metrics
-            long totalProcessingTime = System.currentTimeMillis() - batchStartTime;
-            double eventsPerSecond = clickEventsBatch.size() / (totalProcessingTime / 1000.0);
-            long totalProcessed = processedEvents.addAndGet(validAnalytics.size());
+        // Commit, in window order, every write that is done; a window leaves the queue only
+        // once committed, so a failed write (join throws) is still there for rewind()
+        while (!pipeline.writing.isEmpty() && pipeline.writing.peekFirst().isDone()) {
+            commit(pipeline, pipeline.writing.peekFirst().join(), consumer);
+            pipeline.writing.pollFirst();
+        }
+    }
+
+    /**
+     * Waits for everything in flight, writes the partial window and commits it all
+     */
+    private void drain(Pipeline pipeline, Consumer<?, ?> consumer) {
+        while (!pipeline.parsing.isEmpty()) {
+            fold(pipeline.aggregator, pipeline.parsing.peekFirst().join());
+            pipeline.parsing.pollFirst();
+        }
+        advance(pipeline, consumer, true);
+        while (!pipeline.writing.isEmpty()) {
+            commit(pipeline, pipeline.writing.peekFirst().join(), consumer);
+            pipeline.writing.pollFirst();
+        }
+    }
 
-            log.info("🎯 BATCH #{} COMPLETED: {} events processed in {}ms ({:.1f} events/sec) | Total processed: {}",
-                    batchNumber, clickEventsBatch.size(), totalProcessingTime, eventsPerSecond, totalProcessed);
+    /**
+     * A stage failed (a window neither written nor handed to the retry topic, a dead-letter
+     * send, a commit): drop everything in flight and seek this thread's partitions back to
+     * their committed offsets, so the uncommitted clicks are polled again. Writes still running
+     * are waited for first; rows they store are written again on the replay (at least once).
+     */
+    private void rewind(Pipeline pipeline, Consumer<?, ?> consumer, RuntimeException failure) {
+        log.error("❌ Click pipeline failed, replaying from the last committed offsets", failure);
+        rewinds.increment();
+        pipeline.parsing.forEach(stage -> stage.handle((result, error) -> null).join());
+        pipeline.writing.forEach(stage -> stage.handle((result, error) -> null).join());
+        pipeline.parsing.clear();
+        pipeline.writing.clear();
+        pipeline.aggregator.drain();
 
-            if (parseErrors > 0) {
-                log.warn("⚠️ BATCH #{}: {} parse errors out of {} events ({:.1f}% error rate)",
-                        batchNumber, parseErrors, clickEventsBatch.size(),
-                        (parseErrors * 100.0) / clickEventsBatch.size());
+        Set<TopicPartition> assigned = consumer.assignment();
+        pipeline.resumeAt.forEach((partition, offset) -> {
+            if (assigned.contains(partition)) {
+                consumer.seek(partition, offset);
             }
+        });
+        pipeline.resumeAt.clear();
+
+        // Don't spin on a database or broker that is still down
+        try {
+            Thread.sleep(failureBackoffMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ParsedBatch parse(long batchNumber, List<ConsumerRecord<String, byte[]>> records) {
+        List<UrlClickAnalytics> parsed = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, byte[]>> sources = new ArrayList<>(records.size());
+        int parseErrors = 0;
 
-            // Step 5: Manual acknowledgment (optional - auto-commit is enabled)
-            if (acknowledgment != null) {
-                acknowledgment.acknowledge();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                UrlClickAnalytics analytics = analyticsService.buildAnalyticsEntity(record.value());
+                if (analytics != null && analytics.getShortCode() != null) {
+                    parsed.add(analytics);
+                    sources.add(record);
+                }
+            } catch (Exception e) {
+                parseErrors++;
+                log.debug("Failed to parse event at {}-{}@{} - Error: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                // Undecodable now means undecodable forever - no point retrying. If the
+                // dead-letter send fails, the batch fails and is replayed
+                deadLetterRecoverer.accept(record, e);
+                undecodableEvents.increment();
             }
+        }
+
+        if (parseErrors > 0) {
+            log.warn("⚠️ BATCH #{}: {} parse errors out of {} events ({}% error rate)",
+                    batchNumber, parseErrors, records.size(),
+                    String.format("%.1f", (parseErrors * 100.0) / records.size()));
+        }
+
+        // Enrich (UA + GeoIP); large batches fan out over the enrichment pool
+        enrichmentService.enrich(parsed);
+        return new ParsedBatch(records, parsed, sources);
+    }
+
+    private static void fold(ClickWindowAggregator aggregator, ParsedBatch batch) {
+        for (ConsumerRecord<String, byte[]> record : batch.records()) {
+            aggregator.markConsumed(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }
+        for (int i = 0; i < batch.parsed().size(); i++) {
+            aggregator.add(batch.parsed().get(i), batch.sources().get(i));
+        }
+    }
+
+    /**
+     * Runs on the write pool: one insert batch + one count update per short code, then the
+     * post-commit side effects. Throws only when a row could be neither written nor handed to
+     * the retry topic; the window is then not committed but replayed (see rewind).
+     */
+    private WrittenWindow write(long windowNumber, ClickWindow window) {
+        ClickWindowFlushEvent event = new ClickWindowFlushEvent();
+        event.begin();
+        long flushStart = System.currentTimeMillis();
 
+        List<UrlClickAnalytics> written = window.rows();
+        Collection<ClickDelta> deltas = window.deltas().values();
+        try {
+            clickBatchWriter.write(window);
         } catch (Exception e) {
-            log.error("❌ CRITICAL ERROR in BATCH #{} with {} events: {}",
-                    batchNumber, clickEventsBatch.size(), e.getMessage(), e);
+            log.warn("⚠️ WINDOW #{}: batch write of {} events failed ({}), isolating bad records",
+                    windowNumber, window.rows().size(), e.getMessage());
+            written = writeIsolated(window);
+            deltas = ClickDelta.fromBatch(written).values();
+            event.isolated = true;
+        }
+        long writeMillis = System.currentTimeMillis() - flushStart;
+
+        // Post-commit side effects - unique visitor sketches and live deltas
+        if (!written.isEmpty()) {
+            try {
+                uniqueVisitorService.recordVisits(written);
+            } catch (Exception e) {
+                log.warn("WINDOW #{}: Failed to update unique visitor sketches: {}",
+                        windowNumber, e.getMessage());
+            }
+            try {
+                clickDeltaPublisher.publishDeltas(deltas);
+            } catch (Exception e) {
+                log.warn("WINDOW #{}: Failed to publish live deltas: {}", windowNumber, e.getMessage());
+            }
+        }
+
+        long totalProcessed = processedEvents.addAndGet(written.size());
+        log.info("🎯 WINDOW #{} COMPLETED: {} events, {} short codes written in {}ms | Total processed: {}",
+                windowNumber, written.size(), deltas.size(), writeMillis, totalProcessed);
+
+        event.window = windowNumber;
+        event.events = written.size();
+        event.shortCodes = deltas.size();
+        event.commit();
+        return new WrittenWindow(window, writeMillis);
+    }
+
+    /**
+     * Back on the listener thread: commit the window's offsets; failed records are already
+     * durable on the retry topic, so committing past them loses nothing
+     */
+    private void commit(Pipeline pipeline, WrittenWindow written, Consumer<?, ?> consumer) {
+        ClickWindow window = written.window();
+        batchController.onFlush(window, written.writeMillis(), consumer);
+        if (!window.offsets().isEmpty()) {
+            consumer.commitSync(window.offsets());
+            window.offsets().forEach((partition, offset) -> pipeline.resumeAt.put(partition, offset.offset()));
+            batchController.onCommitted(window);
+        }
+    }
 
-            // Don't rethrow - let Kafka auto-commit and move on
-            // This prevents infinite retry loops
-            log.warn("⚠️ BATCH #{}: Skipping problematic batch to prevent retry storm", batchNumber);
+    /**
+     * Writes the window row by row; rows that still fail are handed to the retry topic (a
+     * failed send throws, failing the window)
+     *
+     * @return the rows that were written
+     */
+    private List<UrlClickAnalytics> writeIsolated(ClickWindow window) {
+        Map<Integer, Exception> failures = clickBatchWriter.writeIsolated(window);
+        List<UrlClickAnalytics> written = new ArrayList<>(window.rows().size() - failures.size());
+        for (int i = 0; i < window.rows().size(); i++) {
+            Exception failure = failures.get(i);
+            if (failure == null) {
+                written.add(window.rows().get(i));
+            } else {
+                retryRecoverer.accept(window.sources().get(i), failure);
+                retriedEvents.increment();
+            }
         }
+        if (!failures.isEmpty()) {
+            log.warn("⚠️ {} of {} events moved to {}", failures.size(), window.rows().size(), ClickTopics.RETRY);
+        }
+        return written;
     }
 
     /**
@@ -151,9 +404,45 @@ public class KafkaClickConsumer {
     public Map<String, Object> getConsumerStats() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalBatchesProcessed", totalBatches.get());
+        stats.put("totalWindowsFlushed", totalWindows.get());
         stats.put("totalEventsProcessed", processedEvents.get());
+        stats.put("targetWindowEvents", batchController.targetEvents());
+        stats.put("targetWindowMillis", batchController.targetWindowMillis());
         stats.put("averageEventsPerBatch",
                 totalBatches.get() > 0 ? (double) processedEvents.get() / totalBatches.get() : 0);
         return stats;
     }
-}
\ No newline at end of file
+
+    @PreDestroy
+    public void shutdown() {
+        parseExecutor.shutdown();
+        writeExecutor.shutdown();
+    }
+
+    private record ParsedBatch(List<ConsumerRecord<String, byte[]>> records,
+                               List<UrlClickAnalytics> parsed,
+                               List<ConsumerRecord<String, byte[]>> sources) {
+    }
+
+    private record WrittenWindow(ClickWindow window, long writeMillis) {
+    }
+
+    /**
+     * Per-thread pipeline state; only touched by its listener thread
+     */
+    private static final class Pipeline {
+        private final ClickWindowAggregator aggregator = new ClickWindowAggregator();
+        private final Deque<CompletableFuture<ParsedBatch>> parsing = new ArrayDeque<>();
+        private final Deque<CompletableFuture<WrittenWindow>> writing = new ArrayDeque<>();
+        // Per partition: the offset to seek back to on failure (last committed, or the first polled)
+        private final Map<TopicPartition, Long> resumeAt = new HashMap<>();
+
+        int inFlight() {
+            return parsing.size() + writing.size();
+        }
+
+        boolean isIdle() {
+            return parsing.isEmpty() && writing.isEmpty() && aggregator.isEmpty();
+        }
+    }
+}
@@ -1,30 +1,125 @@
 package com.vaibhavgala.url_shortner.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.vaibhavgala.url_shortner.service.events.ClickEvent;
+import com.vaibhavgala.url_shortner.service.events.ClickEventCodec;
+import com.vaibhavgala.url_shortner.service.events.ClickSpool;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
 import com.vaibhavgala.url_shortner.service.events.EventProducer;
+import com.vaibhavgala.url_shortner.service.jfr.ClickSendEvent;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import java.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
 public class KafkaClickProducer implements EventProducer {
 
-    private static final String TOPIC = "click-events";
+    private static final Logger log = LoggerFactory.getLogger(KafkaClickProducer.class);
+    private static final String TOPIC = ClickTopics.MAIN;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
 
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private ClickSpool spool;
+
+    @Value("${app.spool.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    @Value("${app.spool.replay-timeout-ms:10000}")
+    private long replayTimeoutMillis;
+
+    // After a failed replay only one record is sent per pass, as a probe
+    private volatile boolean lastReplayFailed;
 
     public void sendClickEvent(String shortCode, String ipAddress, String userAgent, String referer) {
-        // Create JSON event
-        String clickEvent = String.format(
-                "{\"shortCode\":\"%s\",\"ipAddress\":\"%s\",\"userAgent\":\"%s\",\"referer\":\"%s\",\"timestamp\":\"%s\"}",
-                shortCode, ipAddress, userAgent, referer, LocalDateTime.now()
-        );
-
-        kafkaTemplate.send(TOPIC, clickEvent);
-        System.out.println("🚀 KAFKA SENT: Click event for " + shortCode);
+        ClickSendEvent event = new ClickSendEvent();
+        event.begin();
+        event.shortCode = shortCode;
+
+        // Compact binary event (see ClickEventCodec for the layout)
+        byte[] clickEvent = ClickEventCodec.encode(ClickEvent.now(shortCode, ipAddress, userAgent, referer));
+
+        // While anything is spooled new events queue behind it rather than racing the replay.
+        // Not a click-order guarantee: a send already buffered when Kafka goes away fails only
+        // after delivery.timeout.ms and is spooled then, behind events that came after it.
+        if (!spool.isEmpty()) {
+            spool.append(shortCode, clickEvent);
+            event.path = "spool";
+            event.commit();
+            return;
+        }
+
+        event.path = "kafka";
+        try {
+            // Keyed by short code: one link's clicks stay on one partition (and one consumer thread)
+            kafkaTemplate.send(TOPIC, shortCode, clickEvent).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    spoolFailed(shortCode, clickEvent, ex);
+                }
+            });
+        } catch (Exception e) {
+            // Metadata unavailable or buffer full for longer than max.block.ms
+            spoolFailed(shortCode, clickEvent, e);
+            event.path = "spool";
+        }
+        event.commit();
+    }
+
+    private void spoolFailed(String shortCode, byte[] clickEvent, Throwable cause) {
+        if (spool.isEmpty()) {
+            log.warn("📦 Kafka unavailable ({}), spooling click events locally", cause.getMessage());
+        }
+        if (!spool.append(shortCode, clickEvent)) {
+            log.error("❌ Click spool full, dropped click event for {}", shortCode);
+        }
+    }
+
+    /**
+     * Drains the spool to Kafka oldest first; a batch is acknowledged only once every send in
+     * it has succeeded, so a failure mid-batch re-sends it later (at least once)
+     */
+    @Scheduled(fixedDelayString = "${app.spool.replay-interval-ms:1000}")
+    public void replaySpool() {
+        while (!spool.isEmpty()) {
+            ClickSpool.Batch batch = spool.peek(lastReplayFailed ? 1 : replayBatchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(batch.events().size());
+            try {
+                for (ClickSpool.SpooledEvent event : batch.events()) {
+                    sends.add(kafkaTemplate.send(TOPIC, event.key(), event.value()));
+                }
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                        .get(replayTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                if (!lastReplayFailed) {
+                    log.warn("Kafka still unavailable, {} click events remain spooled: {}",
+                            spool.pendingRecords(), e.getMessage());
+                }
+                lastReplayFailed = true;
+                return;
+            }
+
+            spool.acknowledge(batch);
+            if (lastReplayFailed) {
+                log.info("✅ Kafka reachable again, replaying {} spooled click events", spool.pendingRecords());
+                lastReplayFailed = false;
+            }
+        }
     }
 }
@@ -0,0 +1,101 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import com.vaibhavgala.url_shortner.service.ingest.ClickBatchWriter;
+import com.vaibhavgala.url_shortner.service.ingest.ClickEnrichmentService;
+import com.vaibhavgala.url_shortner.service.live.ClickDeltaPublisher;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.converter.ConversionException;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Re-processes clicks whose window write failed. Each record is written on its own;
+ * if it keeps failing, the container's error handler backs off and finally hands it to
+ * the dead-letter topic (see KafkaConfig.retryListenerContainerFactory).
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaClickRetryConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaClickRetryConsumer.class);
+
+    // Minimum time on the retry topic before the first retry, so transient DB blips can clear
+    @Value("${app.consumer.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private ClickEnrichmentService enrichmentService;
+
+    @Autowired
+    private ClickBatchWriter clickBatchWriter;
+
+    @Autowired
+    private UniqueVisitorService uniqueVisitorService;
+
+    @Autowired
+    private ClickDeltaPublisher clickDeltaPublisher;
+
+    @KafkaListener(
+            topics = ClickTopics.RETRY,
+            groupId = "click-tracking-retry",
+            containerFactory = "retryListenerContainerFactory",
+            properties = "max.poll.records=10"
+    )
+    public void processRetry(ConsumerRecord<String, byte[]> record) throws InterruptedException {
+        long wait = sentAt(record) + retryDelayMillis - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+
+        // ConversionException is not retryable (see DefaultErrorHandler): an undecodable click
+        // goes straight to the dead-letter topic instead of sitting through the backoff
+        UrlClickAnalytics analytics;
+        try {
+            analytics = analyticsService.buildAnalyticsEntity(record.value());
+        } catch (IllegalArgumentException e) {
+            throw new ConversionException("Undecodable click on " + record.topic() + "-" + record.partition()
+                    + "@" + record.offset() + ": " + e.getMessage(), e);
+        }
+        if (analytics == null) {
+            throw new ConversionException("Click without short code on " + record.topic() + "-" + record.partition()
+                    + "@" + record.offset(), null);
+        }
+        enrichmentService.enrich(analytics);
+        clickBatchWriter.writeSingle(analytics);
+
+        List<UrlClickAnalytics> written = List.of(analytics);
+        try {
+            uniqueVisitorService.recordVisits(written);
+        } catch (Exception e) {
+            log.warn("Retried click for {}: failed to update unique visitor sketches: {}",
+                    analytics.getShortCode(), e.getMessage());
+        }
+        clickDeltaPublisher.publish(written);
+        log.info("♻️ Retried click for {} written ({}-{}@{})",
+                analytics.getShortCode(), record.topic(), record.partition(), record.offset());
+    }
+
+    // The record's own timestamp can be the original click's; the retry recoverer stamps the send time
+    private static long sentAt(ConsumerRecord<String, byte[]> record) {
+        Header sentAt = record.headers().lastHeader(ClickTopics.RETRY_SENT_AT_HEADER);
+        if (sentAt != null && sentAt.value() != null && sentAt.value().length == Long.BYTES) {
+            return ByteBuffer.wrap(sentAt.value()).getLong();
+        }
+        return record.timestamp();
+    }
+}
@@ -0,0 +1,116 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.service.cache.CacheService;
+import com.vaibhavgala.url_shortner.service.cache.CachedUrl;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Business rules shared by the servlet stack (UrlShortnerService) and the reactive stack:
+ * code generation, alias rules, expiry and what goes into the redirect cache. Free of any
+ * I/O so either stack can call it from its own threading model.
+ */
+public final class ShortLinkRules {
+
+    // SECURE RANDOM CODE GENERATION CONSTANTS
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int CODE_LENGTH = 10;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    public static final int MAX_RETRIES = 5;
+
+    // Cache configuration
+    public static final String CACHE_PREFIX = "url:";
+    public static final Duration CACHE_TTL = Duration.ofHours(24);
+
+    // 3-20 chars, alphanumeric + hyphens/underscores
+    private static final Pattern ALIAS_PATTERN = Pattern.compile("^[a-zA-Z0-9-_]{3,20}$");
+
+    // Reserved aliases that can't be used
+    private static final Set<String> RESERVED_ALIASES = Set.of(
+            "api", "admin", "www", "analytics", "dashboard", "login", "signup", "help",
+            "about", "contact", "terms", "privacy", "support", "docs", "blog"
+    );
+
+    private ShortLinkRules() {
+    }
+
+    /**
+     * Generating cryptographically secure random short code
+     * 10-character Base62 string = 62^10 = 839 quintillion combinations
+     */
+    public static String generateRandomCode() {
+        StringBuilder code = new StringBuilder(CODE_LENGTH);
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int randomIndex = RANDOM.nextInt(ALPHABET.length());
+            code.append(ALPHABET.charAt(randomIndex));
+        }
+        return code.toString();
+    }
+
+    /**
+     * Validates custom alias format
+     */
+    public static boolean isValidAlias(String alias) {
+        if (alias == null || alias.trim().isEmpty()) {
+            return false;
+        }
+
+        alias = alias.trim().toLowerCase();
+
+        // Check format
+        if (!ALIAS_PATTERN.matcher(alias).matches()) {
+            return false;
+        }
+
+        // Check if reserved
+        return !RESERVED_ALIASES.contains(alias);
+    }
+
+    public static IllegalArgumentException invalidAlias() {
+        return new IllegalArgumentException("Invalid custom alias. Use 3-20 characters (letters, numbers, hyphens, underscores only)");
+    }
+
+    public static IllegalArgumentException aliasTaken(String alias) {
+        return new IllegalArgumentException("Alias '" + alias + "' is already used for a different URL");
+    }
+
+    public static RuntimeException codeSpaceExhausted() {
+        return new RuntimeException("Failed to generate unique short code after " + MAX_RETRIES + " attempts. Consider increasing code length.");
+    }
+
+    public static boolean isExpired(LocalDateTime expiresAt) {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+
+    /**
+     * Same default as UrlMapping.prePersist: links without an expiry live for a day
+     */
+    public static LocalDateTime effectiveExpiry(LocalDateTime expiresAt, LocalDateTime createdAt) {
+        return expiresAt != null ? expiresAt : createdAt.plusDays(1);
+    }
+
+    /**
+     * Cache value (URL plus expiry and recompute time for early refresh, or the bare URL when
+     * early refresh is off) and its TTL: a jittered CACHE_TTL, cut short by the link's expiry
+     */
+    public static CacheService.Entry cacheEntry(String originalUrl, LocalDateTime expiresAt, long recomputeMicros,
+                                                double ttlJitter, boolean earlyRefresh) {
+        double jitter = ttlJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        Duration ttl = Duration.ofMillis((long) (CACHE_TTL.toMillis() * (1 + jitter)));
+        if (expiresAt != null) {
+            // Never cached past the link's own expiry
+            Duration remaining = Duration.between(LocalDateTime.now(), expiresAt);
+            ttl = remaining.compareTo(ttl) < 0 ? remaining : ttl;
+        }
+        if (!earlyRefresh) {
+            return new CacheService.Entry(originalUrl, ttl);
+        }
+        long expiresAtMillis = System.currentTimeMillis() + ttl.toMillis();
+        return new CacheService.Entry(new CachedUrl(originalUrl, expiresAtMillis, recomputeMicros).encode(), ttl);
+    }
+}
@@ -2,62 +2,67 @@ package com.vaibhavgala.url_shortner.service;
 
 import com.vaibhavgala.url_shortner.config.GeoIPConfig;
 import com.vaibhavgala.url_shortner.models.UrlMapping;
-import com.vaibhavgala.url_shortner.repo.UrlMappingRepository;
+import com.vaibhavgala.url_shortner.repo.UrlMappingStore;
+import com.vaibhavgala.url_shortner.service.cache.CacheService;
+import com.vaibhavgala.url_shortner.service.cache.CachedUrl;
+import com.vaibhavgala.url_shortner.service.jfr.CacheLookupEvent;
+import com.vaibhavgala.url_shortner.service.jfr.DbLookupEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
-import java.time.Duration;
+import jakarta.annotation.PreDestroy;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 public class UrlShortnerService {
 
+    private static final Logger log = LoggerFactory.getLogger(UrlShortnerService.class);
+
     @Autowired
-    private UrlMappingRepository repository;
+    private UrlMappingStore repository;
 
     @Autowired
-    private com.vaibhavgala.url_shortner.service.cache.CacheService cacheService;
+    private CacheService cacheService;
 
-    // SECURE RANDOM CODE GENERATION CONSTANTS
-    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final int CODE_LENGTH = 10;
-    private static final SecureRandom RANDOM = new SecureRandom();
-    private static final int MAX_RETRIES = 5;
+    // Entries are cached for ShortLinkRules.CACHE_TTL +/- this fraction, so entries warmed together don't expire together
+    @Value("${app.cache.ttl-jitter:0.1}")
+    private double ttlJitter;
 
-    // Cache configuration
-    private static final String CACHE_PREFIX = "url:";
-    private static final Duration CACHE_TTL = Duration.ofHours(24);
+    // XFetch aggressiveness: higher refreshes hot entries earlier before they expire
+    @Value("${app.cache.xfetch.beta:1.0}")
+    private double xfetchBeta;
 
-    // Reserved aliases that can't be used
-    private static final Set<String> RESERVED_ALIASES = Set.of(
-            "api", "admin", "www", "analytics", "dashboard", "login", "signup", "help",
-            "about", "contact", "terms", "privacy", "support", "docs", "blog"
-    );
+    // On only once no node from before the early-refresh cache format reads the same cache
+    @Value("${app.cache.xfetch.enabled:false}")
+    private boolean xfetchEnabled;
 
-    /**
-     * Generating cryptographically secure random short code
-     * 10-character Base62 string = 62^10 = 839 quintillion combinations
-     */
-    private String generateRandomCode() {
-        StringBuilder code = new StringBuilder(CODE_LENGTH);
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            int randomIndex = RANDOM.nextInt(ALPHABET.length());
-            code.append(ALPHABET.charAt(randomIndex));
-        }
-        return code.toString();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    String generateRandomCode() {
+        return ShortLinkRules.generateRandomCode();
     }
 
     /**
      * Creates unique short code with collision detection
      * Extremely low collision probability with 62^10 keyspace
      */
-    private String createUniqueShortCode() {
-        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+    String createUniqueShortCode() {
+        for (int attempt = 0; attempt < ShortLinkRules.MAX_RETRIES; attempt++) {
             String code = generateRandomCode();
 
             if (!repository.existsByShortCode(code)) {
@@ -65,33 +70,14 @@ public class UrlShortnerService {
                 return code;
             }
 
-            System.out.println("⚠️ Collision detected: " + code + " (attempt " + (attempt + 1) + "/" + MAX_RETRIES + ")");
+            System.out.println("⚠️ Collision detected: " + code + " (attempt " + (attempt + 1) + "/" + ShortLinkRules.MAX_RETRIES + ")");
         }
 
-        throw new RuntimeException("Failed to generate unique short code after " + MAX_RETRIES + " attempts. Consider increasing code length.");
+        throw ShortLinkRules.codeSpaceExhausted();
     }
 
-    /**
-     * Validates custom alias format
-     */
-    private boolean isValidAlias(String alias) {
-        if (alias == null || alias.trim().isEmpty()) {
-            return false;
-        }
-
-        alias = alias.trim().toLowerCase();
-
-        // Check format: 3-20 chars, alphanumeric + hyphens/underscores
-        if (!alias.matches("^[a-zA-Z0-9-_]{3,20}$")) {
-            return false;
-        }
-
-        // Check if reserved
-        if (RESERVED_ALIASES.contains(alias)) {
-            return false;
-        }
-
-        return true;
+    boolean isValidAlias(String alias) {
+        return ShortLinkRules.isValidAlias(alias);
     }
 
     /**
@@ -110,11 +96,7 @@ public class UrlShortnerService {
         repository.save(mapping);
 
         // Cache the new mapping
-        Duration cacheTTL = expiresAt != null ?
-                Duration.between(LocalDateTime.now(), expiresAt) :
-                Duration.ofHours(24);
-
-        cacheService.set(CACHE_PREFIX + shortCode, originalUrl, cacheTTL);
+        cacheMapping(shortCode, originalUrl, expiresAt, 0);
 
         System.out.println("🎉 Created: " + shortCode + " → " + originalUrl);
         return shortCode;
@@ -124,11 +106,7 @@ public class UrlShortnerService {
      * Re-caches existing mapping and returns shortCode
      */
     private String reuseExistingMapping(UrlMapping existing, String originalUrl) {
-        Duration remainingTTL = existing.getExpiresAt() != null ?
-                Duration.between(LocalDateTime.now(), existing.getExpiresAt()) :
-                Duration.ofHours(24);
-
-        cacheService.set(CACHE_PREFIX + existing.getShortCode(), originalUrl, remainingTTL);
+        cacheMapping(existing.getShortCode(), originalUrl, existing.getExpiresAt(), 0);
 
         return existing.getShortCode();
     }
@@ -146,7 +124,7 @@ public class UrlShortnerService {
 
             // Validate alias format
             if (!isValidAlias(alias)) {
-                throw new IllegalArgumentException("Invalid custom alias. Use 3-20 characters (letters, numbers, hyphens, underscores only)");
+                throw ShortLinkRules.invalidAlias();
             }
 
             // Check if alias already exists
@@ -160,7 +138,7 @@ public class UrlShortnerService {
                     return reuseExistingMapping(existing, originalUrl);
                 } else {
                     // Different URL + Same Alias = Error
-                    throw new IllegalArgumentException("Alias '" + alias + "' is already used for a different URL");
+                    throw ShortLinkRules.aliasTaken(alias);
                 }
             }
 
@@ -195,15 +173,28 @@ public class UrlShortnerService {
      */
     public Optional<String> getOriginalUrl(String shortCode) {
         // Check Cache first (fastest lookup)
-        String cacheKey = CACHE_PREFIX + shortCode;
-        String cachedUrl = cacheService.get(cacheKey);
-        if (cachedUrl != null) {
+        String cacheKey = ShortLinkRules.CACHE_PREFIX + shortCode;
+        CacheLookupEvent cacheLookup = new CacheLookupEvent();
+        cacheLookup.begin();
+        CachedUrl cached = CachedUrl.decode(cacheService.get(cacheKey));
+        cacheLookup.key = cacheKey;
+        cacheLookup.hit = cached != null;
+        cacheLookup.commit();
+        if (cached != null) {
             System.out.println("🚀 Cache HIT for: " + shortCode);
-            return Optional.of(cachedUrl);
+            refreshEarlyIfDue(shortCode, cached);
+            return Optional.of(cached.url());
         }
 
         // Query database if cache miss
+        DbLookupEvent dbLookup = new DbLookupEvent();
+        dbLookup.begin();
+        long started = System.nanoTime();
         Optional<UrlMapping> dbResult = repository.findByShortCode(shortCode);
+        long recomputeMicros = (System.nanoTime() - started) / 1_000;
+        dbLookup.shortCode = shortCode;
+        dbLookup.found = dbResult.isPresent();
+        dbLookup.commit();
 
         if (dbResult.isPresent()) {
             UrlMapping mapping = dbResult.get();
@@ -215,11 +206,7 @@ public class UrlShortnerService {
             }
 
             // Cache for future requests if not expired
-            Duration remainingTTL = mapping.getExpiresAt() != null ?
-                    Duration.between(LocalDateTime.now(), mapping.getExpiresAt()) :
-                    CACHE_TTL;
-
-            cacheService.set(cacheKey, mapping.getOriginalUrl(), remainingTTL);
+            cacheMapping(shortCode, mapping.getOriginalUrl(), mapping.getExpiresAt(), recomputeMicros);
 
             return Optional.of(mapping.getOriginalUrl());
         }
@@ -228,6 +215,88 @@ public class UrlShortnerService {
         return Optional.empty();
     }
 
+    /**
+     * Batch version of getOriginalUrl: one cache MGET for all codes, one IN query for the
+     * misses, and one pipelined write to cache what the query found
+     *
+     * @return original URL per code in the order given, empty for unknown or expired codes
+     */
+    public List<Optional<String>> getOriginalUrls(List<String> shortCodes) {
+        List<String> unique = shortCodes.stream().distinct().toList();
+        List<String> cached = cacheService.multiGet(unique.stream().map(code -> ShortLinkRules.CACHE_PREFIX + code).toList());
+
+        Map<String, String> resolved = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < unique.size(); i++) {
+            CachedUrl entry = CachedUrl.decode(cached.get(i));
+            if (entry != null) {
+                resolved.put(unique.get(i), entry.url());
+                refreshEarlyIfDue(unique.get(i), entry);
+            } else {
+                misses.add(unique.get(i));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, CacheService.Entry> fill = new HashMap<>();
+            long started = System.nanoTime();
+            List<UrlMapping> mappings = repository.findByShortCodeIn(misses);
+            long recomputeMicros = (System.nanoTime() - started) / 1_000;
+            for (UrlMapping mapping : mappings) {
+                if (mapping.isExpired()) {
+                    continue;
+                }
+                resolved.put(mapping.getShortCode(), mapping.getOriginalUrl());
+                fill.put(ShortLinkRules.CACHE_PREFIX + mapping.getShortCode(),
+                        cacheEntry(mapping.getOriginalUrl(), mapping.getExpiresAt(), recomputeMicros));
+            }
+            cacheService.multiSet(fill);
+        }
+
+        log.debug("📚 Resolved {}/{} codes ({} from cache)", resolved.size(), unique.size(),
+                unique.size() - misses.size());
+        return shortCodes.stream().map(code -> Optional.ofNullable(resolved.get(code))).toList();
+    }
+
+    private void cacheMapping(String shortCode, String originalUrl, LocalDateTime expiresAt, long recomputeMicros) {
+        CacheService.Entry entry = cacheEntry(originalUrl, expiresAt, recomputeMicros);
+        cacheService.set(ShortLinkRules.CACHE_PREFIX + shortCode, entry.value(), entry.ttl());
+    }
+
+    private CacheService.Entry cacheEntry(String originalUrl, LocalDateTime expiresAt, long recomputeMicros) {
+        return ShortLinkRules.cacheEntry(originalUrl, expiresAt, recomputeMicros, ttlJitter, xfetchEnabled);
+    }
+
+    /**
+     * Reloads a hot entry from the database in the background before it expires, at most
+     * once at a time per code; the caller keeps the cached value
+     */
+    private void refreshEarlyIfDue(String shortCode, CachedUrl cached) {
+        if (!cached.shouldRefreshEarly(System.currentTimeMillis(), xfetchBeta) || !refreshing.add(shortCode)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                long started = System.nanoTime();
+                Optional<UrlMapping> mapping = repository.findByShortCode(shortCode);
+                long recomputeMicros = (System.nanoTime() - started) / 1_000;
+                if (mapping.isPresent() && !mapping.get().isExpired()) {
+                    cacheMapping(shortCode, mapping.get().getOriginalUrl(), mapping.get().getExpiresAt(), recomputeMicros);
+                    System.out.println("🔄 Refreshed cache early for: " + shortCode);
+                }
+            } catch (Exception e) {
+                System.out.println("⚠️ Early cache refresh failed for " + shortCode + ": " + e.getMessage());
+            } finally {
+                refreshing.remove(shortCode);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.close();
+    }
+
     /**
      * Utility method to check if a short code exists
      */
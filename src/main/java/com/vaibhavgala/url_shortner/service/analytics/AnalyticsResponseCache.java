@@ -0,0 +1,96 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import com.vaibhavgala.url_shortner.service.cache.BoundedLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Short-TTL cache of serialized /api/analytics responses, keyed by short code and query.
+ * Entries for a code are dropped as soon as new clicks for it are written, so the TTL only
+ * bounds staleness of the rolling "last 24h" window, not of the click counts. Both the number
+ * of codes and the queries kept per code are bounded (least recently used go first), so
+ * arbitrary from/to ranges can't grow it; an expired entry stays until it is read or evicted.
+ */
+@Service
+public class AnalyticsResponseCache {
+
+    public record CachedResponse(byte[] body, String etag, long createdAtMillis) {
+    }
+
+    @Value("${app.analytics.response-cache-ttl-ms:5000}")
+    private long ttlMillis;
+
+    // shortCode -> (query key -> response). Invalidation swaps out the whole per-code map,
+    // which also stops an in-flight build from re-caching a response computed before it.
+    private final BoundedLruCache<String, BoundedLruCache<String, CachedResponse>> entries;
+    private final int queriesPerCode;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public AnalyticsResponseCache(MeterRegistry meterRegistry,
+                                  @Value("${app.analytics.response-cache-max-codes:10000}") int maxCodes,
+                                  @Value("${app.analytics.response-cache-queries-per-code:8}") int queriesPerCode) {
+        this.entries = new BoundedLruCache<>(maxCodes);
+        this.queriesPerCode = queriesPerCode;
+        this.hits = Counter.builder("analytics.response.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("analytics.response.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("analytics.response.cache.hit.ratio", this, AnalyticsResponseCache::hitRatio)
+                .description("Share of analytics requests answered without querying the database")
+                .register(meterRegistry);
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Returns the cached response or builds, caches and returns a fresh one
+     */
+    public CachedResponse get(String shortCode, String queryKey, Supplier<byte[]> loader) {
+        BoundedLruCache<String, CachedResponse> perCode =
+                entries.computeIfAbsent(shortCode, k -> new BoundedLruCache<>(queriesPerCode, 1));
+        CachedResponse cached = perCode.get(queryKey);
+        long now = System.currentTimeMillis();
+
+        if (cached != null && now - cached.createdAtMillis() < ttlMillis) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        byte[] body = loader.get();
+        CachedResponse fresh = new CachedResponse(body, etagOf(body), now);
+        if (entries.get(shortCode) == perCode) {
+            perCode.put(queryKey, fresh);
+        }
+        return fresh;
+    }
+
+    public void invalidate(String shortCode) {
+        entries.remove(shortCode);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    // Strong validator: derived from the exact response bytes
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
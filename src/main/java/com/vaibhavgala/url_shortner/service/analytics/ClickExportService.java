@@ -0,0 +1,227 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams raw clicks for a short code as CSV or NDJSON. Rows come from a server-side cursor
+ * (fetch-size rows at a time) and are written straight to the response, so memory is constant
+ * however many clicks a link has; a slow client blocks the writes, which stops the fetches.
+ * Each export holds a database connection while it runs, hence the limit on concurrent exports.
+ */
+@Service
+public class ClickExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickExportService.class);
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final String COLUMNS = "timestamp, ip_address, user_agent, referer, country, city, "
+            + "device_type, browser, browser_version, os, os_version";
+    private static final String CLICKS = "SELECT " + COLUMNS + " FROM url_click_analytics "
+            + "WHERE short_code = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp";
+    private static final String CSV_HEADER = COLUMNS.replace(" ", "");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.analytics.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final Semaphore slots;
+    private final Counter rowsExported;
+
+    public ClickExportService(MeterRegistry meterRegistry,
+                              @Value("${app.analytics.export.max-concurrent:4}") int maxConcurrent) {
+        this.slots = new Semaphore(maxConcurrent);
+        this.rowsExported = Counter.builder("analytics.export.rows")
+                .description("Click rows streamed by /api/analytics/{shortCode}/export")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One of the concurrent export slots; closing it more than once releases it only once
+     */
+    public final class Slot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Reserves one of the concurrent export slots; null when all are in use. The caller closes
+     * it, including when export() never gets to run.
+     */
+    public Slot tryAcquire() {
+        return slots.tryAcquire() ? new Slot() : null;
+    }
+
+    /**
+     * Writes the clicks for shortCode with from <= timestamp < to, oldest first, then closes out
+     */
+    public void export(String shortCode, LocalDateTime from, LocalDateTime to, Format format, boolean gzip,
+                       OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long rows = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzip ? new GZIPOutputStream(out, 64 * 1024) : out, StandardCharsets.UTF_8), 64 * 1024);
+             Stream<UrlClickAnalytics> clicks = streamClicks(shortCode, from, to)) {
+            Iterator<UrlClickAnalytics> iterator = clicks.iterator();
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                while (iterator.hasNext()) {
+                    writeCsv(writer, iterator.next());
+                    rows++;
+                }
+            } else {
+                // One object per line, without Jackson's default space between root values
+                JsonGenerator json = objectMapper.getFactory().createGenerator(writer).setRootValueSeparator(null);
+                while (iterator.hasNext()) {
+                    writeJson(json, iterator.next());
+                    rows++;
+                }
+                json.flush();
+            }
+        } finally {
+            // Also reached when the client goes away mid-export; the cursor is closed by then
+            rowsExported.increment(rows);
+            log.info("📤 Exported {} clicks for {} as {} in {} ms", rows, shortCode, format,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Postgres only uses a cursor (instead of reading the whole result) outside auto-commit
+     * and with a fetch size
+     */
+    private Stream<UrlClickAnalytics> streamClicks(String shortCode, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.queryForStream(connection -> {
+            connection.setAutoCommit(false);
+            PreparedStatement statement = connection.prepareStatement(CLICKS);
+            statement.setFetchSize(fetchSize);
+            statement.setString(1, shortCode);
+            statement.setObject(2, from);
+            statement.setObject(3, to);
+            return statement;
+        }, ClickExportService::mapRow);
+    }
+
+    private static UrlClickAnalytics mapRow(ResultSet rs, int rowNum) throws SQLException {
+        UrlClickAnalytics click = new UrlClickAnalytics();
+        click.setTimestamp(rs.getObject("timestamp", LocalDateTime.class));
+        click.setIpAddress(rs.getString("ip_address"));
+        click.setUserAgent(rs.getString("user_agent"));
+        click.setReferer(rs.getString("referer"));
+        click.setCountry(rs.getString("country"));
+        click.setCity(rs.getString("city"));
+        click.setDeviceType(rs.getString("device_type"));
+        click.setBrowser(rs.getString("browser"));
+        click.setBrowserVersion(rs.getString("browser_version"));
+        click.setOs(rs.getString("os"));
+        click.setOsVersion(rs.getString("os_version"));
+        return click;
+    }
+
+    private static void writeCsv(Writer writer, UrlClickAnalytics click) throws IOException {
+        writer.write(click.getTimestamp() != null ? click.getTimestamp().toString() : "");
+        for (String value : new String[]{click.getIpAddress(), click.getUserAgent(), click.getReferer(),
+                click.getCountry(), click.getCity(), click.getDeviceType(), click.getBrowser(),
+                click.getBrowserVersion(), click.getOs(), click.getOsVersion()}) {
+            writer.write(',');
+            writeCsvField(writer, value);
+        }
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break, doubling inner quotes.
+    // Values come from request headers, so a leading = + - @ (or tab/CR) is escaped with ' to
+    // keep spreadsheets from evaluating them as formulas.
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJson(JsonGenerator json, UrlClickAnalytics click) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("timestamp", click.getTimestamp() != null ? click.getTimestamp().toString() : null);
+        json.writeStringField("ipAddress", click.getIpAddress());
+        json.writeStringField("userAgent", click.getUserAgent());
+        json.writeStringField("referer", click.getReferer());
+        json.writeStringField("country", click.getCountry());
+        json.writeStringField("city", click.getCity());
+        json.writeStringField("deviceType", click.getDeviceType());
+        json.writeStringField("browser", click.getBrowser());
+        json.writeStringField("browserVersion", click.getBrowserVersion());
+        json.writeStringField("os", click.getOs());
+        json.writeStringField("osVersion", click.getOsVersion());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+}
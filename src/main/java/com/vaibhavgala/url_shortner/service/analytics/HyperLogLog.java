@@ -0,0 +1,117 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Small, mergeable HyperLogLog sketch used for unique-visitor estimates.
+ * Precision 12 = 4096 one-byte registers (4KB per sketch), ~1.6% standard error.
+ */
+public class HyperLogLog {
+
+    private static final byte FORMAT_VERSION = 1;
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Restores a sketch from the compact form produced by {@link #toBytes()}
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 || bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog encoding");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[1]);
+        if (bytes.length != 2 + sketch.registers.length) {
+            throw new IllegalArgumentException("Corrupt HyperLogLog encoding");
+        }
+        System.arraycopy(bytes, 2, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[2 + registers.length];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 2, registers.length);
+        return bytes;
+    }
+
+    public void add(String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        long hash = hash64(value);
+        int index = (int) (hash >>> (64 - precision));
+        // Sentinel bit keeps rho bounded when the remaining bits are all zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rho = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rho > registers[index]) {
+            registers[index] = rho;
+        }
+    }
+
+    /**
+     * Register-wise max; the result estimates the cardinality of the union
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+
+        // Small-range correction (linear counting)
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes followed by the Murmur3 fmix64 finalizer
+     */
+    static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
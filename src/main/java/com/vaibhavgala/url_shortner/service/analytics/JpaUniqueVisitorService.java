@@ -0,0 +1,98 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import com.vaibhavgala.url_shortner.models.UniqueVisitorSketch;
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.repo.UniqueVisitorSketchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Unique visitors for lite mode: HyperLogLog sketches stored as compact bytes in Postgres.
+ * Each batch is folded into one in-memory sketch per (short code, bucket) and merged into
+ * the stored row under a row lock, so a sketch row is written once per batch.
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "false")
+public class JpaUniqueVisitorService implements UniqueVisitorService {
+
+    @Autowired
+    private UniqueVisitorSketchRepository sketchRepository;
+
+    // Callers run this once their click rows are committed (SyncEventProducer from afterCommit,
+    // where only a new transaction would commit), so a sketch failure can't roll them back
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordVisits(List<UrlClickAnalytics> clicks) {
+        // Sorted keys give a stable lock order across concurrent batches
+        Map<String, PendingSketch> pending = new TreeMap<>();
+        for (UrlClickAnalytics click : clicks) {
+            if (click.getIpAddress() == null || click.getTimestamp() == null) {
+                continue;
+            }
+            for (SketchBucket bucket : List.of(SketchBucket.dayOf(click.getTimestamp()),
+                    SketchBucket.hourOf(click.getTimestamp()))) {
+                pending.computeIfAbsent(click.getShortCode() + "|" + bucket.label(),
+                                k -> new PendingSketch(click.getShortCode(), bucket))
+                        .sketch.add(click.getIpAddress());
+            }
+        }
+
+        byte[] empty = new HyperLogLog().toBytes();
+        for (PendingSketch p : pending.values()) {
+            String granularity = String.valueOf(p.bucket.granularity());
+            sketchRepository.insertIfAbsent(p.shortCode, granularity, p.bucket.start(), empty);
+
+            UniqueVisitorSketch row = sketchRepository
+                    .findByShortCodeAndGranularityAndBucketStart(p.shortCode, granularity, p.bucket.start())
+                    .orElseThrow();
+            HyperLogLog stored = HyperLogLog.fromBytes(row.getRegisters());
+            stored.merge(p.sketch);
+            row.setRegisters(stored.toBytes());
+            row.setUpdatedAt(LocalDateTime.now());
+            sketchRepository.save(row);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countUniqueVisitors(String shortCode, LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> hours = new ArrayList<>();
+        List<LocalDateTime> days = new ArrayList<>();
+        for (SketchBucket bucket : SketchBucket.cover(from, to)) {
+            (bucket.granularity() == SketchBucket.DAY ? days : hours).add(bucket.start());
+        }
+
+        HyperLogLog union = new HyperLogLog();
+        if (!hours.isEmpty()) {
+            sketchRepository.findByShortCodeAndGranularityAndBucketStartIn(
+                            shortCode, String.valueOf(SketchBucket.HOUR), hours)
+                    .forEach(row -> union.merge(HyperLogLog.fromBytes(row.getRegisters())));
+        }
+        if (!days.isEmpty()) {
+            sketchRepository.findByShortCodeAndGranularityAndBucketStartIn(
+                            shortCode, String.valueOf(SketchBucket.DAY), days)
+                    .forEach(row -> union.merge(HyperLogLog.fromBytes(row.getRegisters())));
+        }
+        return union.estimate();
+    }
+
+    private static class PendingSketch {
+        final String shortCode;
+        final SketchBucket bucket;
+        final HyperLogLog sketch = new HyperLogLog();
+
+        PendingSketch(String shortCode, SketchBucket bucket) {
+            this.shortCode = shortCode;
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unique visitors via native Redis HyperLogLogs (PFADD / PFCOUNT).
+ * PFCOUNT over several keys returns the cardinality of their union, so any range
+ * is answered by merging the hour/day sketches that cover it.
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisUniqueVisitorService implements UniqueVisitorService {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisUniqueVisitorService.class);
+
+    private static final String KEY_PREFIX = "hll:";
+    private static final Duration HOUR_SKETCH_TTL = Duration.ofDays(35);
+    private static final Duration DAY_SKETCH_TTL = Duration.ofDays(400);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public void recordVisits(List<UrlClickAnalytics> clicks) {
+        Map<String, List<String>> visitorsByKey = new HashMap<>();
+        for (UrlClickAnalytics click : clicks) {
+            if (click.getIpAddress() == null || click.getTimestamp() == null) {
+                continue;
+            }
+            visitorsByKey.computeIfAbsent(key(click.getShortCode(), SketchBucket.hourOf(click.getTimestamp())),
+                    k -> new ArrayList<>()).add(click.getIpAddress());
+            visitorsByKey.computeIfAbsent(key(click.getShortCode(), SketchBucket.dayOf(click.getTimestamp())),
+                    k -> new ArrayList<>()).add(click.getIpAddress());
+        }
+
+        try {
+            for (Map.Entry<String, List<String>> entry : visitorsByKey.entrySet()) {
+                redisTemplate.opsForHyperLogLog().add(entry.getKey(), entry.getValue().toArray(new String[0]));
+                redisTemplate.expire(entry.getKey(),
+                        entry.getKey().contains(":" + SketchBucket.DAY + ":") ? DAY_SKETCH_TTL : HOUR_SKETCH_TTL);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to record unique visitors in Redis: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public long countUniqueVisitors(String shortCode, LocalDateTime from, LocalDateTime to) {
+        String[] keys = SketchBucket.cover(from, to).stream()
+                .map(bucket -> key(shortCode, bucket))
+                .toArray(String[]::new);
+        if (keys.length == 0) {
+            return 0;
+        }
+
+        try {
+            Long count = redisTemplate.opsForHyperLogLog().size(keys);
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            log.warn("Failed to count unique visitors for {}: {}", shortCode, e.getMessage());
+            return 0;
+        }
+    }
+
+    private String key(String shortCode, SketchBucket bucket) {
+        return KEY_PREFIX + shortCode + ":" + bucket.label();
+    }
+}
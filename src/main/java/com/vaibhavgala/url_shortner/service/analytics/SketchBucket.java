@@ -0,0 +1,53 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time bucket for a unique-visitor sketch: one hour ('H') or one day ('D').
+ */
+public record SketchBucket(char granularity, LocalDateTime start) {
+
+    public static final char HOUR = 'H';
+    public static final char DAY = 'D';
+
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    public static SketchBucket hourOf(LocalDateTime timestamp) {
+        return new SketchBucket(HOUR, timestamp.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    public static SketchBucket dayOf(LocalDateTime timestamp) {
+        return new SketchBucket(DAY, timestamp.truncatedTo(ChronoUnit.DAYS));
+    }
+
+    public String label() {
+        return granularity + ":" + (granularity == DAY ? DAY_FORMAT : HOUR_FORMAT).format(start);
+    }
+
+    /**
+     * Covers [from, to) with as few buckets as possible: whole days where they
+     * fit, hours at the edges. The first hour is included even if only partially
+     * in range since sketches can't be split.
+     */
+    public static List<SketchBucket> cover(LocalDateTime from, LocalDateTime to) {
+        List<SketchBucket> buckets = new ArrayList<>();
+        LocalDateTime cursor = from.truncatedTo(ChronoUnit.HOURS);
+
+        while (cursor.isBefore(to)) {
+            boolean dayAligned = cursor.equals(cursor.truncatedTo(ChronoUnit.DAYS));
+            if (dayAligned && !cursor.plusDays(1).isAfter(to)) {
+                buckets.add(new SketchBucket(DAY, cursor));
+                cursor = cursor.plusDays(1);
+            } else {
+                buckets.add(new SketchBucket(HOUR, cursor));
+                cursor = cursor.plusHours(1);
+            }
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,11 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UniqueVisitorService {
+    void recordVisits(List<UrlClickAnalytics> clicks);
+    long countUniqueVisitors(String shortCode, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,100 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small in-process LRU split into independently locked segments, so parallel readers
+ * rarely contend. Capacity is split evenly across segments (eviction is per segment).
+ */
+public class BoundedLruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public BoundedLruCache(int capacity, int segmentCount) {
+        int perSegment = Math.max(1, capacity / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    public BoundedLruCache(int capacity) {
+        this(capacity, 16);
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * The loader runs outside the segment lock; two threads may load the same key concurrently
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[(h & 0x7fffffff) % segments.length];
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true); // access order
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package com.vaibhavgala.url_shortner.service.cache;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 public interface CacheService {
+    record Entry(String value, Duration ttl) {
+    }
+
     void set(String key, String value, Duration ttl);
     String get(String key);
+
+    /**
+     * Values in key order, null where a key has no entry
+     */
+    List<String> multiGet(List<String> keys);
+
+    void multiSet(Map<String, Entry> entries);
 }
@@ -0,0 +1,58 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cached redirect target plus what probabilistic early refresh (XFetch) needs: when the entry
+ * expires and how long the database took to produce it. Stored as
+ * "x:&lt;expires epoch ms&gt;:&lt;recompute &micro;s&gt;:&lt;url&gt;"; a bare URL left by an older
+ * version still reads, it just never refreshes early.
+ * <p>
+ * Versions before this format read the whole value as the URL, so it is only written with
+ * app.cache.xfetch.enabled=true, to be set once none of them serves redirects from the same
+ * cache; until then values are written as bare URLs (see ShortLinkRules.cacheEntry).
+ */
+public record CachedUrl(String url, long expiresAtMillis, long recomputeMicros) {
+
+    private static final String MARKER = "x:";
+
+    // An indexed lookup often takes well under a millisecond; counting it as at least this
+    // much still leaves hot keys a window to refresh in before they expire
+    static final long MIN_RECOMPUTE_MICROS = 1_000;
+
+    public String encode() {
+        return MARKER + expiresAtMillis + ":" + recomputeMicros + ":" + url;
+    }
+
+    public static CachedUrl decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (!value.startsWith(MARKER)) {
+            return new CachedUrl(value, Long.MAX_VALUE, 0);
+        }
+        String[] parts = value.split(":", 4);
+        if (parts.length < 4) {
+            return new CachedUrl(value, Long.MAX_VALUE, 0);
+        }
+        try {
+            return new CachedUrl(parts[3], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            return new CachedUrl(value, Long.MAX_VALUE, 0);
+        }
+    }
+
+    /**
+     * XFetch: refresh when now - recompute * beta * ln(rand) reaches the expiry. Entries that
+     * are slow to rebuild, or close to expiring, are refreshed earlier; across the fleet the
+     * refreshes spread out instead of all requests missing at the same instant.
+     */
+    public boolean shouldRefreshEarly(long nowMillis, double beta) {
+        if (expiresAtMillis == Long.MAX_VALUE) {
+            return false;
+        }
+        double recomputeMillis = Math.max(recomputeMicros, MIN_RECOMPUTE_MICROS) / 1000.0;
+        double gap = -recomputeMillis * beta * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return nowMillis + gap >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,102 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Consecutive-failure circuit breaker. Calls that throw or take longer than slowCallMillis
+ * count as failures; failureThreshold of them in a row open the circuit and calls are refused
+ * without touching the backend. An external health probe moves an open circuit to half-open,
+ * where up to trialCalls calls are let through: all of them succeeding closes the circuit,
+ * any of them failing opens it again. If the trial permits run out before enough successes
+ * come back (a trial call was dropped, say), the next probe hands out a fresh set, or reopens
+ * the circuit if the backend is down again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final int trialCalls;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+
+    public CircuitBreaker(int failureThreshold, long slowCallMillis, int trialCalls) {
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.trialCalls = trialCalls;
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    public boolean allowRequest() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> trialPermits.getAndDecrement() > 0;
+        };
+    }
+
+    public void record(long elapsedNanos, boolean failed) {
+        record(failed || elapsedNanos > slowCallNanos);
+    }
+
+    /**
+     * Outcome of a call not held to the slow-call limit, e.g. a batch whose duration grows with its size
+     */
+    public void record(boolean failed) {
+        if (failed) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN && trialSuccesses.incrementAndGet() >= trialCalls) {
+            state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+        }
+    }
+
+    private void onFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            state.compareAndSet(State.HALF_OPEN, State.OPEN);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            state.compareAndSet(State.CLOSED, State.OPEN);
+        }
+    }
+
+    /**
+     * Whether the health probe should run: the circuit is open, or half-open with every trial
+     * permit handed out and the circuit still not closed
+     */
+    public boolean needsProbe() {
+        State current = state.get();
+        return current == State.OPEN || (current == State.HALF_OPEN && trialPermits.get() <= 0);
+    }
+
+    /**
+     * Called when the health probe finds the backend reachable again
+     */
+    public void probeSucceeded() {
+        trialSuccesses.set(0);
+        trialPermits.set(trialCalls);
+        consecutiveFailures.set(0);
+        state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    /**
+     * Called when the health probe fails; a half-open circuit opens again
+     */
+    public void probeFailed() {
+        state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+}
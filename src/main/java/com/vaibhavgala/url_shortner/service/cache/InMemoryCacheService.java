@@ -1,16 +1,23 @@
 package com.vaibhavgala.url_shortner.service.cache;
 
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "false")
+@ConditionalOnExpression("'${app.features.redis.enabled:true}' == 'false' and '${app.cache.local.backend:heap}' == 'heap'")
 public class InMemoryCacheService implements CacheService {
 
+    private static final Logger log = LoggerFactory.getLogger(InMemoryCacheService.class);
+
     private static class CacheEntry {
         String value;
         LocalDateTime expiresAt;
@@ -47,4 +54,21 @@ public class InMemoryCacheService implements CacheService {
         }
         return null;
     }
+
+    @Override
+    public List<String> multiGet(List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            CacheEntry entry = cache.get(key);
+            values.add(entry != null && !entry.isExpired() ? entry.value : null);
+        }
+        return values;
+    }
+
+    @Override
+    public void multiSet(Map<String, Entry> entries) {
+        LocalDateTime now = LocalDateTime.now();
+        entries.forEach((key, entry) -> cache.put(key, new CacheEntry(entry.value(), now.plus(entry.ttl()))));
+        log.debug("💾 [InMemoryCache] Cached {} entries", entries.size());
+    }
 }
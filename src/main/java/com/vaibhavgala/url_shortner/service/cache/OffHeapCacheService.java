@@ -0,0 +1,333 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process cache for tens of millions of entries without the GC cost of one String pair and
+ * entry object each: a fixed open-addressing table of fixed-size slots in native memory (or a
+ * mapped file, so a restarted node starts warm), with key, value and expiry stored inline.
+ *
+ * <pre>
+ * slot     seq long      0 = never used, odd while being written
+ *          hash long     of the key bytes
+ *          expiresAt long epoch millis
+ *          keyLength int, valueLength int
+ *          key and value bytes, UTF-8
+ * </pre>
+ *
+ * Reads take no lock: a per-slot sequence number is read before and after copying the slot,
+ * and the copy is retried if a writer got in between. Writes to the same key are serialized by
+ * striped locks, and a writer owns a slot by moving its sequence number to odd. Slots are never
+ * emptied, so probe chains stay intact; an expired slot, or the home slot once the probe limit is
+ * reached, is simply overwritten. Entries larger than a slot are not cached.
+ */
+@Service
+@ConditionalOnExpression("'${app.features.redis.enabled:true}' == 'false' and '${app.cache.local.backend:heap}' == 'offheap'")
+public class OffHeapCacheService implements CacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapCacheService.class);
+
+    private static final long FILE_MAGIC = 0x534E4C4B43414348L; // "SNLKCACH"
+    private static final int FILE_HEADER_BYTES = 64;
+
+    private static final int SEQ = 0;
+    private static final int HASH = 8;
+    private static final int EXPIRES_AT = 16;
+    private static final int KEY_LENGTH = 24;
+    private static final int VALUE_LENGTH = 28;
+    private static final int DATA = 32;
+
+    private static final VarHandle LONG_HANDLE = ValueLayout.JAVA_LONG.varHandle();
+    private static final int READ_RETRIES = 8;
+
+    private final int slotBytes;
+    private final long slotMask;
+    private final int maxProbes;
+    private final long tableOffset;
+    private final Arena arena;
+    private final MemorySegment memory;
+    private final ReentrantLock[] stripes;
+
+    private final AtomicLong occupied = new AtomicLong();
+    private final Counter oversize;
+    private final Counter evictions;
+
+    public OffHeapCacheService(MeterRegistry meterRegistry,
+                               @Value("${app.cache.offheap.slots:4194304}") long slots,
+                               @Value("${app.cache.offheap.slot-bytes:256}") int slotBytes,
+                               @Value("${app.cache.offheap.max-probes:32}") int maxProbes,
+                               @Value("${app.cache.offheap.write-stripes:64}") int writeStripes,
+                               @Value("${app.cache.offheap.file:}") String file) throws IOException {
+        if (Long.bitCount(slots) != 1 || slotBytes % 8 != 0 || slotBytes <= DATA) {
+            throw new IllegalArgumentException("app.cache.offheap.slots must be a power of two and slot-bytes a multiple of 8 above " + DATA);
+        }
+        this.slotBytes = slotBytes;
+        this.slotMask = slots - 1;
+        this.maxProbes = (int) Math.min(maxProbes, slots);
+        this.stripes = new ReentrantLock[writeStripes];
+        for (int i = 0; i < writeStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        this.arena = Arena.ofShared();
+        long tableBytes = slots * slotBytes;
+        if (file.isBlank()) {
+            this.tableOffset = 0;
+            this.memory = arena.allocate(tableBytes, 8);
+            memory.fill((byte) 0);
+        } else {
+            this.tableOffset = FILE_HEADER_BYTES;
+            this.memory = mapFile(Path.of(file), slots, tableBytes);
+        }
+
+        this.oversize = Counter.builder("cache.offheap.oversize")
+                .description("Entries not cached because they don't fit in a slot")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.offheap.evictions")
+                .description("Live entries overwritten because no free slot was found within max-probes")
+                .register(meterRegistry);
+        Gauge.builder("cache.offheap.occupied.slots", occupied, AtomicLong::get)
+                .description("Slots that have held an entry")
+                .register(meterRegistry);
+        Gauge.builder("cache.offheap.bytes", () -> tableBytes)
+                .description("Native or mapped memory reserved for the table")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("🧊 Off-heap cache: {} slots x {} bytes ({} MB){}", slots, slotBytes, tableBytes >> 20,
+                file.isBlank() ? "" : ", file " + file);
+    }
+
+    @Override
+    public void set(String key, String value, Duration ttl) {
+        put(key.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8),
+                System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    @Override
+    public String get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (DATA + keyBytes.length > slotBytes) {
+            return null;
+        }
+        long hash = hash(keyBytes);
+        long now = System.currentTimeMillis();
+        for (int probe = 0; probe < maxProbes; probe++) {
+            long slot = slotOffset((hash + probe) & slotMask);
+            for (int attempt = 0; attempt < READ_RETRIES; attempt++) {
+                long seq = (long) LONG_HANDLE.getAcquire(memory, slot + SEQ);
+                if (seq == 0) {
+                    return null;
+                }
+                if ((seq & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                boolean matches = memory.get(ValueLayout.JAVA_LONG, slot + HASH) == hash && keyEquals(slot, keyBytes);
+                long expiresAt = memory.get(ValueLayout.JAVA_LONG, slot + EXPIRES_AT);
+                byte[] value = matches ? readValue(slot, keyBytes.length) : null;
+                VarHandle.acquireFence();
+                if ((long) LONG_HANDLE.getVolatile(memory, slot + SEQ) != seq) {
+                    continue;
+                }
+                if (!matches) {
+                    break;
+                }
+                return value != null && expiresAt > now ? new String(value, StandardCharsets.UTF_8) : null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<String> multiGet(List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    @Override
+    public void multiSet(Map<String, Entry> entries) {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> put(key.getBytes(StandardCharsets.UTF_8),
+                entry.value().getBytes(StandardCharsets.UTF_8), now + entry.ttl().toMillis()));
+    }
+
+    private void put(byte[] key, byte[] value, long expiresAt) {
+        if (DATA + key.length + value.length > slotBytes) {
+            oversize.increment();
+            return;
+        }
+        long hash = hash(key);
+        ReentrantLock stripe = stripes[(int) ((hash >>> 32) % stripes.length)];
+        stripe.lock();
+        try {
+            long now = System.currentTimeMillis();
+            long target = -1;
+            for (int probe = 0; probe < maxProbes; probe++) {
+                long slot = slotOffset((hash + probe) & slotMask);
+                long seq = (long) LONG_HANDLE.getAcquire(memory, slot + SEQ);
+                if (seq == 0) {
+                    if (target < 0) {
+                        target = slot;
+                    }
+                    break;
+                }
+                if ((seq & 1) == 0 && memory.get(ValueLayout.JAVA_LONG, slot + HASH) == hash && keyEquals(slot, key)) {
+                    // Same key: update in place
+                    target = slot;
+                    break;
+                }
+                if (target < 0 && memory.get(ValueLayout.JAVA_LONG, slot + EXPIRES_AT) <= now) {
+                    target = slot;
+                }
+            }
+            if (target < 0) {
+                target = slotOffset(hash & slotMask);
+                evictions.increment();
+            }
+            write(target, hash, key, value, expiresAt);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void write(long slot, long hash, byte[] key, byte[] value, long expiresAt) {
+        long seq;
+        do {
+            // Other stripes may be writing a different key to this slot
+            seq = (long) LONG_HANDLE.getAcquire(memory, slot + SEQ);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+            }
+        } while ((seq & 1) != 0 || !LONG_HANDLE.compareAndSet(memory, slot + SEQ, seq, seq + 1));
+
+        memory.set(ValueLayout.JAVA_LONG, slot + HASH, hash);
+        memory.set(ValueLayout.JAVA_LONG, slot + EXPIRES_AT, expiresAt);
+        memory.set(ValueLayout.JAVA_INT, slot + KEY_LENGTH, key.length);
+        memory.set(ValueLayout.JAVA_INT, slot + VALUE_LENGTH, value.length);
+        MemorySegment.copy(key, 0, memory, ValueLayout.JAVA_BYTE, slot + DATA, key.length);
+        MemorySegment.copy(value, 0, memory, ValueLayout.JAVA_BYTE, slot + DATA + key.length, value.length);
+
+        LONG_HANDLE.setRelease(memory, slot + SEQ, seq + 2);
+        if (seq == 0) {
+            occupied.incrementAndGet();
+        }
+    }
+
+    private boolean keyEquals(long slot, byte[] key) {
+        if (memory.get(ValueLayout.JAVA_INT, slot + KEY_LENGTH) != key.length) {
+            return false;
+        }
+        return MemorySegment.mismatch(memory, slot + DATA, slot + DATA + key.length,
+                MemorySegment.ofArray(key), 0, key.length) == -1;
+    }
+
+    // The length may be torn by a concurrent write; clamp it so the copy stays in the slot
+    private byte[] readValue(long slot, int keyLength) {
+        int length = memory.get(ValueLayout.JAVA_INT, slot + VALUE_LENGTH);
+        if (length < 0 || DATA + keyLength + length > slotBytes) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        MemorySegment.copy(memory, ValueLayout.JAVA_BYTE, slot + DATA + keyLength, value, 0, length);
+        return value;
+    }
+
+    private long slotOffset(long index) {
+        return tableOffset + index * slotBytes;
+    }
+
+    /**
+     * Maps (creating or reusing) the cache file. A file from a different table shape starts
+     * empty; slots a crash left half-written are cleared to match nothing.
+     */
+    private MemorySegment mapFile(Path path, long slots, long tableBytes) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = FILE_HEADER_BYTES + tableBytes;
+            boolean reuse = channel.size() == size;
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            reuse = reuse
+                    && mapped.get(ValueLayout.JAVA_LONG, 0) == FILE_MAGIC
+                    && mapped.get(ValueLayout.JAVA_LONG, 8) == slots
+                    && mapped.get(ValueLayout.JAVA_LONG, 16) == slotBytes;
+            if (!reuse) {
+                mapped.fill((byte) 0);
+                mapped.set(ValueLayout.JAVA_LONG, 0, FILE_MAGIC);
+                mapped.set(ValueLayout.JAVA_LONG, 8, slots);
+                mapped.set(ValueLayout.JAVA_LONG, 16, slotBytes);
+                return mapped;
+            }
+
+            long used = 0;
+            for (long index = 0; index < slots; index++) {
+                long slot = FILE_HEADER_BYTES + index * slotBytes;
+                long seq = mapped.get(ValueLayout.JAVA_LONG, slot + SEQ);
+                if ((seq & 1) != 0) {
+                    mapped.set(ValueLayout.JAVA_LONG, slot + HASH, 0);
+                    mapped.set(ValueLayout.JAVA_LONG, slot + EXPIRES_AT, 0);
+                    mapped.set(ValueLayout.JAVA_INT, slot + KEY_LENGTH, -1);
+                    mapped.set(ValueLayout.JAVA_LONG, slot + SEQ, seq + 1);
+                }
+                if (seq != 0) {
+                    used++;
+                }
+            }
+            occupied.set(used);
+            log.info("🧊 Off-heap cache reopened warm from {} ({} slots in use)", path, used);
+            return mapped;
+        }
+    }
+
+    /**
+     * FNV-1a over the key bytes followed by the Murmur3 fmix64 finalizer
+     */
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (tableOffset > 0) {
+            memory.force();
+        }
+        arena.close();
+    }
+}
@@ -1,35 +1,315 @@
 package com.vaibhavgala.url_shortner.service.cache;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Redis-backed cache behind a circuit breaker. Once Redis keeps failing or answering slowly
+ * the circuit opens: reads are served from a local LRU of recently written or read entries and
+ * writes stay local, so an incident costs cache hits rather than a Redis timeout per redirect.
+ * A probe pings Redis while the circuit is open and lets a few trial calls through once it
+ * answers. Writes go to Redis from a small background pool, never on the request thread.
+ * Batch calls (multiGet/multiSet, up to thousands of keys) count towards the circuit only when
+ * they fail: their duration grows with their size, so the slow-call limit doesn't apply.
+ */
 @Service
 @ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "true", matchIfMissing = true)
 public class RedisCacheService implements CacheService {
 
+    private record LocalEntry(String value, long expiresAtMillis) {
+    }
+
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // "strings": one key per entry; "hashed": entries packed into listpack hashes (see RedisHashBuckets)
+    @Value("${app.cache.redis.layout:strings}")
+    private String layout;
+
+    @Value("${app.cache.redis.hash-buckets:65536}")
+    private int hashBuckets;
+
+    @Value("${app.cache.redis.compress-min-bytes:0}")
+    private int compressMinBytes;
+
+    @Value("${app.cache.redis.sweep-buckets:64}")
+    private int sweepBuckets;
+
+    @Value("${app.cache.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.cache.circuit.slow-call-ms:100}")
+    private long slowCallMillis;
+
+    @Value("${app.cache.circuit.trial-calls:10}")
+    private int trialCalls;
+
+    @Value("${app.cache.fallback.size:50000}")
+    private int fallbackSize;
+
+    // Values read from Redis carry no TTL we can see cheaply; keep them locally this long
+    @Value("${app.cache.fallback.ttl-ms:300000}")
+    private long fallbackTtlMillis;
+
+    @Value("${app.cache.async-write.queue-size:10000}")
+    private int writeQueueSize;
+
+    private RedisHashBuckets hashed;
+    private CircuitBreaker circuit;
+    private BoundedLruCache<String, LocalEntry> fallback;
+    private ThreadPoolExecutor writeExecutor;
+    private Counter rejected;
+    private Counter fallbackHits;
+    private Counter fallbackMisses;
+    private Counter writesDropped;
+
+    @PostConstruct
+    public void init() {
+        if ("hashed".equals(layout)) {
+            hashed = new RedisHashBuckets(redisTemplate, hashBuckets, compressMinBytes);
+            System.out.println("🗜️ Redis cache using hashed layout (" + hashBuckets + " buckets)");
+        }
+
+        circuit = new CircuitBreaker(failureThreshold, slowCallMillis, trialCalls);
+        fallback = new BoundedLruCache<>(fallbackSize);
+
+        writesDropped = Counter.builder("cache.async.writes.dropped")
+                .description("Cache writes dropped because the background write queue was full")
+                .register(meterRegistry);
+        // Bounded so a stalled Redis can't pile up writes; overflow is dropped (it is only a cache)
+        writeExecutor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writeQueueSize),
+                Thread.ofPlatform().name("cache-writer-", 0).daemon().factory(),
+                (task, executor) -> {
+                    writesDropped.increment();
+                    // A dropped trial call would never report back; count it as a failure
+                    if (circuit.state() == CircuitBreaker.State.HALF_OPEN) {
+                        recordOutcome(true);
+                    }
+                });
+
+        Gauge.builder("cache.circuit.state", circuit, c -> c.state().ordinal())
+                .description("Redis cache circuit: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        rejected = Counter.builder("cache.circuit.rejected")
+                .description("Redis cache calls skipped because the circuit was open")
+                .register(meterRegistry);
+        fallbackHits = Counter.builder("cache.fallback").tag("result", "hit").register(meterRegistry);
+        fallbackMisses = Counter.builder("cache.fallback").tag("result", "miss").register(meterRegistry);
+    }
+
     @Override
     public void set(String key, String value, Duration ttl) {
-        try {
-            redisTemplate.opsForValue().set(key, value, ttl);
-        } catch (Exception e) {
-            System.out.println("⚠️ Redis Cache set failed: " + e.getMessage());
-        }
+        remember(key, value, System.currentTimeMillis() + ttl.toMillis());
+        writeAsync("set", false, () -> {
+            if (hashed != null) {
+                hashed.set(key, value, ttl);
+            } else {
+                redisTemplate.opsForValue().set(key, value, ttl);
+            }
+        });
     }
 
     @Override
     public String get(String key) {
+        return call("get", false, () -> {
+            String value = hashed != null ? hashed.get(key) : redisTemplate.opsForValue().get(key);
+            if (value != null) {
+                remember(key, value, System.currentTimeMillis() + fallbackTtlMillis);
+            }
+            return value;
+        }, () -> fromFallback(key));
+    }
+
+    // One round trip for the whole batch: MGET, or pipelined HGETs in the hashed layout
+    @Override
+    public List<String> multiGet(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        return call("multiGet", true, () -> {
+            List<String> values = hashed != null ? hashed.multiGet(keys) : redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return Collections.nCopies(keys.size(), null);
+            }
+            long expiresAt = System.currentTimeMillis() + fallbackTtlMillis;
+            for (int i = 0; i < keys.size(); i++) {
+                if (values.get(i) != null) {
+                    remember(keys.get(i), values.get(i), expiresAt);
+                }
+            }
+            return values;
+        }, () -> {
+            List<String> local = new ArrayList<>(keys.size());
+            keys.forEach(key -> local.add(fromFallback(key)));
+            return local;
+        });
+    }
+
+    // SET ... PX per entry (TTLs differ), sent as one pipeline
+    @Override
+    public void multiSet(Map<String, Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> remember(key, entry.value(), now + entry.ttl().toMillis()));
+        writeAsync("multiSet", true, () -> {
+            if (hashed != null) {
+                hashed.multiSet(entries);
+                return;
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, entry) -> connection.stringCommands().set(
+                        key.getBytes(StandardCharsets.UTF_8),
+                        entry.value().getBytes(StandardCharsets.UTF_8),
+                        Expiration.from(entry.ttl()),
+                        RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Runs a Redis read through the circuit breaker, answering from the local fallback when the
+     * circuit is open or the call fails
+     */
+    private <T> T call(String operation, boolean batch, Supplier<T> redisCall, Supplier<T> fallbackCall) {
+        if (!circuit.allowRequest()) {
+            rejected.increment();
+            return fallbackCall.get();
+        }
+        long started = System.nanoTime();
         try {
-            return redisTemplate.opsForValue().get(key);
+            T result = redisCall.get();
+            recordOutcome(batch, System.nanoTime() - started, false);
+            return result;
         } catch (Exception e) {
-            System.out.println("⚠️ Redis Cache get failed: " + e.getMessage());
+            recordOutcome(batch, System.nanoTime() - started, true);
+            System.out.println("⚠️ Redis Cache " + operation + " failed: " + e.getMessage());
+            return fallbackCall.get();
+        }
+    }
+
+    private void writeAsync(String operation, boolean batch, Runnable redisWrite) {
+        if (!circuit.allowRequest()) {
+            rejected.increment();
+            return;
+        }
+        writeExecutor.execute(() -> {
+            long started = System.nanoTime();
+            try {
+                redisWrite.run();
+                recordOutcome(batch, System.nanoTime() - started, false);
+            } catch (Exception e) {
+                recordOutcome(batch, System.nanoTime() - started, true);
+                System.out.println("⚠️ Redis Cache " + operation + " failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void recordOutcome(boolean batch, long elapsedNanos, boolean failed) {
+        if (batch) {
+            recordOutcome(failed);
+            return;
+        }
+        CircuitBreaker.State before = circuit.state();
+        circuit.record(elapsedNanos, failed);
+        logTransition(before);
+    }
+
+    private void recordOutcome(boolean failed) {
+        CircuitBreaker.State before = circuit.state();
+        circuit.record(failed);
+        logTransition(before);
+    }
+
+    private void logTransition(CircuitBreaker.State before) {
+        CircuitBreaker.State after = circuit.state();
+        if (before != after) {
+            System.out.println(after == CircuitBreaker.State.OPEN
+                    ? "🔌 Redis cache circuit OPEN, serving from the local fallback cache"
+                    : "✅ Redis cache circuit " + after);
+        }
+    }
+
+    private void remember(String key, String value, long expiresAtMillis) {
+        fallback.put(key, new LocalEntry(value, expiresAtMillis));
+    }
+
+    private String fromFallback(String key) {
+        LocalEntry entry = fallback.get(key);
+        if (entry == null || entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            fallbackMisses.increment();
             return null;
         }
+        fallbackHits.increment();
+        return entry.value();
+    }
+
+    // While the circuit is open (or half-open with no trial permits left), a PING decides
+    // when to let trial calls through again
+    @Scheduled(fixedDelayString = "${app.cache.circuit.probe-interval-ms:1000}")
+    public void probe() {
+        if (!circuit.needsProbe()) {
+            return;
+        }
+        boolean answered;
+        try {
+            String pong = redisTemplate.execute((RedisCallback<String>) connection -> connection.ping());
+            answered = "PONG".equalsIgnoreCase(pong);
+        } catch (Exception e) {
+            answered = false;
+        }
+        if (answered) {
+            circuit.probeSucceeded();
+            System.out.println("🔌 Redis answered the probe, cache circuit HALF_OPEN");
+        } else {
+            circuit.probeFailed();
+        }
+    }
+
+    // Hash fields have no TTL of their own; expired ones are dropped a few buckets at a time
+    @Scheduled(fixedDelayString = "${app.cache.redis.sweep-interval-ms:1000}")
+    public void sweepExpired() {
+        if (hashed == null || circuit.state() == CircuitBreaker.State.OPEN) {
+            return;
+        }
+        try {
+            hashed.sweep(sweepBuckets);
+        } catch (Exception e) {
+            System.out.println("⚠️ Redis Cache sweep failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeExecutor.shutdown();
     }
 }
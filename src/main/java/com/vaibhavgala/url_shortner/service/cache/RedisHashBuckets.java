@@ -0,0 +1,232 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact cache layout: keys are spread over a fixed number of Redis hashes
+ * (urlh:&lt;n&gt;, n from the CRC32C of the key) instead of one string key each. A hash with up to
+ * hash-max-listpack-entries fields, none longer than hash-max-listpack-value, is stored as a
+ * single listpack, which skips the per-key dict entry, object header and expires entry.
+ *
+ * <pre>
+ * field  the cache key
+ * value  1 byte   format (0 = UTF-8, 1 = raw deflate with a URL dictionary)
+ *        4 bytes  expiry, unsigned epoch seconds
+ *        payload
+ * </pre>
+ *
+ * Fields can't carry their own TTL on older Redis versions, so expiry is checked on read and a
+ * sweeper removes expired fields a few buckets at a time.
+ */
+public class RedisHashBuckets {
+
+    public static final String BUCKET_PREFIX = "urlh:";
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER_BYTES = 5;
+
+    // Fragments most short-linked URLs share; a preset dictionary lets deflate pay off on short input
+    private static final byte[] URL_DICTIONARY = String.join("",
+            "utm_medium=", "utm_campaign=", "utm_content=", "utm_source=", "&ref=", "?id=", "index.html",
+            ".html", ".php", "/watch?v=", "youtube.com", "github.com", "amazon.com", "/products/",
+            "/blog/", "/article/", ".org/", ".net/", ".io/", ".com/", "https://www.", "http://www.", "https://")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final int buckets;
+    private final int compressMinBytes;
+    private final AtomicInteger sweepCursor;
+
+    /**
+     * @param buckets          aim for (expected keys / buckets) below hash-max-listpack-entries
+     * @param compressMinBytes deflate values at least this long (0 = never)
+     */
+    public RedisHashBuckets(RedisTemplate<String, String> redisTemplate, int buckets, int compressMinBytes) {
+        this.redisTemplate = redisTemplate;
+        this.buckets = buckets;
+        this.compressMinBytes = compressMinBytes;
+        // Nodes start sweeping at different buckets
+        this.sweepCursor = new AtomicInteger(ThreadLocalRandom.current().nextInt(buckets));
+    }
+
+    public String get(String key) {
+        byte[] raw = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(bucketOf(key), utf8(key)));
+        return decode(raw, nowSeconds());
+    }
+
+    public void set(String key, String value, Duration ttl) {
+        byte[] encoded = encode(value, nowSeconds() + ttl.toSeconds(), compressMinBytes);
+        redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.hashCommands().hSet(bucketOf(key), utf8(key), encoded));
+    }
+
+    public List<String> multiGet(List<String> keys) {
+        List<Object> raw = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hGet(bucketOf(key), utf8(key));
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+
+        long now = nowSeconds();
+        List<String> values = new ArrayList<>(keys.size());
+        for (Object value : raw) {
+            values.add(decode((byte[]) value, now));
+        }
+        return values;
+    }
+
+    public void multiSet(Map<String, CacheService.Entry> entries) {
+        long now = nowSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach((key, entry) -> connection.hashCommands().hSet(bucketOf(key), utf8(key),
+                    encode(entry.value(), now + entry.ttl().toSeconds(), compressMinBytes)));
+            return null;
+        }, RedisSerializer.byteArray());
+    }
+
+    /**
+     * Removes expired fields from the next count buckets. A field rewritten between the read and
+     * the delete is dropped as well, which only costs a cache miss.
+     *
+     * @return fields removed
+     */
+    public int sweep(int count) {
+        long now = nowSeconds();
+        int removed = 0;
+        for (int i = 0; i < count; i++) {
+            byte[] bucket = bucketKey(Math.floorMod(sweepCursor.getAndIncrement(), buckets));
+            removed += redisTemplate.execute((RedisCallback<Integer>) connection -> sweepBucket(connection, bucket, now));
+        }
+        return removed;
+    }
+
+    private static int sweepBucket(RedisConnection connection, byte[] bucket, long now) {
+        Map<byte[], byte[]> fields = connection.hashCommands().hGetAll(bucket);
+        if (fields == null || fields.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> expired = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            if (value.length < HEADER_BYTES || expiresAt(value) <= now) {
+                expired.add(field);
+            }
+        });
+        if (!expired.isEmpty()) {
+            connection.hashCommands().hDel(bucket, expired.toArray(byte[][]::new));
+        }
+        return expired.size();
+    }
+
+    byte[] bucketOf(String key) {
+        CRC32C crc = new CRC32C();
+        crc.update(utf8(key));
+        return bucketKey((int) (crc.getValue() % buckets));
+    }
+
+    private static byte[] bucketKey(int bucket) {
+        return utf8(BUCKET_PREFIX + bucket);
+    }
+
+    static byte[] encode(String value, long expiresAtSeconds, int compressMinBytes) {
+        byte[] plain = utf8(value);
+        byte format = PLAIN;
+        byte[] payload = plain;
+        if (compressMinBytes > 0 && plain.length >= compressMinBytes) {
+            byte[] deflated = deflate(plain);
+            if (deflated.length < plain.length) {
+                format = DEFLATED;
+                payload = deflated;
+            }
+        }
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .put(format)
+                .putInt((int) expiresAtSeconds)
+                .put(payload)
+                .array();
+    }
+
+    /**
+     * @return null for a missing or expired value
+     */
+    static String decode(byte[] raw, long nowSeconds) {
+        if (raw == null || raw.length < HEADER_BYTES || expiresAt(raw) <= nowSeconds) {
+            return null;
+        }
+        if (raw[0] == DEFLATED) {
+            return inflate(raw, HEADER_BYTES);
+        }
+        return new String(raw, HEADER_BYTES, raw.length - HEADER_BYTES, StandardCharsets.UTF_8);
+    }
+
+    private static long expiresAt(byte[] raw) {
+        return Integer.toUnsignedLong(ByteBuffer.wrap(raw, 1, 4).getInt());
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(URL_DICTIONARY);
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length);
+            byte[] chunk = new byte[256];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] raw, int offset) {
+        Inflater inflater = new Inflater(true);
+        try {
+            // Raw deflate streams take the dictionary up front
+            inflater.setDictionary(URL_DICTIONARY);
+            inflater.setInput(raw, offset, raw.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length * 3);
+            byte[] chunk = new byte[256];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,17 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+/**
+ * A single redirect as published on the click-events topic.
+ * Only shortCode is mandatory; the other fields are null when unknown.
+ */
+public record ClickEvent(
+        String shortCode,
+        String ipAddress,
+        String userAgent,
+        String referer,
+        long timestampMillis) {
+
+    public static ClickEvent now(String shortCode, String ipAddress, String userAgent, String referer) {
+        return new ClickEvent(shortCode, ipAddress, userAgent, referer, System.currentTimeMillis());
+    }
+}
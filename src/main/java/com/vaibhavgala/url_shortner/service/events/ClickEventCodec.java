@@ -0,0 +1,191 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Binary wire format for click events.
+ *
+ * <pre>
+ * magic    1 byte   0xC7
+ * version  1 byte   1
+ * flags    1 byte   bit0 ipAddress, bit1 userAgent, bit2 referer present
+ * time     8 bytes  epoch millis, big endian
+ * fields   varint length + UTF-8 bytes: shortCode, then each present optional field
+ * </pre>
+ *
+ * Readers ignore unknown flag bits and trailing bytes, so new optional fields can be
+ * appended without a version bump; the version only changes for incompatible layouts.
+ * Payloads starting with '{' are legacy JSON events and are still accepted.
+ */
+public final class ClickEventCodec {
+
+    private static final byte MAGIC = (byte) 0xC7;
+    private static final byte VERSION = 1;
+
+    private static final int FLAG_IP = 1;
+    private static final int FLAG_USER_AGENT = 1 << 1;
+    private static final int FLAG_REFERER = 1 << 2;
+
+    private static final int HEADER_BYTES = 3 + Long.BYTES;
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+
+    private ClickEventCodec() {
+    }
+
+    public static byte[] encode(ClickEvent event) {
+        if (event.shortCode() == null) {
+            throw new IllegalArgumentException("Click event without short code");
+        }
+
+        byte[] shortCode = utf8(event.shortCode());
+        byte[] ip = utf8(event.ipAddress());
+        byte[] userAgent = utf8(event.userAgent());
+        byte[] referer = utf8(event.referer());
+
+        int flags = (ip != null ? FLAG_IP : 0)
+                | (userAgent != null ? FLAG_USER_AGENT : 0)
+                | (referer != null ? FLAG_REFERER : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES
+                + fieldSize(shortCode) + fieldSize(ip) + fieldSize(userAgent) + fieldSize(referer));
+        buffer.put(MAGIC).put(VERSION).put((byte) flags).putLong(event.timestampMillis());
+        putField(buffer, shortCode);
+        putField(buffer, ip);
+        putField(buffer, userAgent);
+        putField(buffer, referer);
+        return buffer.array();
+    }
+
+    public static ClickEvent decode(byte[] payload) {
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Strings are decoded straight out of the buffer's backing array; no intermediate
+     * copies or generic maps are created.
+     */
+    public static ClickEvent decode(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Empty click event payload");
+        }
+
+        byte first = buffer.get(buffer.position());
+        if (first == '{') {
+            return decodeLegacyJson(buffer);
+        }
+        if (first != MAGIC) {
+            throw new IllegalArgumentException("Unknown click event encoding");
+        }
+
+        ByteBuffer in = buffer.slice();
+        in.get(); // magic
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported click event version " + version);
+        }
+        int flags = in.get();
+        long timestampMillis = in.getLong();
+
+        String shortCode = readField(in);
+        String ip = (flags & FLAG_IP) != 0 ? readField(in) : null;
+        String userAgent = (flags & FLAG_USER_AGENT) != 0 ? readField(in) : null;
+        String referer = (flags & FLAG_REFERER) != 0 ? readField(in) : null;
+
+        return new ClickEvent(shortCode, ip, userAgent, referer, timestampMillis);
+    }
+
+    /**
+     * Old producers wrote String.format JSON with a LocalDateTime timestamp and literal "null"s
+     */
+    private static ClickEvent decodeLegacyJson(ByteBuffer buffer) {
+        byte[] json = new byte[buffer.remaining()];
+        buffer.duplicate().get(json);
+        try {
+            JsonNode node = LEGACY_MAPPER.readTree(json);
+            LocalDateTime timestamp = LocalDateTime.parse(node.path("timestamp").asText());
+            return new ClickEvent(
+                    legacyText(node, "shortCode"),
+                    legacyText(node, "ipAddress"),
+                    legacyText(node, "userAgent"),
+                    legacyText(node, "referer"),
+                    timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed legacy click event: " + e.getMessage(), e);
+        }
+    }
+
+    private static String legacyText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull() || "null".equals(value.asText())) {
+            return null;
+        }
+        return value.asText();
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int fieldSize(byte[] field) {
+        return field == null ? 0 : varintSize(field.length) + field.length;
+    }
+
+    private static void putField(ByteBuffer buffer, byte[] field) {
+        if (field == null) {
+            return;
+        }
+        int value = field.length;
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        buffer.put(field);
+    }
+
+    private static String readField(ByteBuffer in) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed field length");
+            }
+            b = in.get();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Field length " + length + " exceeds payload");
+        }
+
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,310 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped spool for click events the producer could not hand to Kafka.
+ *
+ * <pre>
+ * segment  spool-&lt;sequence&gt;.log, segment-bytes long, mapped read-write
+ * header   4 bytes  read position (first unacknowledged record)
+ *          4 bytes  reserved
+ * record   4 bytes  length of what follows the checksum (0 = end of written data)
+ *          4 bytes  CRC32C of key length, key and value
+ *          2 bytes  key length
+ *          key bytes, value bytes
+ * </pre>
+ *
+ * Appends come from request threads and are serialized; reading and acknowledging is done
+ * by a single replay thread, oldest segment first, so records leave in the order they came.
+ * Data sits in the page cache as soon as it is appended, so it survives a JVM crash. Forcing
+ * it to disk is left to the replay thread (rolled segments on its next pass, the head segment
+ * on every acknowledge), so an append on a request thread never waits for an fsync.
+ */
+@Component
+@ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class ClickSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickSpool.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_OVERHEAD = 4 + 4 + 2;
+
+    public record SpooledEvent(String key, byte[] value) {
+    }
+
+    /**
+     * Records read from the head segment; pass back to acknowledge() once they are delivered
+     */
+    public record Batch(List<SpooledEvent> events, Segment segment, int endPosition) {
+        public boolean isEmpty() {
+            return events.isEmpty();
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final ConcurrentLinkedDeque<Segment> segments = new ConcurrentLinkedDeque<>();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final Counter appended;
+    private final Counter dropped;
+
+    public ClickSpool(MeterRegistry meterRegistry,
+                      @Value("${app.spool.dir:${java.io.tmpdir}/snaplink-spool}") String directory,
+                      @Value("${app.spool.segment-bytes:16777216}") int segmentBytes,
+                      @Value("${app.spool.max-bytes:1073741824}") long maxBytes) throws IOException {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+        recover();
+
+        this.appended = Counter.builder("clicks.spool.appended")
+                .description("Click events written to the local spool")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("clicks.spool.dropped")
+                .description("Click events lost because the spool was full")
+                .register(meterRegistry);
+        Gauge.builder("clicks.spool.bytes", pendingBytes, AtomicLong::get)
+                .description("Spooled bytes waiting to be replayed to Kafka")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("clicks.spool.records", pendingRecords, AtomicLong::get)
+                .description("Spooled click events waiting to be replayed to Kafka")
+                .register(meterRegistry);
+    }
+
+    public boolean isEmpty() {
+        return pendingRecords.get() == 0;
+    }
+
+    public long pendingRecords() {
+        return pendingRecords.get();
+    }
+
+    /**
+     * @return false if the event was dropped because the spool is full
+     */
+    public synchronized boolean append(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = 2 + keyBytes.length + value.length;
+        int recordBytes = 8 + length;
+        if (keyBytes.length > Short.MAX_VALUE || HEADER_BYTES + recordBytes > segmentBytes) {
+            dropped.increment();
+            return false;
+        }
+
+        Segment segment = segments.peekLast();
+        if (segment.writePosition + recordBytes > segmentBytes) {
+            if ((long) segments.size() * segmentBytes >= maxBytes) {
+                dropped.increment();
+                return false;
+            }
+            // Forced by the replay thread on its next peek(), not here under the append lock
+            segment = openSegment(segment.sequence + 1);
+            segments.addLast(segment);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update((keyBytes.length >>> 8) & 0xFF);
+        crc.update(keyBytes.length & 0xFF);
+        crc.update(keyBytes);
+        crc.update(value);
+
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.writePosition;
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putShort(position + 8, (short) keyBytes.length);
+        buffer.put(position + 10, keyBytes);
+        buffer.put(position + 10 + keyBytes.length, value);
+        // Length last: a torn append reads as end of data (or fails its checksum) on recovery
+        buffer.putInt(position, length);
+
+        segment.writePosition = position + recordBytes;
+        pendingBytes.addAndGet(recordBytes);
+        pendingRecords.incrementAndGet();
+        appended.increment();
+        return true;
+    }
+
+    /**
+     * Reads up to max records from the oldest segment without consuming them
+     */
+    public Batch peek(int max) {
+        forceRolledSegments();
+        Segment segment = segments.peekFirst();
+        while (segment != null && segment != segments.peekLast() && segment.readPosition >= segment.writePosition) {
+            // Fully replayed and no longer written to
+            retire(segment);
+            segment = segments.peekFirst();
+        }
+        if (segment == null) {
+            return new Batch(List.of(), null, 0);
+        }
+
+        List<SpooledEvent> events = new ArrayList<>(Math.min(max, 1024));
+        int limit = segment.writePosition;
+        int position = segment.readPosition;
+        while (events.size() < max && position < limit) {
+            int length = segment.buffer.getInt(position);
+            int keyLength = segment.buffer.getShort(position + 8);
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[length - 2 - keyLength];
+            segment.buffer.get(position + 10, key);
+            segment.buffer.get(position + 10 + keyLength, value);
+            events.add(new SpooledEvent(new String(key, StandardCharsets.UTF_8), value));
+            position += 8 + length;
+        }
+        return new Batch(events, segment, position);
+    }
+
+    /**
+     * Marks a peeked batch as delivered; persisted in the segment header
+     */
+    public void acknowledge(Batch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Segment segment = batch.segment();
+        pendingBytes.addAndGet(-(batch.endPosition() - segment.readPosition));
+        pendingRecords.addAndGet(-batch.events().size());
+        segment.readPosition = batch.endPosition();
+        segment.buffer.putInt(0, batch.endPosition());
+        segment.buffer.force();
+    }
+
+    private void forceRolledSegments() {
+        Segment last = segments.peekLast();
+        for (Segment segment : segments) {
+            if (segment != last && !segment.forced) {
+                segment.buffer.force();
+                segment.forced = true;
+            }
+        }
+    }
+
+    private void retire(Segment segment) {
+        segments.remove(segment);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Could not delete replayed spool segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    /**
+     * Maps the segments left by a previous run and finds where their written data ends
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().matches("spool-\\d+\\.log"))
+                    .sorted(Comparator.comparingLong(ClickSpool::sequenceOf))
+                    .toList();
+        }
+
+        for (Path file : files) {
+            Segment segment = openSegment(sequenceOf(file));
+            segment.readPosition = Math.max(HEADER_BYTES, segment.buffer.getInt(0));
+            int records = 0;
+            int position = HEADER_BYTES;
+            while (position + RECORD_OVERHEAD <= segmentBytes) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + 8 + length > segmentBytes || !checksumMatches(segment.buffer, position, length)) {
+                    break;
+                }
+                position += 8 + length;
+                if (position > segment.readPosition) {
+                    records++;
+                }
+            }
+            segment.writePosition = position;
+            segment.readPosition = Math.min(segment.readPosition, position);
+            segments.addLast(segment);
+            pendingRecords.addAndGet(records);
+            pendingBytes.addAndGet(segment.writePosition - segment.readPosition);
+        }
+
+        if (segments.isEmpty()) {
+            segments.addLast(openSegment(0));
+        } else if (pendingRecords.get() > 0) {
+            log.warn("📦 Recovered {} spooled click events from {}", pendingRecords.get(), directory);
+        }
+    }
+
+    private Segment openSegment(long sequence) {
+        Path path = directory.resolve("spool-" + sequence + ".log");
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            Segment segment = new Segment(sequence, path, buffer);
+            if (buffer.getInt(0) == 0) {
+                buffer.putInt(0, HEADER_BYTES);
+            }
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open spool segment " + path, e);
+        }
+    }
+
+    private static boolean checksumMatches(MappedByteBuffer buffer, int position, int length) {
+        byte[] body = new byte[length];
+        buffer.get(position + 8, body);
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue() == buffer.getInt(position + 4);
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("spool-".length(), name.length() - ".log".length()));
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.forEach(segment -> segment.buffer.force());
+    }
+
+    public static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private volatile int writePosition = HEADER_BYTES;
+        private volatile int readPosition = HEADER_BYTES;
+        // Set once the segment has been rolled and forced to disk
+        private volatile boolean forced;
+
+        private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+/**
+ * Kafka topics of the click pipeline.
+ * Records that fail to write go to RETRY; records that can't be decoded, or still fail
+ * after the retry backoff, end up in DLT, from where they can be replayed onto MAIN.
+ */
+public final class ClickTopics {
+
+    public static final String MAIN = "click-events";
+    public static final String RETRY = "click-events.retry";
+    public static final String DLT = "click-events.dlt";
+
+    // When a record was sent to RETRY (epoch ms, 8 bytes big-endian); the retry delay counts from here
+    public static final String RETRY_SENT_AT_HEADER = "snaplink-retry-sent-at";
+
+    private ClickTopics() {
+    }
+}
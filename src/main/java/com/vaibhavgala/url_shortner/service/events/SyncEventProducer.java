@@ -2,14 +2,20 @@ package com.vaibhavgala.url_shortner.service.events;
 
 import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
 import com.vaibhavgala.url_shortner.repo.UrlClickAnalyticsRepository;
-import com.vaibhavgala.url_shortner.repo.UrlMappingRepository;
+import com.vaibhavgala.url_shortner.repo.UrlMappingStore;
 import com.vaibhavgala.url_shortner.service.AnalyticsService;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import com.vaibhavgala.url_shortner.service.ingest.ClickEnrichmentService;
+import com.vaibhavgala.url_shortner.service.jfr.ClickSendEvent;
+import com.vaibhavgala.url_shortner.service.live.ClickDeltaPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @ConditionalOnProperty(name = "app.features.kafka.enabled", havingValue = "false")
@@ -18,36 +24,67 @@ public class SyncEventProducer implements EventProducer {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private ClickEnrichmentService enrichmentService;
+
     @Autowired
     private UrlClickAnalyticsRepository analyticsRepository;
 
     @Autowired
-    private UrlMappingRepository urlRepository;
+    private UrlMappingStore urlRepository;
+
+    @Autowired
+    private UniqueVisitorService uniqueVisitorService;
+
+    @Autowired
+    private ClickDeltaPublisher clickDeltaPublisher;
 
     @Override
     @Transactional
     public void sendClickEvent(String shortCode, String ipAddress, String userAgent, String referer) {
+        ClickSendEvent event = new ClickSendEvent();
+        event.begin();
         try {
-            // Create JSON event (reusing the same logic as Kafka for consistency)
-            String clickEvent = String.format(
-                    "{\"shortCode\":\"%s\",\"ipAddress\":\"%s\",\"userAgent\":\"%s\",\"referer\":\"%s\",\"timestamp\":\"%s\"}",
-                    shortCode, ipAddress, userAgent, referer, LocalDateTime.now()
-            );
-
-            // Parse back to entity
-            UrlClickAnalytics analytics = analyticsService.buildAnalyticsEntity(clickEvent);
+            // Same event model as Kafka, minus the wire round trip
+            UrlClickAnalytics analytics = analyticsService.buildAnalyticsEntity(
+                    ClickEvent.now(shortCode, ipAddress, userAgent, referer));
 
             if (analytics != null && analytics.getShortCode() != null) {
+                enrichmentService.enrich(analytics);
+
                 // Save analytics record
                 analyticsRepository.save(analytics);
                 
                 // Increment click count
                 urlRepository.incrementClickCountBy(shortCode, 1);
-                
+
+                // Not inside this transaction: the sketch update takes its own, and waiting for
+                // commit keeps two connections from being held per click. Live deltas (and the
+                // analytics response cache invalidation that comes with them) also wait, so a
+                // dashboard never re-reads before the click is visible or sees one rolled back.
+                afterCommit(() -> uniqueVisitorService.recordVisits(List.of(analytics)));
+                afterCommit(() -> clickDeltaPublisher.publish(List.of(analytics)));
+
                 System.out.println("💾 SYNC SAVED: Click event for " + shortCode);
             }
         } catch (Exception e) {
             System.err.println("❌ SYNC ERROR: Failed to save click event: " + e.getMessage());
         }
+        event.shortCode = shortCode;
+        event.path = "sync";
+        event.commit();
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    System.err.println("❌ SYNC ERROR: Post-commit update failed: " + e.getMessage());
+                }
+            }
+        });
     }
 }
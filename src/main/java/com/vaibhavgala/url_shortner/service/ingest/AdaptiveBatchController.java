@@ -0,0 +1,207 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes click windows from what the last flush cost. Write latency over target shrinks the
+ * window (multiplicative decrease); while under target, a backlog grows it step by step and
+ * stretches the flush interval so writes stay large, and a caught-up consumer shortens the
+ * interval again so dashboards stay fresh. Everything stays within the configured bounds.
+ * Shared by all listener threads; each flush nudges the same targets.
+ */
+@Component
+public class AdaptiveBatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBatchController.class);
+
+    private final int minEvents;
+    private final int maxEvents;
+    private final long minWindowMillis;
+    private final long maxWindowMillis;
+    private final long targetWriteMillis;
+    private final int step;
+
+    private volatile int targetEvents;
+    private volatile long targetWindowMillis;
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary windowSize;
+    private final Timer writeLatency;
+    private final Timer commitLatency;
+    private final Map<TopicPartition, LagGauge> partitionLag = new ConcurrentHashMap<>();
+
+    private record LagGauge(AtomicLong value, Gauge gauge) {
+    }
+
+    public AdaptiveBatchController(MeterRegistry meterRegistry,
+                                   @Value("${app.consumer.adaptive.min-events:500}") int minEvents,
+                                   @Value("${app.consumer.adaptive.max-events:20000}") int maxEvents,
+                                   @Value("${app.consumer.adaptive.min-window-ms:250}") long minWindowMillis,
+                                   @Value("${app.consumer.adaptive.max-window-ms:5000}") long maxWindowMillis,
+                                   @Value("${app.consumer.adaptive.target-write-ms:250}") long targetWriteMillis,
+                                   @Value("${app.consumer.window-max-events:5000}") int initialEvents,
+                                   @Value("${app.consumer.window-ms:1000}") long initialWindowMillis) {
+        this.meterRegistry = meterRegistry;
+        this.minEvents = minEvents;
+        this.maxEvents = Math.max(minEvents, maxEvents);
+        this.minWindowMillis = minWindowMillis;
+        this.maxWindowMillis = Math.max(minWindowMillis, maxWindowMillis);
+        this.targetWriteMillis = targetWriteMillis;
+        this.step = Math.max(1, minEvents / 2);
+        this.targetEvents = clamp(initialEvents, this.minEvents, this.maxEvents);
+        this.targetWindowMillis = clamp(initialWindowMillis, this.minWindowMillis, this.maxWindowMillis);
+
+        this.windowSize = DistributionSummary.builder("clicks.window.size")
+                .description("Click events written per window")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.writeLatency = Timer.builder("clicks.window.write")
+                .description("Time to write one click window")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commitLatency = Timer.builder("clicks.event.commit.latency")
+                .description("Click event timestamp to offset commit")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+        Gauge.builder("clicks.window.target.events", this, c -> c.targetEvents)
+                .description("Current adaptive window size bound")
+                .register(meterRegistry);
+        Gauge.builder("clicks.window.target.ms", this, c -> c.targetWindowMillis)
+                .description("Current adaptive window flush interval")
+                .register(meterRegistry);
+    }
+
+    public int targetEvents() {
+        return targetEvents;
+    }
+
+    public long targetWindowMillis() {
+        return targetWindowMillis;
+    }
+
+    public long minWindowMillis() {
+        return minWindowMillis;
+    }
+
+    /**
+     * Called on the consumer thread after a window is written, before its offsets are committed
+     */
+    public void onFlush(ClickWindow window, long writeMillis, Consumer<?, ?> consumer) {
+        windowSize.record(window.rows().size());
+        writeLatency.record(writeMillis, TimeUnit.MILLISECONDS);
+
+        long lag = updateLag(consumer);
+        adjust(window.rows().size(), writeMillis, lag);
+    }
+
+    /**
+     * Called once the window's offsets are committed; records event time to commit per event
+     */
+    public void onCommitted(ClickWindow window) {
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, byte[]> source : window.sources()) {
+            long age = now - source.timestamp();
+            if (age >= 0) {
+                commitLatency.record(age, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private synchronized void adjust(int size, long writeMillis, long lag) {
+        int events = targetEvents;
+        long windowMillis = targetWindowMillis;
+
+        if (writeMillis > targetWriteMillis) {
+            // The DB is struggling: back off quickly, and never grow the window, even when a
+            // small window (already at the minimum) was the slow one
+            if (size > minEvents) {
+                events = (int) (events * 0.75);
+            }
+        } else if (lag > events) {
+            // Behind and the DB keeps up: bigger, less frequent writes
+            events += step;
+            windowMillis += windowMillis / 4;
+        } else if (lag >= 0) {
+            // Caught up: favour freshness over batch size
+            windowMillis -= windowMillis / 4;
+        }
+
+        events = clamp(events, minEvents, maxEvents);
+        windowMillis = clamp(windowMillis, minWindowMillis, maxWindowMillis);
+        if (events != targetEvents || windowMillis != targetWindowMillis) {
+            log.debug("Adaptive window: {} events / {}ms -> {} events / {}ms (write {}ms, lag {})",
+                    targetEvents, targetWindowMillis, events, windowMillis, writeMillis, lag);
+            targetEvents = events;
+            targetWindowMillis = windowMillis;
+        }
+    }
+
+    /**
+     * Refreshes the per-partition lag gauges from the consumer's last fetch positions
+     *
+     * @return total lag over the thread's assigned partitions, or -1 if not yet known
+     */
+    private long updateLag(Consumer<?, ?> consumer) {
+        long total = -1;
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isEmpty()) {
+                continue;
+            }
+            partitionLag.computeIfAbsent(partition, this::registerLagGauge).value().set(lag.getAsLong());
+            total = Math.max(total, 0) + lag.getAsLong();
+        }
+        return total;
+    }
+
+    private LagGauge registerLagGauge(TopicPartition partition) {
+        AtomicLong value = new AtomicLong();
+        Gauge gauge = Gauge.builder("clicks.consumer.lag", value, AtomicLong::get)
+                .description("Records behind the log end offset")
+                .tag("topic", partition.topic())
+                .tag("partition", String.valueOf(partition.partition()))
+                .register(meterRegistry);
+        return new LagGauge(value, gauge);
+    }
+
+    /**
+     * Drops the lag gauges of partitions this node no longer consumes, so they don't keep
+     * reporting their last value; a thread assigned one of them later registers it again
+     */
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            LagGauge lagGauge = partitionLag.remove(partition);
+            if (lagGauge != null) {
+                meterRegistry.remove(lagGauge.gauge());
+            }
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
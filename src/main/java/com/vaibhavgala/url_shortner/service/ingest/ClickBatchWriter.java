@@ -0,0 +1,86 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.repo.UrlClickAnalyticsRepository;
+import com.vaibhavgala.url_shortner.repo.UrlMappingStore;
+import com.vaibhavgala.url_shortner.service.live.ClickDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes one pre-aggregated window: a single batched insert of the click rows and one
+ * click-count update per short code, in one transaction.
+ */
+@Service
+public class ClickBatchWriter {
+
+    @Autowired
+    private UrlClickAnalyticsRepository analyticsRepository;
+
+    @Autowired
+    private UrlMappingStore urlRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate perRowTransaction;
+
+    @PostConstruct
+    public void init() {
+        perRowTransaction = new TransactionTemplate(transactionManager);
+        perRowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    public void write(ClickWindow window) {
+        if (!window.rows().isEmpty()) {
+            analyticsRepository.saveAll(window.rows());
+        }
+        // Always in short-code order: windows written concurrently then lock shared url_mapping
+        // rows in the same order and can't deadlock each other
+        List<ClickDelta> deltas = new ArrayList<>(window.deltas().values());
+        deltas.sort(Comparator.comparing(ClickDelta::shortCode));
+        for (ClickDelta delta : deltas) {
+            urlRepository.incrementClickCountBy(delta.shortCode(), (int) delta.clicks());
+        }
+    }
+
+    /**
+     * Fallback after a failed window: every row (insert + its +1 count) in its own
+     * transaction, so one bad row can't take the rest of the window down with it.
+     *
+     * @return index into window.rows() -> failure, for the rows that could not be written
+     */
+    public Map<Integer, Exception> writeIsolated(ClickWindow window) {
+        Map<Integer, Exception> failures = new LinkedHashMap<>();
+        for (int i = 0; i < window.rows().size(); i++) {
+            UrlClickAnalytics row = window.rows().get(i);
+            try {
+                // Rows from the failed batch insert may already carry a sequence id
+                row.setId(null);
+                writeSingle(row);
+            } catch (Exception e) {
+                failures.put(i, e);
+            }
+        }
+        return failures;
+    }
+
+    public void writeSingle(UrlClickAnalytics row) {
+        perRowTransaction.executeWithoutResult(status -> {
+            analyticsRepository.save(row);
+            urlRepository.incrementClickCountBy(row.getShortCode(), 1);
+        });
+    }
+}
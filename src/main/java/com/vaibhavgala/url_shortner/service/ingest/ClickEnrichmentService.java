@@ -0,0 +1,152 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.GeoIPService;
+import com.vaibhavgala.url_shortner.service.cache.BoundedLruCache;
+import com.vaibhavgala.url_shortner.service.jfr.EnrichmentEvent;
+import com.vaibhavgala.url_shortner.service.startup.BackgroundInit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua_parser.Client;
+import ua_parser.Parser;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fills in device/browser/OS (uap-java) and country/city (GeoIP) for parsed clicks.
+ * uap runs dozens of regexes per call, but real traffic repeats a small set of
+ * User-Agent strings, so parsed clients are kept in a bounded LRU keyed by the raw UA.
+ * Batches are enriched in parallel on a dedicated pool sized to the machine's cores.
+ */
+@Service
+public class ClickEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickEnrichmentService.class);
+
+    // Below this size the fork/join hand-off costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    // Loading and compiling the regexes.yaml takes a noticeable part of startup
+    private final CompletableFuture<Parser> uaParser;
+    private final GeoIPService geoIpService;
+    private final BoundedLruCache<String, Client> clientCache;
+    private final ForkJoinPool enrichmentPool;
+
+    private final Counter uaCacheHits;
+    private final Counter uaCacheMisses;
+    private final DistributionSummary nanosPerEvent;
+
+    public ClickEnrichmentService(GeoIPService geoIpService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.enrichment.ua-cache-size:10000}") int uaCacheSize,
+                                  @Value("${app.enrichment.parallelism:0}") int parallelism,
+                                  @Value("${app.startup.background-init:true}") boolean backgroundInit) {
+        this.uaParser = BackgroundInit.start("ua-parser", backgroundInit, Parser::new);
+        this.geoIpService = geoIpService;
+        this.clientCache = new BoundedLruCache<>(uaCacheSize);
+        this.enrichmentPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+
+        this.uaCacheHits = Counter.builder("enrichment.ua.cache").tag("result", "hit").register(meterRegistry);
+        this.uaCacheMisses = Counter.builder("enrichment.ua.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("enrichment.ua.cache.hit.ratio", this, ClickEnrichmentService::uaCacheHitRatio)
+                .register(meterRegistry);
+        this.nanosPerEvent = DistributionSummary.builder("enrichment.ns.per.event")
+                .description("Wall-clock enrichment time per event, averaged over each batch")
+                .baseUnit("nanoseconds")
+                .register(meterRegistry);
+    }
+
+    public void enrich(List<UrlClickAnalytics> clicks) {
+        if (clicks.isEmpty()) {
+            return;
+        }
+
+        EnrichmentEvent event = new EnrichmentEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean parallel = clicks.size() >= PARALLEL_THRESHOLD;
+        if (!parallel) {
+            clicks.forEach(this::enrich);
+        } else {
+            enrichmentPool.submit(() -> clicks.parallelStream().forEach(this::enrich)).join();
+        }
+        nanosPerEvent.record((double) (System.nanoTime() - start) / clicks.size());
+        event.events = clicks.size();
+        event.parallel = parallel;
+        event.commit();
+    }
+
+    public void enrich(UrlClickAnalytics analytics) {
+        try {
+            String userAgent = analytics.getUserAgent();
+            if (userAgent != null && !userAgent.isBlank()) {
+                Client client = parseUserAgent(userAgent);
+                analytics.setDeviceType(getDeviceType(client));
+                analytics.setBrowser(client.userAgent.family);
+                analytics.setBrowserVersion(client.userAgent.major);
+                analytics.setOs(client.os.family);
+                analytics.setOsVersion(client.os.major);
+            }
+
+            String ip = analytics.getIpAddress();
+            if (ip != null && !ip.isBlank()) {
+                GeoIPService.GeoLocation location = geoIpService.lookup(ip);
+                analytics.setCountry(location.country());
+                analytics.setCity(location.city());
+            }
+        } catch (Exception e) {
+            // Enrichment is best-effort; the click itself is still recorded
+            log.debug("Enrichment failed for {}: {}", analytics.getShortCode(), e.getMessage());
+        }
+    }
+
+    private Client parseUserAgent(String userAgent) {
+        Client client = clientCache.get(userAgent);
+        if (client != null) {
+            uaCacheHits.increment();
+            return client;
+        }
+        uaCacheMisses.increment();
+        client = uaParser.join().parse(userAgent);
+        clientCache.put(userAgent, client);
+        return client;
+    }
+
+    private String getDeviceType(Client client) {
+        if (client.device == null || client.device.family == null) {
+            return "Desktop";
+        }
+
+        String device = client.device.family.toLowerCase();
+        if (device.contains("mobile") || device.contains("phone")) {
+            return "Mobile";
+        } else if (device.contains("tablet") || device.contains("ipad")) {
+            return "Tablet";
+        } else {
+            return "Desktop";
+        }
+    }
+
+    public boolean isReady() {
+        return BackgroundInit.isReady(uaParser);
+    }
+
+    private double uaCacheHitRatio() {
+        double total = uaCacheHits.count() + uaCacheMisses.count();
+        return total == 0 ? 0 : uaCacheHits.count() / total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        enrichmentPool.shutdown();
+    }
+}
@@ -0,0 +1,26 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.live.ClickDelta;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything one tumbling window folded together: the raw click rows (with the Kafka
+ * record each came from, index-aligned), one delta (click count + dimension tallies)
+ * per short code, and the offsets to commit once the window is durable.
+ */
+public record ClickWindow(
+        List<UrlClickAnalytics> rows,
+        List<ConsumerRecord<String, byte[]>> sources,
+        Map<String, ClickDelta> deltas,
+        Map<TopicPartition, OffsetAndMetadata> offsets) {
+
+    public boolean isEmpty() {
+        return rows.isEmpty() && offsets.isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.live.ClickDelta;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tumbling-window pre-aggregation for one listener thread. Click events are keyed by
+ * short code, so a code's events all land on one partition and one thread; folding them
+ * here turns one url_mapping update per event into one per code per window.
+ * Not thread-safe: each consumer thread owns its own instance.
+ */
+public class ClickWindowAggregator {
+
+    private List<UrlClickAnalytics> rows = new ArrayList<>();
+    private List<ConsumerRecord<String, byte[]>> sources = new ArrayList<>();
+    private Map<String, ClickDelta.Accumulator> tallies = new LinkedHashMap<>();
+    private Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    private long windowStartMillis = -1;
+
+    public void add(UrlClickAnalytics click, ConsumerRecord<String, byte[]> source) {
+        startWindowIfNeeded();
+        rows.add(click);
+        sources.add(source);
+        tallies.computeIfAbsent(click.getShortCode(), ClickDelta.Accumulator::new).add(click);
+    }
+
+    /**
+     * Records a consumed offset (even for unparseable records) so it is committed with the window
+     */
+    public void markConsumed(TopicPartition partition, long offset) {
+        startWindowIfNeeded();
+        offsets.merge(partition, new OffsetAndMetadata(offset + 1),
+                (a, b) -> a.offset() >= b.offset() ? a : b);
+    }
+
+    public boolean isDue(long nowMillis, long windowMillis, int maxEvents) {
+        if (windowStartMillis < 0) {
+            return false;
+        }
+        return rows.size() >= maxEvents || nowMillis - windowStartMillis >= windowMillis;
+    }
+
+    public boolean isEmpty() {
+        return windowStartMillis < 0;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Hands over the current window and starts an empty one
+     */
+    public ClickWindow drain() {
+        Map<String, ClickDelta> deltas = new LinkedHashMap<>();
+        tallies.forEach((shortCode, tally) -> deltas.put(shortCode, tally.build()));
+        ClickWindow window = new ClickWindow(rows, sources, deltas, offsets);
+
+        rows = new ArrayList<>();
+        sources = new ArrayList<>();
+        tallies = new LinkedHashMap<>();
+        offsets = new HashMap<>();
+        windowStartMillis = -1;
+        return window;
+    }
+
+    private void startWindowIfNeeded() {
+        if (windowStartMillis < 0) {
+            windowStartMillis = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("snaplink.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Snaplink", "Redirect"})
+@StackTrace(false)
+public class CacheLookupEvent extends Event {
+
+    @Label("Key")
+    public String key;
+
+    @Label("Hit")
+    public boolean hit;
+}
@@ -0,0 +1,23 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("snaplink.ClickSend")
+@Label("Click Send")
+@Category({"Snaplink", "Redirect"})
+@Description("Time a redirect thread spends handing off its click event (Kafka send, spool append or sync save)")
+@StackTrace(false)
+public class ClickSendEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Path")
+    @Description("kafka, spool or sync")
+    public String path;
+}
@@ -0,0 +1,26 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("snaplink.ClickWindowFlush")
+@Label("Click Window Flush")
+@Category({"Snaplink", "Click Ingestion"})
+@StackTrace(false)
+public class ClickWindowFlushEvent extends Event {
+
+    @Label("Window")
+    public long window;
+
+    @Label("Events")
+    public int events;
+
+    @Label("Short Codes")
+    public int shortCodes;
+
+    @Label("Isolated")
+    public boolean isolated;
+}
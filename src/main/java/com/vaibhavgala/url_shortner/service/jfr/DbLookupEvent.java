@@ -0,0 +1,22 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("snaplink.DbLookup")
+@Label("DB Lookup")
+@Category({"Snaplink", "Redirect"})
+@Description("url_mapping lookup after a cache miss, including waiting for a Hikari connection")
+@StackTrace(false)
+public class DbLookupEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Found")
+    public boolean found;
+}
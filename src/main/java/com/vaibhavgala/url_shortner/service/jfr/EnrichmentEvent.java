@@ -0,0 +1,20 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("snaplink.Enrichment")
+@Label("Click Enrichment")
+@Category({"Snaplink", "Click Ingestion"})
+@StackTrace(false)
+public class EnrichmentEvent extends Event {
+
+    @Label("Events")
+    public int events;
+
+    @Label("Parallel")
+    public boolean parallel;
+}
@@ -0,0 +1,170 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Time-boxed Flight Recorder recordings on a live node.
+ * <ul>
+ *   <li>POST /actuator/jfr {"durationSeconds": 60, "settings": "default|profile"} - start</li>
+ *   <li>GET /actuator/jfr - list recordings</li>
+ *   <li>GET /actuator/jfr/{id} - download the .jfr once it has stopped (409 while running)</li>
+ *   <li>POST /actuator/jfr/{id} - stop early</li>
+ *   <li>DELETE /actuator/jfr/{id} - discard the recording and its file</li>
+ * </ul>
+ * "default" settings cost around 1% CPU; "profile" adds allocation and lock profiling.
+ * Not exposed over HTTP by default: add "jfr" to the exposure list only on a management port
+ * that is not reachable from outside. Events that record environment variables, system
+ * properties and JVM arguments (where secrets usually live) are left out of every recording.
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrRecordingEndpoint.class);
+
+    private static final List<String> SECRET_BEARING_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    private final Duration maxDuration;
+    // One permit per recording kept, taken before it is created and returned when it is discarded
+    private final Semaphore slots;
+
+    public JfrRecordingEndpoint(@Value("${app.jfr.max-duration-seconds:600}") long maxDurationSeconds,
+                                @Value("${app.jfr.max-recordings:3}") int maxRecordings) {
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.slots = new Semaphore(maxRecordings);
+    }
+
+    @ReadOperation
+    public Map<Long, Map<String, Object>> list() {
+        Map<Long, Map<String, Object>> list = new LinkedHashMap<>();
+        recordings.forEach((id, recording) -> list.put(id, describe(recording)));
+        return list;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable Long durationSeconds, @Nullable String settings) {
+        Duration duration = durationSeconds != null ? Duration.ofSeconds(durationSeconds) : Duration.ofSeconds(60);
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            return new WebEndpointResponse<>(Map.of("error", "durationSeconds must be between 1 and " + maxDuration.toSeconds()),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (!slots.tryAcquire()) {
+            return new WebEndpointResponse<>(Map.of("error", "Too many recordings, delete one first"),
+                    WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+
+        try {
+            Configuration configuration = Configuration.getConfiguration(settings != null ? settings : "default");
+            Recording recording = new Recording(configuration);
+            SECRET_BEARING_EVENTS.forEach(recording::disable);
+            recording.setName("snaplink-" + System.currentTimeMillis());
+            recording.setDuration(duration);
+            recording.setToDisk(true);
+            // Written here automatically when the duration elapses or the recording is stopped
+            recording.setDestination(Files.createTempFile("snaplink-", ".jfr"));
+            recording.start();
+            recordings.put(recording.getId(), recording);
+
+            log.info("🎥 JFR recording {} started for {}s ({} settings)", recording.getId(), duration.toSeconds(),
+                    configuration.getName());
+            return new WebEndpointResponse<>(describe(recording));
+        } catch (IOException | ParseException e) {
+            slots.release();
+            return new WebEndpointResponse<>(Map.of("error", "Unknown settings: " + settings),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() != RecordingState.STOPPED && recording.getState() != RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(409);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(recording.getDestination()));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> discard(@Selector long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        close(recording);
+        slots.release();
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("id", recording.getId());
+        description.put("name", recording.getName());
+        description.put("state", recording.getState().name());
+        description.put("startTime", recording.getStartTime() != null ? recording.getStartTime().toString() : null);
+        description.put("durationSeconds", recording.getDuration() != null ? recording.getDuration().toSeconds() : null);
+        description.put("sizeBytes", recording.getSize());
+        return description;
+    }
+
+    private static void close(Recording recording) {
+        Path destination = recording.getDestination();
+        recording.close();
+        if (destination != null) {
+            try {
+                Files.deleteIfExists(destination);
+            } catch (IOException e) {
+                log.warn("Could not delete JFR file {}: {}", destination, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        recordings.values().forEach(JfrRecordingEndpoint::close);
+        recordings.clear();
+    }
+}
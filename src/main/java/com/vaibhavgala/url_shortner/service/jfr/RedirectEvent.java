@@ -0,0 +1,22 @@
+package com.vaibhavgala.url_shortner.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("snaplink.Redirect")
+@Label("Redirect")
+@Category({"Snaplink", "Redirect"})
+@Description("One GET /{shortCode}: resolve the URL and hand off the click event")
+@StackTrace(false)
+public class RedirectEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,74 @@
+package com.vaibhavgala.url_shortner.service.live;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental analytics for one short code, built from a batch of newly written clicks.
+ * Breakdowns use the same [label, count] pair shape as /api/analytics so the dashboard
+ * can add them straight onto what it already rendered.
+ */
+public record ClickDelta(
+        String shortCode,
+        long clicks,
+        List<Object[]> clicksByCountry,
+        List<Object[]> clicksByDevice,
+        List<Object[]> topReferrers) {
+
+    public static Map<String, ClickDelta> fromBatch(List<UrlClickAnalytics> clicks) {
+        Map<String, Accumulator> byShortCode = new LinkedHashMap<>();
+        for (UrlClickAnalytics click : clicks) {
+            if (click.getShortCode() != null) {
+                byShortCode.computeIfAbsent(click.getShortCode(), Accumulator::new).add(click);
+            }
+        }
+
+        Map<String, ClickDelta> deltas = new LinkedHashMap<>();
+        byShortCode.forEach((shortCode, accumulator) -> deltas.put(shortCode, accumulator.build()));
+        return deltas;
+    }
+
+    /**
+     * Running click count and dimension tallies for one short code
+     */
+    public static class Accumulator {
+        private final String shortCode;
+        private long clicks;
+        private final Map<String, Long> byCountry = new HashMap<>();
+        private final Map<String, Long> byDevice = new HashMap<>();
+        private final Map<String, Long> byReferrer = new HashMap<>();
+
+        public Accumulator(String shortCode) {
+            this.shortCode = shortCode;
+        }
+
+        public void add(UrlClickAnalytics click) {
+            clicks++;
+            byCountry.merge(click.getCountry(), 1L, Long::sum);
+            byDevice.merge(click.getDeviceType(), 1L, Long::sum);
+            // Matches findTopReferrers, which ignores clicks without a referer
+            if (click.getReferer() != null) {
+                byReferrer.merge(click.getReferer(), 1L, Long::sum);
+            }
+        }
+
+        public long clicks() {
+            return clicks;
+        }
+
+        public ClickDelta build() {
+            return new ClickDelta(shortCode, clicks, pairs(byCountry), pairs(byDevice), pairs(byReferrer));
+        }
+
+        private static List<Object[]> pairs(Map<String, Long> counts) {
+            List<Object[]> pairs = new ArrayList<>(counts.size());
+            counts.forEach((label, count) -> pairs.add(new Object[]{label, count}));
+            return pairs;
+        }
+    }
+}
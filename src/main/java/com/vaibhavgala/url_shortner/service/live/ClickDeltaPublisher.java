@@ -0,0 +1,11 @@
+package com.vaibhavgala.url_shortner.service.live;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ClickDeltaPublisher {
+    void publish(List<UrlClickAnalytics> clicks);
+    void publishDeltas(Collection<ClickDelta> deltas);
+}
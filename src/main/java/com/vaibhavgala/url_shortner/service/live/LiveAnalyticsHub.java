@@ -0,0 +1,159 @@
+package com.vaibhavgala.url_shortner.service.live;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local pub/sub for live dashboards. Each subscriber gets a small bounded buffer that is
+ * drained on a virtual thread, so one slow socket never holds up the others; a subscriber
+ * whose buffer overflows is disconnected instead of growing memory.
+ * Subscribers are fed only from consumer batch results - no database reads.
+ */
+@Service
+public class LiveAnalyticsHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveAnalyticsHub.class);
+
+    @Value("${app.live.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${app.live.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${app.live.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter droppedSubscribers;
+
+    public LiveAnalyticsHub(MeterRegistry meterRegistry) {
+        Gauge.builder("analytics.live.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live analytics streams on this node")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("analytics.live.dropped")
+                .description("Live analytics streams closed because the client fell behind")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String shortCode) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many live analytics subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Subscriber subscriber = new Subscriber(shortCode, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.compute(shortCode, (k, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    public void dispatch(ClickDelta delta) {
+        Set<Subscriber> targets = subscribers.get(delta.shortCode());
+        if (targets == null) {
+            return;
+        }
+
+        for (Subscriber subscriber : targets) {
+            if (!subscriber.queue.offer(delta)) {
+                // Client can't keep up - cut it loose, EventSource will reconnect and resync
+                droppedSubscribers.increment();
+                remove(subscriber);
+                subscriber.emitter.complete();
+                continue;
+            }
+            if (subscriber.draining.compareAndSet(false, true)) {
+                senders.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            ClickDelta delta;
+            while ((delta = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(SseEmitter.event().name("delta").data(delta));
+            }
+        } catch (Exception e) {
+            log.debug("Live stream for {} closed: {}", subscriber.shortCode, e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        // A delta may have been queued after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects dead clients
+     */
+    @Scheduled(fixedRate = 15000)
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> senders.execute(() -> {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (Exception e) {
+                remove(subscriber);
+            }
+        })));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.shortCode, (k, set) -> {
+            if (set.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private static class Subscriber {
+        final String shortCode;
+        final SseEmitter emitter;
+        final BlockingQueue<ClickDelta> queue;
+        final AtomicBoolean draining = new AtomicBoolean(false);
+
+        Subscriber(String shortCode, SseEmitter emitter, BlockingQueue<ClickDelta> queue) {
+            this.shortCode = shortCode;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
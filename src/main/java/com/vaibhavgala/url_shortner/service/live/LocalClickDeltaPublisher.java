@@ -0,0 +1,37 @@
+package com.vaibhavgala.url_shortner.service.live;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.analytics.AnalyticsResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Single-node fan-out: deltas go straight to this node's subscribers and response cache.
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "false")
+public class LocalClickDeltaPublisher implements ClickDeltaPublisher {
+
+    @Autowired
+    private LiveAnalyticsHub liveAnalyticsHub;
+
+    @Autowired
+    private AnalyticsResponseCache responseCache;
+
+    @Override
+    public void publish(List<UrlClickAnalytics> clicks) {
+        publishDeltas(ClickDelta.fromBatch(clicks).values());
+    }
+
+    @Override
+    public void publishDeltas(Collection<ClickDelta> deltas) {
+        for (ClickDelta delta : deltas) {
+            responseCache.invalidate(delta.shortCode());
+            liveAnalyticsHub.dispatch(delta);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.vaibhavgala.url_shortner.service.live;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.analytics.AnalyticsResponseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Multi-node fan-out: the node whose consumer wrote the batch publishes each delta on a
+ * Redis channel, and every node (including itself) relays it to its local subscribers.
+ * Delivery is best-effort; dashboards resync from /api/analytics on reconnect.
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisClickDeltaPublisher implements ClickDeltaPublisher, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisClickDeltaPublisher.class);
+    private static final String CHANNEL = "analytics:deltas";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private LiveAnalyticsHub liveAnalyticsHub;
+
+    @Autowired
+    private AnalyticsResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public void publish(List<UrlClickAnalytics> clicks) {
+        publishDeltas(ClickDelta.fromBatch(clicks).values());
+    }
+
+    @Override
+    public void publishDeltas(Collection<ClickDelta> deltas) {
+        for (ClickDelta delta : deltas) {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(delta));
+            } catch (Exception e) {
+                log.warn("Failed to publish live delta for {}: {}", delta.shortCode(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String json = new String(message.getBody(), StandardCharsets.UTF_8);
+            ClickDelta delta = objectMapper.readValue(json, ClickDelta.class);
+            // Every node drops its cached /api/analytics responses for the code
+            responseCache.invalidate(delta.shortCode());
+            liveAnalyticsHub.dispatch(delta);
+        } catch (Exception e) {
+            log.warn("Dropping malformed live delta: {}", e.getMessage());
+        }
+    }
+}
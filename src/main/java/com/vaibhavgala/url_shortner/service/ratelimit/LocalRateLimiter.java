@@ -0,0 +1,73 @@
+package com.vaibhavgala.url_shortner.service.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-node buckets for lite mode: each bucket is an AtomicLong advanced with CAS, so request
+ * threads never block on each other
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "false")
+public class LocalRateLimiter implements RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public Decision tryAcquire(List<Bucket> buckets) {
+        for (int i = 0; i < buckets.size(); i++) {
+            long waitMicros = take(buckets.get(i));
+            if (waitMicros > 0) {
+                // All or nothing: give back what the earlier buckets handed out
+                for (int j = 0; j < i; j++) {
+                    state(buckets.get(j)).addAndGet(-buckets.get(j).incrementMicros());
+                }
+                return new Decision(false, i, TimeUnit.MICROSECONDS.toMillis(waitMicros) + 1);
+            }
+        }
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * @return 0 if the tokens were taken, otherwise microseconds until enough are available
+     */
+    private long take(Bucket bucket) {
+        AtomicLong state = state(bucket);
+        long burst = bucket.limit().intervalMicros() * bucket.limit().capacity();
+        long increment = bucket.incrementMicros();
+        while (true) {
+            long now = nowMicros();
+            long tat = state.get();
+            long next = Math.max(tat, now) + increment;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (state.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A new bucket is full: its arrival time is in the past whatever System.nanoTime's origin is
+    private AtomicLong state(Bucket bucket) {
+        return buckets.computeIfAbsent(bucket.key(), k -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    // A bucket whose arrival time has passed is full again, so forgetting it changes nothing
+    @Scheduled(fixedDelayString = "${app.ratelimit.cleanup-interval-ms:60000}")
+    public void evictFullBuckets() {
+        long now = nowMicros();
+        buckets.values().removeIf(state -> state.get() <= now);
+    }
+
+    private static long nowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime());
+    }
+}
@@ -0,0 +1,227 @@
+package com.vaibhavgala.url_shortner.service.ratelimit;
+
+import com.vaibhavgala.url_shortner.service.ClientIPService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control for POST /api/shorten, GET /{shortCode} and POST /api/resolve: a
+ * per-client bucket and a global one per endpoint. Runs ahead of the DispatcherServlet, so a
+ * rejected request never reaches the cache, the database or the key generator. A resolve
+ * request costs one token per code in its body.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // One path segment, no extension: a short code rather than a page or static file
+    private static final Pattern REDIRECT_PATH = Pattern.compile("^/[A-Za-z0-9_-]+$");
+
+    private enum Endpoint { SHORTEN, REDIRECT, RESOLVE }
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ClientIPService clientIPService;
+
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter.Limit shortenPerClient;
+    private final RateLimiter.Limit shortenGlobal;
+    private final RateLimiter.Limit redirectPerClient;
+    private final RateLimiter.Limit redirectGlobal;
+    private final RateLimiter.Limit resolvePerClient;
+    private final RateLimiter.Limit resolveGlobal;
+    private final int maxResolveBodyBytes;
+    private final ConcurrentHashMap<String, Counter> decisions = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           @Value("${app.ratelimit.shorten.per-client.capacity:20}") long shortenClientCapacity,
+                           @Value("${app.ratelimit.shorten.per-client.refill-per-second:1}") double shortenClientRefill,
+                           @Value("${app.ratelimit.shorten.global.capacity:1000}") long shortenGlobalCapacity,
+                           @Value("${app.ratelimit.shorten.global.refill-per-second:500}") double shortenGlobalRefill,
+                           @Value("${app.ratelimit.redirect.per-client.capacity:200}") long redirectClientCapacity,
+                           @Value("${app.ratelimit.redirect.per-client.refill-per-second:50}") double redirectClientRefill,
+                           @Value("${app.ratelimit.redirect.global.capacity:50000}") long redirectGlobalCapacity,
+                           @Value("${app.ratelimit.redirect.global.refill-per-second:20000}") double redirectGlobalRefill,
+                           @Value("${app.ratelimit.resolve.per-client.capacity:20000}") long resolveClientCapacity,
+                           @Value("${app.ratelimit.resolve.per-client.refill-per-second:2000}") double resolveClientRefill,
+                           @Value("${app.ratelimit.resolve.global.capacity:500000}") long resolveGlobalCapacity,
+                           @Value("${app.ratelimit.resolve.global.refill-per-second:200000}") double resolveGlobalRefill,
+                           @Value("${app.ratelimit.resolve.max-body-bytes:1048576}") int maxResolveBodyBytes) {
+        this.meterRegistry = meterRegistry;
+        this.shortenPerClient = new RateLimiter.Limit(shortenClientCapacity, shortenClientRefill);
+        this.shortenGlobal = new RateLimiter.Limit(shortenGlobalCapacity, shortenGlobalRefill);
+        this.redirectPerClient = new RateLimiter.Limit(redirectClientCapacity, redirectClientRefill);
+        this.redirectGlobal = new RateLimiter.Limit(redirectGlobalCapacity, redirectGlobalRefill);
+        this.resolvePerClient = new RateLimiter.Limit(resolveClientCapacity, resolveClientRefill);
+        this.resolveGlobal = new RateLimiter.Limit(resolveGlobalCapacity, resolveGlobalRefill);
+        this.maxResolveBodyBytes = maxResolveBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpointOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Endpoint endpoint = endpointOf(request);
+        String name = endpoint.name().toLowerCase();
+        String clientIp = clientIPService.getClientKey(request);
+
+        long cost = 1;
+        if (endpoint == Endpoint.RESOLVE) {
+            // Read here to count the codes; the controller reads the same bytes again
+            byte[] body = request.getInputStream().readNBytes(maxResolveBodyBytes + 1);
+            if (body.length > maxResolveBodyBytes) {
+                record(name, "too_large");
+                response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\":\"Request body too large\"}");
+                return;
+            }
+            cost = Math.max(1, countCodes(body));
+            request = new CachedBodyRequest(request, body);
+        }
+
+        List<RateLimiter.Bucket> buckets = switch (endpoint) {
+            case SHORTEN -> List.of(new RateLimiter.Bucket("rl:" + name + ":client:" + clientIp, shortenPerClient),
+                    new RateLimiter.Bucket("rl:" + name + ":global", shortenGlobal));
+            case REDIRECT -> List.of(new RateLimiter.Bucket("rl:" + name + ":client:" + clientIp, redirectPerClient),
+                    new RateLimiter.Bucket("rl:" + name + ":global", redirectGlobal));
+            case RESOLVE -> List.of(new RateLimiter.Bucket("rl:" + name + ":client:" + clientIp, resolvePerClient, cost),
+                    new RateLimiter.Bucket("rl:" + name + ":global", resolveGlobal, cost));
+        };
+
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(buckets);
+        if (decision.allowed()) {
+            record(name, "allowed");
+            chain.doFilter(request, response);
+            return;
+        }
+
+        record(name, decision.rejectedBucket() == 0 ? "client_limited" : "global_limited");
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfterSeconds + "s\"}");
+    }
+
+    // Classified on the path handler mapping routes on (decoded, ;parameters removed), so
+    // /api/shorten;x or a percent-encoded short code lands in the same buckets as the plain form
+    private static Endpoint endpointOf(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+        if ("POST".equals(request.getMethod()) && path.equals("/api/shorten")) {
+            return Endpoint.SHORTEN;
+        }
+        if ("POST".equals(request.getMethod()) && path.equals("/api/resolve")) {
+            return Endpoint.RESOLVE;
+        }
+        // /analytics is the dashboard page (and a reserved alias)
+        if ("GET".equals(request.getMethod()) && REDIRECT_PATH.matcher(path).matches() && !path.equals("/analytics")) {
+            return Endpoint.REDIRECT;
+        }
+        return null;
+    }
+
+    // The body is a JSON array of codes, and codes contain no quotes: two quotes per code
+    private static long countCodes(byte[] body) {
+        long quotes = 0;
+        for (byte b : body) {
+            if (b == '"') {
+                quotes++;
+            }
+        }
+        return quotes / 2;
+    }
+
+    private void record(String endpoint, String result) {
+        decisions.computeIfAbsent(endpoint + ":" + result, k -> Counter.builder("ratelimit.decisions")
+                .description("Rate limiter decisions per endpoint")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * Replays a body the filter has already read
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Body already read");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
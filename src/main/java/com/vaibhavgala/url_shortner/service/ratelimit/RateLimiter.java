@@ -0,0 +1,47 @@
+package com.vaibhavgala.url_shortner.service.ratelimit;
+
+import java.util.List;
+
+/**
+ * Token buckets kept as GCRA state: one "theoretical arrival time" per bucket, advanced by
+ * one emission interval per request and allowed to run at most capacity intervals ahead of
+ * now. Same admission decisions as a token bucket refilled continuously, with a single
+ * number to update.
+ */
+public interface RateLimiter {
+
+    record Limit(long capacity, double refillPerSecond) {
+        public long intervalMicros() {
+            return Math.max(1, Math.round(1_000_000 / refillPerSecond));
+        }
+    }
+
+    /**
+     * @param cost tokens to take, e.g. the number of codes in a batch request
+     */
+    record Bucket(String key, Limit limit, long cost) {
+        public Bucket(String key, Limit limit) {
+            this(key, limit, 1);
+        }
+
+        /**
+         * How far one acquire advances the arrival time; a cost above capacity is charged as a
+         * full bucket, so it can still pass once the bucket has refilled
+         */
+        public long incrementMicros() {
+            return limit.intervalMicros() * Math.min(cost, limit.capacity());
+        }
+    }
+
+    /**
+     * @param rejectedBucket index into the buckets passed to tryAcquire, -1 when allowed
+     */
+    record Decision(boolean allowed, int rejectedBucket, long retryAfterMillis) {
+        static final Decision ALLOWED = new Decision(true, -1, 0);
+    }
+
+    /**
+     * Takes cost tokens from every bucket, or none at all if any of them has too few
+     */
+    Decision tryAcquire(List<Bucket> buckets);
+}
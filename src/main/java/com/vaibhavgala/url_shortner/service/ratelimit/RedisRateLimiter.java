@@ -0,0 +1,86 @@
+package com.vaibhavgala.url_shortner.service.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster-wide buckets: every bucket of a request is checked and advanced by one Lua script,
+ * so the decision is atomic across nodes and costs a single round trip. The clock is Redis
+ * TIME, which keeps nodes with skewed clocks consistent. If Redis is unreachable the request
+ * is let through rather than failing redirects.
+ */
+@Service
+@ConditionalOnProperty(name = "app.features.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisRateLimiter.class);
+
+    // KEYS = buckets, ARGV = increment (interval times cost) and burst (microseconds) per bucket.
+    // Returns {0, 0} when allowed, else {1-based bucket index, microseconds to wait}.
+    private static final RedisScript<List> ACQUIRE = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local arrivals = {}
+            for i, key in ipairs(KEYS) do
+                local increment = tonumber(ARGV[i * 2 - 1])
+                local burst = tonumber(ARGV[i * 2])
+                local tat = math.max(tonumber(redis.call('GET', key) or now), now)
+                local wait = tat + increment - now - burst
+                if wait > 0 then
+                    return {i, math.ceil(wait)}
+                end
+                arrivals[i] = tat + increment
+            end
+            for i, key in ipairs(KEYS) do
+                redis.call('SET', key, string.format('%d', arrivals[i]), 'PX', math.ceil((arrivals[i] - now) / 1000) + 1000)
+            end
+            return {0, 0}
+            """, List.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    private final Counter failures;
+
+    public RedisRateLimiter(MeterRegistry meterRegistry) {
+        this.failures = Counter.builder("ratelimit.redis.failures")
+                .description("Rate limit checks let through because Redis could not be reached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Decision tryAcquire(List<Bucket> buckets) {
+        List<String> keys = new ArrayList<>(buckets.size());
+        List<String> args = new ArrayList<>(buckets.size() * 2);
+        for (Bucket bucket : buckets) {
+            keys.add(bucket.key());
+            args.add(Long.toString(bucket.incrementMicros()));
+            args.add(Long.toString(bucket.limit().intervalMicros() * bucket.limit().capacity()));
+        }
+
+        try {
+            List<?> result = redisTemplate.execute(ACQUIRE, keys, args.toArray());
+            long rejected = ((Number) result.get(0)).longValue();
+            if (rejected == 0) {
+                return Decision.ALLOWED;
+            }
+            long waitMicros = ((Number) result.get(1)).longValue();
+            return new Decision(false, (int) rejected - 1, waitMicros / 1000 + 1);
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("⚠️ Rate limit check failed, allowing request: {}", e.getMessage());
+            return Decision.ALLOWED;
+        }
+    }
+}
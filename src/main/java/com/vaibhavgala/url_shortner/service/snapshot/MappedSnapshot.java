@@ -0,0 +1,142 @@
+package com.vaibhavgala.url_shortner.service.snapshot;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only, memory-mapped snapshot of live mappings. Lookups binary-search the offset index
+ * and compare keys in place in the mapping, so nothing but the URL of a hit is copied onto
+ * the heap and the page cache is shared between processes.
+ *
+ * <pre>
+ * header   magic int, version int, count long, indexOffset long, exportedAtMillis long
+ * records  keyLength u8, key UTF-8, expiresAtMillis long (Long.MAX_VALUE = never), urlLength int, url UTF-8
+ * index    count longs at indexOffset: record offsets in short code byte order
+ * </pre>
+ *
+ * All numbers big endian. The mapping is released when the snapshot becomes unreachable,
+ * so a swapped-out snapshot stays valid for lookups still running on it.
+ */
+public final class MappedSnapshot {
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Path path;
+    private final MemorySegment segment;
+    private final long count;
+    private final long indexOffset;
+    private final long exportedAtMillis;
+
+    private MappedSnapshot(Path path, MemorySegment segment) {
+        this.path = path;
+        this.segment = segment;
+        if (segment.byteSize() < SnapshotWriter.HEADER_BYTES
+                || segment.get(INT, 0) != SnapshotWriter.MAGIC
+                || segment.get(INT, 4) != SnapshotWriter.VERSION) {
+            throw new IllegalArgumentException("Not a version " + SnapshotWriter.VERSION + " snapshot: " + path);
+        }
+        this.count = segment.get(LONG, 8);
+        this.indexOffset = segment.get(LONG, 16);
+        this.exportedAtMillis = segment.get(LONG, 24);
+        if (indexOffset + count * Long.BYTES != segment.byteSize()) {
+            throw new IllegalArgumentException("Truncated snapshot: " + path);
+        }
+    }
+
+    public static MappedSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Auto arena: unmapped by the GC once no reader holds the snapshot
+            return new MappedSnapshot(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto()));
+        }
+    }
+
+    /**
+     * @return the URL, or null if the code is unknown or its link expired by nowMillis
+     */
+    public String find(String shortCode, long nowMillis) {
+        byte[] key = shortCode.getBytes(StandardCharsets.UTF_8);
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long record = segment.get(LONG, indexOffset + mid * Long.BYTES);
+            int cmp = compareKey(record, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return urlAt(record, nowMillis);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Every record in key order, expired ones included (expiresAtMillis passed along)
+     */
+    public void forEach(BiConsumer<String, Entry> action) {
+        for (long i = 0; i < count; i++) {
+            long record = segment.get(LONG, indexOffset + i * Long.BYTES);
+            int keyLength = Byte.toUnsignedInt(segment.get(ValueLayout.JAVA_BYTE, record));
+            String key = string(record + 1, keyLength);
+            long expiresAt = segment.get(LONG, record + 1 + keyLength);
+            int urlLength = segment.get(INT, record + 1 + keyLength + 8);
+            action.accept(key, new Entry(string(record + 1 + keyLength + 12, urlLength), expiresAt));
+        }
+    }
+
+    public record Entry(String url, long expiresAtMillis) {
+        public boolean isLive(long nowMillis) {
+            return expiresAtMillis > nowMillis;
+        }
+    }
+
+    // Unsigned byte comparison of the record's key with key
+    private int compareKey(long record, byte[] key) {
+        int keyLength = Byte.toUnsignedInt(segment.get(ValueLayout.JAVA_BYTE, record));
+        int common = Math.min(keyLength, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(segment.get(ValueLayout.JAVA_BYTE, record + 1 + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(keyLength, key.length);
+    }
+
+    private String urlAt(long record, long nowMillis) {
+        int keyLength = Byte.toUnsignedInt(segment.get(ValueLayout.JAVA_BYTE, record));
+        long expiresAt = segment.get(LONG, record + 1 + keyLength);
+        if (expiresAt <= nowMillis) {
+            return null;
+        }
+        int urlLength = segment.get(INT, record + 1 + keyLength + 8);
+        return string(record + 1 + keyLength + 12, urlLength);
+    }
+
+    private String string(long offset, int length) {
+        return new String(segment.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long exportedAtMillis() {
+        return exportedAtMillis;
+    }
+}
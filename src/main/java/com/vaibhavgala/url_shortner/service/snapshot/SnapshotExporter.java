@@ -0,0 +1,114 @@
+package com.vaibhavgala.url_shortner.service.snapshot;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+import com.vaibhavgala.url_shortner.repo.UrlMappingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exports live url mappings for edge nodes (see EdgeApplication): a full snapshot every
+ * full-interval, and in between a delta of the mappings created since the previous export.
+ * Enable it on one node only; edge nodes read the directory (a shared volume, or synced to them).
+ */
+@Service
+@ConditionalOnProperty(name = "app.snapshot.export.enabled", havingValue = "true")
+public class SnapshotExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotExporter.class);
+
+    @Autowired
+    private UrlMappingStore store;
+
+    private final Path directory;
+
+    @Value("${app.snapshot.full-interval-ms:3600000}")
+    private long fullIntervalMillis;
+
+    // Deltas re-read this far back, for mappings committed a little after their created_at
+    @Value("${app.snapshot.delta-overlap-ms:30000}")
+    private long deltaOverlapMillis;
+
+    @Value("${app.snapshot.fetch-size:5000}")
+    private int fetchSize;
+
+    // Full snapshots kept (with their deltas) for edge nodes still swapping from an older one
+    @Value("${app.snapshot.keep:2}")
+    private int keep;
+
+    public SnapshotExporter(@Value("${app.snapshot.dir:${java.io.tmpdir}/snaplink-snapshots}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.delta-interval-ms:60000}")
+    public void export() {
+        try {
+            Files.createDirectories(directory);
+            List<SnapshotFiles.SnapshotFile> fulls = SnapshotFiles.list(directory, SnapshotFiles.FULL);
+            long now = System.currentTimeMillis();
+            if (fulls.isEmpty() || now - fulls.getLast().exportedAtMillis() >= fullIntervalMillis) {
+                exportFull(now);
+            } else {
+                exportDelta(now, Math.max(fulls.getLast().exportedAtMillis(), lastDeltaMillis()));
+            }
+        } catch (Exception e) {
+            log.error("❌ Snapshot export failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void exportFull(long now) throws IOException {
+        long started = System.nanoTime();
+        long count = write(SnapshotFiles.FULL, now, null);
+        log.info("📸 Exported snapshot of {} mappings in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+        prune();
+    }
+
+    private void exportDelta(long now, long previousExportMillis) throws IOException {
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(previousExportMillis - deltaOverlapMillis),
+                ZoneId.systemDefault());
+        long count = write(SnapshotFiles.DELTA, now, since);
+        log.debug("📸 Exported delta of {} mappings created since {}", count, since);
+    }
+
+    private long write(String kind, long exportedAtMillis, LocalDateTime createdSince) throws IOException {
+        try (Stream<UrlMapping> mappings = store.streamLive(createdSince, fetchSize)) {
+            return SnapshotWriter.write(SnapshotFiles.path(directory, kind, exportedAtMillis), exportedAtMillis,
+                    mappings.iterator());
+        }
+    }
+
+    private long lastDeltaMillis() throws IOException {
+        List<SnapshotFiles.SnapshotFile> deltas = SnapshotFiles.list(directory, SnapshotFiles.DELTA);
+        return deltas.isEmpty() ? 0 : deltas.getLast().exportedAtMillis();
+    }
+
+    // Drops full snapshots beyond the newest `keep`, and deltas older than the oldest one kept
+    private void prune() throws IOException {
+        List<SnapshotFiles.SnapshotFile> fulls = SnapshotFiles.list(directory, SnapshotFiles.FULL);
+        if (fulls.size() <= keep) {
+            return;
+        }
+        long oldestKept = fulls.get(fulls.size() - keep).exportedAtMillis();
+        for (SnapshotFiles.SnapshotFile full : fulls.subList(0, fulls.size() - keep)) {
+            Files.deleteIfExists(full.path());
+        }
+        for (SnapshotFiles.SnapshotFile delta : SnapshotFiles.list(directory, SnapshotFiles.DELTA)) {
+            if (delta.exportedAtMillis() < oldestKept) {
+                Files.deleteIfExists(delta.path());
+            }
+        }
+    }
+}
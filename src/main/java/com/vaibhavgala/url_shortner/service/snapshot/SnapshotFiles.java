@@ -0,0 +1,52 @@
+package com.vaibhavgala.url_shortner.service.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Naming of snapshot files in the snapshot directory: snapshot-&lt;exportedAtMillis&gt;.snap for
+ * full exports, delta-&lt;exportedAtMillis&gt;.snap for mappings created since the previous export.
+ * Files only appear under these names once complete (written as .tmp, then renamed).
+ */
+public final class SnapshotFiles {
+
+    public static final String FULL = "snapshot-";
+    public static final String DELTA = "delta-";
+    static final String SUFFIX = ".snap";
+
+    private SnapshotFiles() {
+    }
+
+    public record SnapshotFile(Path path, long exportedAtMillis) {
+    }
+
+    public static Path path(Path directory, String kind, long exportedAtMillis) {
+        return directory.resolve(kind + exportedAtMillis + SUFFIX);
+    }
+
+    /**
+     * Complete files of one kind, oldest first
+     */
+    public static List<SnapshotFile> list(Path directory, String kind) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(kind) && name.endsWith(SUFFIX);
+                    })
+                    .map(file -> {
+                        String name = file.getFileName().toString();
+                        return new SnapshotFile(file, Long.parseLong(name.substring(kind.length(), name.length() - SUFFIX.length())));
+                    })
+                    .sorted(Comparator.comparingLong(SnapshotFile::exportedAtMillis))
+                    .toList();
+        }
+    }
+}
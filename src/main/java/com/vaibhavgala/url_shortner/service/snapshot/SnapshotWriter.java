@@ -0,0 +1,95 @@
+package com.vaibhavgala.url_shortner.service.snapshot;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.Iterator;
+
+/**
+ * Writes mappings, already in short code byte order, as a snapshot file (see MappedSnapshot
+ * for the layout). Records and the offset index are streamed to disk, so memory use does
+ * not depend on the number of mappings.
+ */
+public final class SnapshotWriter {
+
+    static final int MAGIC = 0x534C534E; // "SLSN"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private SnapshotWriter() {
+    }
+
+    /**
+     * @return number of mappings written
+     */
+    public static long write(Path target, long exportedAtMillis, Iterator<UrlMapping> mappings) throws IOException {
+        Path data = target.resolveSibling(target.getFileName() + ".tmp");
+        Path index = target.resolveSibling(target.getFileName() + ".idx.tmp");
+        try {
+            long count = 0;
+            long position = HEADER_BYTES;
+            String previous = null;
+            try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(data), 1 << 16));
+                 DataOutputStream offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index), 1 << 16))) {
+                records.write(new byte[HEADER_BYTES]);
+                while (mappings.hasNext()) {
+                    UrlMapping mapping = mappings.next();
+                    byte[] key = mapping.getShortCode().getBytes(StandardCharsets.UTF_8);
+                    byte[] url = mapping.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+                    if (key.length > 255) {
+                        continue;
+                    }
+                    if (previous != null && previous.compareTo(mapping.getShortCode()) >= 0) {
+                        throw new IllegalArgumentException("Mappings not in short code order at " + mapping.getShortCode());
+                    }
+                    previous = mapping.getShortCode();
+
+                    offsets.writeLong(position);
+                    records.writeByte(key.length);
+                    records.write(key);
+                    records.writeLong(mapping.getExpiresAt() != null
+                            ? mapping.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                            : NO_EXPIRY);
+                    records.writeInt(url.length);
+                    records.write(url);
+                    position += 1 + key.length + 8 + 4 + url.length;
+                    count++;
+                }
+            }
+
+            try (FileChannel out = FileChannel.open(data, StandardOpenOption.WRITE);
+                 FileChannel in = FileChannel.open(index, StandardOpenOption.READ)) {
+                long indexOffset = out.size();
+                out.position(indexOffset);
+                for (long transferred = 0; transferred < in.size(); ) {
+                    transferred += in.transferTo(transferred, in.size() - transferred, out);
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(count)
+                        .putLong(indexOffset)
+                        .putLong(exportedAtMillis)
+                        .flip();
+                out.write(header, 0);
+                out.force(true);
+            }
+            Files.move(data, target, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(index);
+            Files.deleteIfExists(data);
+        }
+    }
+}
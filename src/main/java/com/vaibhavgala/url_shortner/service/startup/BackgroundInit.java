@@ -0,0 +1,46 @@
+package com.vaibhavgala.url_shortner.service.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Builds an expensive resource off the startup thread, so context refresh doesn't wait for
+ * it. Callers join the future on first use; readiness waits for it via
+ * StartupResourcesHealthIndicator. A resource that fails to build stops the JVM, as it would
+ * have failed startup had it been built in place.
+ */
+public final class BackgroundInit {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundInit.class);
+
+    private BackgroundInit() {
+    }
+
+    /**
+     * @param background false builds the resource right away on the calling thread
+     */
+    public static <T> CompletableFuture<T> start(String name, boolean background, Supplier<T> init) {
+        if (!background) {
+            return CompletableFuture.completedFuture(init.get());
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Thread.ofPlatform().name("init-" + name).daemon().start(() -> {
+            try {
+                future.complete(init.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                // Otherwise every caller joining the future would fail, for as long as the node runs
+                log.error("❌ Background init of {} failed, shutting down", name, t);
+                System.exit(1);
+            }
+        });
+        return future;
+    }
+
+    public static boolean isReady(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+}
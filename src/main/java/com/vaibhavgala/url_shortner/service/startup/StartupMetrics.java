@@ -0,0 +1,54 @@
+package com.vaibhavgala.url_shortner.service.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time from JVM start to application ready and to the first served redirect, the number
+ * that matters when a node is added under load
+ */
+@Component
+public class StartupMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final AtomicLong readyMillis = new AtomicLong(-1);
+    private final AtomicLong firstRedirectMillis = new AtomicLong(-1);
+
+    public StartupMetrics(MeterRegistry meterRegistry) {
+        TimeGauge.builder("app.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("JVM start to ApplicationReadyEvent")
+                .register(meterRegistry);
+        TimeGauge.builder("app.startup.first.redirect", firstRedirectMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("JVM start to the first redirect served (-1 until then)")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMillis.set(sinceJvmStart());
+        log.info("⏱️ Application ready {} ms after JVM start", readyMillis.get());
+    }
+
+    /**
+     * Called for every redirect; only the first one does any work
+     */
+    public void redirectServed() {
+        if (firstRedirectMillis.get() < 0 && firstRedirectMillis.compareAndSet(-1, sinceJvmStart())) {
+            log.info("⏱️ First redirect served {} ms after JVM start", firstRedirectMillis.get());
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,34 @@
+package com.vaibhavgala.url_shortner.service.startup;
+
+import com.vaibhavgala.url_shortner.service.GeoIPService;
+import com.vaibhavgala.url_shortner.service.ingest.ClickEnrichmentService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * OUT_OF_SERVICE until the background-loaded UA parser and GeoIP database are ready;
+ * part of the readiness group, so no traffic is routed to a node that would stall on them
+ */
+@Component("startupResources")
+public class StartupResourcesHealthIndicator implements HealthIndicator {
+
+    private final ClickEnrichmentService enrichmentService;
+    private final GeoIPService geoIpService;
+
+    public StartupResourcesHealthIndicator(ClickEnrichmentService enrichmentService, GeoIPService geoIpService) {
+        this.enrichmentService = enrichmentService;
+        this.geoIpService = geoIpService;
+    }
+
+    @Override
+    public Health health() {
+        boolean uaParser = enrichmentService.isReady();
+        boolean geoIp = geoIpService.isReady();
+        Health.Builder builder = uaParser && geoIp ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("uaParser", uaParser ? "ready" : "loading")
+                .withDetail("geoIp", geoIp ? "ready" : "loading")
+                .build();
+    }
+}
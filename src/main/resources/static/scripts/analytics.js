@@ -76,6 +76,9 @@ class CommandCenter {
         this.activeFilters   = [];   // active filter terms
         this.charts = {};
         this.isDemoMode = false;
+        this.liveSource  = null;     // EventSource for /api/analytics/{code}/stream
+        this.liveData    = null;     // last rendered payload, live deltas are merged into it
+        this.liveRenderPending = false;
         this.init();
     }
 
@@ -208,6 +211,7 @@ class CommandCenter {
 
     async loadAnalytics(code) {
         this.setModalLoading(true);
+        this.stopLiveUpdates();
 
         // Demo mode — no network call needed
         if (code.toLowerCase() === 'demo') {
@@ -235,6 +239,7 @@ class CommandCenter {
             }
             const data = await res.json();
             this.render(code, data, false);
+            this.startLiveUpdates(code, data);
         } catch (err) {
             this.searchModal.style.display = 'flex';
             this.showModalError(err.message || 'Failed to load analytics.');
@@ -243,6 +248,46 @@ class CommandCenter {
         }
     }
 
+    /* ---- Live updates (SSE) ---- */
+    startLiveUpdates(code, data) {
+        if (!window.EventSource) return;
+        this.liveData = data;
+        this.liveSource = new EventSource(`/api/analytics/${encodeURIComponent(code)}/stream`);
+        this.liveSource.addEventListener('delta', e => {
+            this.applyDelta(JSON.parse(e.data));
+            // Coalesce bursts of deltas into one re-render per frame
+            if (!this.liveRenderPending) {
+                this.liveRenderPending = true;
+                requestAnimationFrame(() => {
+                    this.liveRenderPending = false;
+                    this.render(code, this.liveData, false);
+                });
+            }
+        });
+    }
+
+    stopLiveUpdates() {
+        if (this.liveSource) {
+            this.liveSource.close();
+            this.liveSource = null;
+        }
+        this.liveData = null;
+    }
+
+    applyDelta(delta) {
+        const data = this.liveData;
+        if (!data) return;
+        const merge = (pairs = [], additions = []) => {
+            const totals = new Map(pairs.map(([k, v]) => [k, v]));
+            additions.forEach(([k, v]) => totals.set(k, (totals.get(k) || 0) + v));
+            return [...totals.entries()].sort((a, b) => b[1] - a[1]);
+        };
+        data.totalClicks     = (data.totalClicks || 0) + delta.clicks;
+        data.clicksByCountry = merge(data.clicksByCountry, delta.clicksByCountry);
+        data.clicksByDevice  = merge(data.clicksByDevice, delta.clicksByDevice);
+        data.topReferrers    = merge(data.topReferrers, delta.topReferrers);
+    }
+
     render(code, data, isDemo) {
         if (this.emptyState) this.emptyState.style.display = 'none';
         if (this.dashboardContent) this.dashboardContent.style.display = 'block';
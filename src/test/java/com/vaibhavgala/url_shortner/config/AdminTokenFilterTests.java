@@ -0,0 +1,80 @@
+package com.vaibhavgala.url_shortner.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminTokenFilterTests {
+
+    private final AdminTokenFilter filter = new AdminTokenFilter("secret");
+
+    private MockFilterChain chain;
+
+    private MockHttpServletResponse send(AdminTokenFilter filter, String method, String uri, String authorization)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private boolean reachedController() {
+        return chain.getRequest() != null;
+    }
+
+    @Test
+    void adminCallsWithoutATokenAreRejected() throws Exception {
+        MockHttpServletResponse response = send(filter, "POST", "/api/admin/dlq/replay", null);
+        assertEquals(401, response.getStatus());
+        assertEquals("Bearer", response.getHeader(HttpHeaders.WWW_AUTHENTICATE));
+        assertFalse(reachedController());
+    }
+
+    @Test
+    void encodedAndMatrixParameterFormsAreGuardedToo() throws Exception {
+        for (String uri : new String[]{"/api/%61dmin/dlq/replay", "/api/admin;x/shards/rebalance",
+                "/api/admin/shards;x/rebalance", "/api;x/admin/dlq/replay", "//api/admin/shards", "/api/admin"}) {
+            MockHttpServletResponse response = send(filter, "POST", uri, null);
+            assertEquals(401, response.getStatus(), uri);
+            assertFalse(reachedController(), uri);
+        }
+    }
+
+    @Test
+    void theConfiguredTokenIsLetThrough() throws Exception {
+        MockHttpServletResponse response = send(filter, "POST", "/api/admin;x/shards/rebalance", "Bearer secret");
+        assertEquals(200, response.getStatus());
+        assertTrue(reachedController());
+    }
+
+    @Test
+    void aWrongTokenIsForbidden() throws Exception {
+        assertEquals(403, send(filter, "POST", "/api/admin/dlq/replay", "Bearer secreT").getStatus());
+        assertFalse(reachedController());
+        assertEquals(401, send(filter, "POST", "/api/admin/dlq/replay", "Basic c2VjcmV0").getStatus());
+        assertFalse(reachedController());
+    }
+
+    @Test
+    void withoutAConfiguredTokenTheAdminApiIsDisabled() throws Exception {
+        AdminTokenFilter disabled = new AdminTokenFilter("");
+        assertEquals(403, send(disabled, "POST", "/api/admin/dlq/replay", "Bearer ").getStatus());
+        assertFalse(reachedController());
+    }
+
+    @Test
+    void otherPathsAreNotChecked() throws Exception {
+        for (String uri : new String[]{"/abc123", "/api/shorten", "/api/administrator", "/api/analytics/admin"}) {
+            send(filter, "GET", uri, null);
+            assertTrue(reachedController(), uri);
+        }
+    }
+}
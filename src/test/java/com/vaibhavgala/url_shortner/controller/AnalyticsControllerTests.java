@@ -0,0 +1,42 @@
+package com.vaibhavgala.url_shortner.controller;
+
+import com.vaibhavgala.url_shortner.service.analytics.AnalyticsResponseCache;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsControllerTests {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    private final UniqueVisitorService uniqueVisitors = mock(UniqueVisitorService.class);
+    private final AnalyticsResponseCache responseCache = mock(AnalyticsResponseCache.class);
+    private final AnalyticsController controller = new AnalyticsController();
+
+    AnalyticsControllerTests() {
+        ReflectionTestUtils.setField(controller, "uniqueVisitorService", uniqueVisitors);
+        ReflectionTestUtils.setField(controller, "responseCache", responseCache);
+        ReflectionTestUtils.setField(controller, "maxRangeDays", 31L);
+    }
+
+    @Test
+    void anEmptyOrInvertedRangeIsABadRequest() {
+        assertEquals(400, controller.getAnalytics("abc", NOON, NOON, null).getStatusCode().value());
+        assertEquals(400, controller.getAnalytics("abc", NOON, NOON.minusDays(1), null).getStatusCode().value());
+        assertEquals(400, controller.getAnalytics("abc", LocalDateTime.now().plusDays(1), null, null)
+                .getStatusCode().value());
+        verifyNoInteractions(responseCache, uniqueVisitors);
+    }
+
+    @Test
+    void aRangeOverTheLimitIsABadRequest() {
+        assertEquals(400, controller.getAnalytics("abc", NOON.minusDays(32), NOON, null).getStatusCode().value());
+        assertEquals(400, controller.getAnalytics("abc", LocalDateTime.MIN, NOON, null).getStatusCode().value());
+        verifyNoInteractions(responseCache, uniqueVisitors);
+    }
+}
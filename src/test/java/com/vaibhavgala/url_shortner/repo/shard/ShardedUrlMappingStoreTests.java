@@ -0,0 +1,229 @@
+package com.vaibhavgala.url_shortner.repo.shard;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedUrlMappingStoreTests {
+
+    private static final List<EmbeddedPostgres> databases = new ArrayList<>();
+    private static ShardSet shards;
+
+    private ShardRouter router;
+    private ShardedUrlMappingStore store;
+
+    @BeforeAll
+    static void startDatabases() throws Exception {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            EmbeddedPostgres database = EmbeddedPostgres.start();
+            databases.add(database);
+            dataSources.put("shard" + i, database.getPostgresDatabase());
+        }
+        shards = new ShardSet(dataSources);
+    }
+
+    @AfterAll
+    static void stopDatabases() throws Exception {
+        for (EmbeddedPostgres database : databases) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void resetShards() {
+        for (String name : shards.names()) {
+            shards.get(name).jdbc().execute("DROP TABLE IF EXISTS url_mapping, shard_ring");
+        }
+        shards.createSchema();
+    }
+
+    private void startWithRing(String members) {
+        shards.meta().jdbc().execute("CREATE TABLE shard_ring (id int PRIMARY KEY, members text NOT NULL, target_members text)");
+        shards.meta().jdbc().update("INSERT INTO shard_ring (id, members) VALUES (1, ?)", members);
+        router = new ShardRouter(shards, 128);
+        store = new ShardedUrlMappingStore(shards, router);
+    }
+
+    private List<String> seed(int count) {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String code = "code" + i;
+            store.save(new UrlMapping("https://example.com/" + i, code));
+            codes.add(code);
+        }
+        return codes;
+    }
+
+    private long rowsOn(String shard, String shortCode) {
+        return shards.get(shard).jdbc().queryForObject(
+                "SELECT count(*) FROM url_mapping WHERE short_code = ?", Long.class, shortCode);
+    }
+
+    @Test
+    void routesByShortCodeAndFansOutEverythingElse() {
+        startWithRing("shard0,shard1,shard2");
+        List<String> codes = seed(300);
+
+        ConsistentHashRing ring = router.state().current();
+        for (String code : codes) {
+            assertEquals(1, rowsOn(ring.shardFor(code), code), code);
+            assertTrue(store.existsByShortCode(code));
+        }
+        for (String shard : shards.names()) {
+            long rows = shards.get(shard).jdbc().queryForObject("SELECT count(*) FROM url_mapping", Long.class);
+            assertTrue(rows > 50, shard + " holds only " + rows + " of 300 rows");
+        }
+
+        assertEquals(300, store.count());
+        assertEquals(0, store.countByCustom(true));
+        assertEquals("code42", store.findByOriginalUrl("https://example.com/42").orElseThrow().getShortCode());
+        assertTrue(store.findByShortCode("missing").isEmpty());
+
+        store.incrementClickCountBy("code7", 3);
+        assertEquals(3L, store.findByShortCode("code7").orElseThrow().getClickCount());
+    }
+
+    @Test
+    void rebalanceMovesKeysWhileServingReadsAndClicks() throws Exception {
+        startWithRing("shard0,shard1");
+        List<String> codes = seed(2000);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger clicks = new AtomicInteger();
+        AtomicReference<String> missed = new AtomicReference<>();
+        Thread traffic = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                String code = codes.get(ThreadLocalRandom.current().nextInt(codes.size()));
+                if (store.findByShortCode(code).isEmpty()) {
+                    missed.compareAndSet(null, code);
+                }
+                store.incrementClickCountBy("code0", 1);
+                clicks.incrementAndGet();
+            }
+        });
+
+        ShardRebalancer rebalancer = new ShardRebalancer(shards, router, 100, 0, 0);
+        router.beginRebalance(List.of("shard0", "shard1", "shard2"));
+        rebalancer.run();
+        running.set(false);
+        traffic.join();
+
+        assertNull(missed.get(), "lookup missed during rebalance");
+        assertFalse(router.state().rebalancing());
+        assertEquals(List.of("shard0", "shard1", "shard2"), router.state().current().members());
+
+        ConsistentHashRing ring = router.state().current();
+        for (String code : codes) {
+            for (String shard : shards.names()) {
+                assertEquals(shard.equals(ring.shardFor(code)) ? 1 : 0, rowsOn(shard, code), code + " on " + shard);
+            }
+        }
+        assertEquals(2000, store.count());
+        assertTrue(rebalancer.status().moved() > 0);
+        assertEquals((long) clicks.get(), store.findByShortCode("code0").orElseThrow().getClickCount());
+    }
+
+    /**
+     * Moves one key the way ShardRebalancer does: the target's copy commits before the source's delete
+     */
+    private void moveNow(String shortCode) {
+        String source = router.currentShard(shortCode);
+        UrlMapping row = shards.get(source).jdbc().queryForObject(
+                "SELECT " + ShardedUrlMappingStore.COLUMNS + " FROM url_mapping WHERE short_code = ?",
+                ShardedUrlMappingStore.ROW_MAPPER, shortCode);
+        shards.get(router.writeShard(shortCode)).jdbc()
+                .update(ShardedUrlMappingStore.INSERT, ShardedUrlMappingStore.insertArgs(row));
+        shards.get(source).jdbc().update("DELETE FROM url_mapping WHERE short_code = ?", shortCode);
+    }
+
+    private String movingCode(List<String> codes) {
+        return codes.stream()
+                .filter(code -> !router.currentShard(code).equals(router.writeShard(code)))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void lookupsFindAKeyMovedBetweenTheirShardReads() {
+        startWithRing("shard0,shard1");
+        List<String> codes = seed(200);
+        router.beginRebalance(List.of("shard0", "shard1", "shard2"));
+
+        // The move commits right after the lookup's first shard read
+        String single = movingCode(codes);
+        AtomicBoolean movedSingle = new AtomicBoolean();
+        ShardedUrlMappingStore interleaved = new ShardedUrlMappingStore(shards, router) {
+            @Override
+            Optional<UrlMapping> findOn(String shard, String shortCode) {
+                Optional<UrlMapping> found = super.findOn(shard, shortCode);
+                if (movedSingle.compareAndSet(false, true)) {
+                    moveNow(shortCode);
+                }
+                return found;
+            }
+        };
+        assertTrue(interleaved.findByShortCode(single).isPresent());
+        assertTrue(interleaved.existsByShortCode(single));
+
+        String batched = codes.stream()
+                .filter(code -> !code.equals(single) && !router.currentShard(code).equals(router.writeShard(code)))
+                .findFirst()
+                .orElseThrow();
+        AtomicBoolean movedBatched = new AtomicBoolean();
+        ShardedUrlMappingStore interleavedBatch = new ShardedUrlMappingStore(shards, router) {
+            @Override
+            List<UrlMapping> findAllOn(Map<String, List<String>> codesByShard) {
+                List<UrlMapping> found = super.findAllOn(codesByShard);
+                if (movedBatched.compareAndSet(false, true)) {
+                    moveNow(batched);
+                }
+                return found;
+            }
+        };
+        assertEquals(List.of(batched),
+                interleavedBatch.findByShortCodeIn(List.of(batched)).stream().map(UrlMapping::getShortCode).toList());
+    }
+
+    @Test
+    void clickCountsSurviveAMoveBetweenTheirShardUpdates() {
+        startWithRing("shard0,shard1");
+        List<String> codes = seed(200);
+        router.beginRebalance(List.of("shard0", "shard1", "shard2"));
+
+        String code = movingCode(codes);
+        AtomicBoolean moved = new AtomicBoolean();
+        ShardedUrlMappingStore interleaved = new ShardedUrlMappingStore(shards, router) {
+            @Override
+            int updateCount(String shard, String shortCode, int count) {
+                int updated = super.updateCount(shard, shortCode, count);
+                if (moved.compareAndSet(false, true)) {
+                    moveNow(shortCode);
+                }
+                return updated;
+            }
+        };
+        interleaved.incrementClickCountBy(code, 3);
+        interleaved.incrementClickCountBy(code, 2);
+
+        assertEquals(5L, store.findByShortCode(code).orElseThrow().getClickCount());
+        assertEquals(1, rowsOn(router.writeShard(code), code));
+        assertEquals(0, rowsOn(router.currentShard(code), code));
+    }
+}
@@ -0,0 +1,67 @@
+package com.vaibhavgala.url_shortner.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientIPServiceTests {
+
+    private final ClientIPService behindProxy = new ClientIPService(List.of("10.0.0.0/8", "2001:db8:ffff::/48"));
+
+    private static MockHttpServletRequest request(String remoteAddr, String xForwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc123");
+        request.setRemoteAddr(remoteAddr);
+        if (xForwardedFor != null) {
+            request.addHeader("X-Forwarded-For", xForwardedFor);
+        }
+        return request;
+    }
+
+    @Test
+    void forwardingHeadersAreIgnoredWithoutTrustedProxies() {
+        ClientIPService direct = new ClientIPService(List.of(""));
+        assertEquals("203.0.113.7", direct.getClientIP(request("203.0.113.7", "198.51.100.1")));
+    }
+
+    @Test
+    void forwardingHeadersFromAnUntrustedPeerAreIgnored() {
+        assertEquals("203.0.113.7", behindProxy.getClientIP(request("203.0.113.7", "198.51.100.1")));
+    }
+
+    @Test
+    void behindATrustedProxyTheNearestUntrustedHopIsTheClient() {
+        // The leftmost hop is whatever the client sent; the proxy appended the real peer
+        assertEquals("198.51.100.1", behindProxy.getClientIP(request("10.1.2.3", "6.6.6.6, 198.51.100.1")));
+        assertEquals("198.51.100.1", behindProxy.getClientIP(request("10.1.2.3", "198.51.100.1, 10.9.9.9")));
+    }
+
+    @Test
+    void anUnparseableHopFallsBackToThePeer() {
+        assertEquals("10.1.2.3", behindProxy.getClientIP(request("10.1.2.3", "not-an-ip")));
+        assertEquals("10.1.2.3", behindProxy.getClientIP(request("10.1.2.3", "")));
+    }
+
+    @Test
+    void xRealIpIsUsedWhenEveryForwardedHopIsTrusted() {
+        MockHttpServletRequest request = request("10.1.2.3", "10.4.5.6");
+        request.addHeader("X-Real-IP", "198.51.100.1");
+        assertEquals("198.51.100.1", behindProxy.getClientIP(request));
+    }
+
+    @Test
+    void ipv6ClientsAreKeyedByTheir64() {
+        String key = behindProxy.getClientKey(request("2001:db8:1:2:aaaa::1", null));
+        assertEquals("20010db800010002::/64", key);
+        assertEquals(key, behindProxy.getClientKey(request("2001:db8:1:2:bbbb::9", null)));
+        assertNotEquals(key, behindProxy.getClientKey(request("2001:db8:1:3::1", null)));
+        assertEquals("203.0.113.7", behindProxy.getClientKey(request("203.0.113.7", null)));
+    }
+
+    @Test
+    void trustedIpv6ProxiesAreRecognised() {
+        assertEquals("198.51.100.1", behindProxy.getClientIP(request("2001:db8:ffff::1", "198.51.100.1")));
+    }
+}
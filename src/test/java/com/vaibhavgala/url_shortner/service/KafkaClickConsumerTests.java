@@ -0,0 +1,202 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import com.vaibhavgala.url_shortner.service.events.ClickEvent;
+import com.vaibhavgala.url_shortner.service.events.ClickEventCodec;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import com.vaibhavgala.url_shortner.service.ingest.AdaptiveBatchController;
+import com.vaibhavgala.url_shortner.service.ingest.ClickBatchWriter;
+import com.vaibhavgala.url_shortner.service.ingest.ClickEnrichmentService;
+import com.vaibhavgala.url_shortner.service.ingest.ClickWindow;
+import com.vaibhavgala.url_shortner.service.live.ClickDeltaPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class KafkaClickConsumerTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition(ClickTopics.MAIN, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final ClickBatchWriter writer = mock(ClickBatchWriter.class);
+    private final ClickDeltaPublisher publisher = mock(ClickDeltaPublisher.class);
+    private final UniqueVisitorService uniqueVisitors = mock(UniqueVisitorService.class);
+    private final DeadLetterPublishingRecoverer retryRecoverer = mock(DeadLetterPublishingRecoverer.class);
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer = mock(DeadLetterPublishingRecoverer.class);
+    private final List<KafkaClickConsumer> started = new ArrayList<>();
+
+    KafkaClickConsumerTests() {
+        consumer.assign(List.of(PARTITION));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+    }
+
+    @AfterEach
+    void shutdown() {
+        started.forEach(KafkaClickConsumer::shutdown);
+    }
+
+    /**
+     * A window is due every two events; with maxInFlight 1 each call runs the batch to its commit
+     */
+    private KafkaClickConsumer clickConsumer(int writeThreads, int maxInFlight) {
+        KafkaClickConsumer clickConsumer = new KafkaClickConsumer(meterRegistry, writeThreads, maxInFlight, 0);
+        AdaptiveBatchController batchController = mock(AdaptiveBatchController.class);
+        when(batchController.targetEvents()).thenReturn(2);
+        when(batchController.targetWindowMillis()).thenReturn(Long.MAX_VALUE);
+        ReflectionTestUtils.setField(clickConsumer, "analyticsService", new AnalyticsService());
+        ReflectionTestUtils.setField(clickConsumer, "enrichmentService", mock(ClickEnrichmentService.class));
+        ReflectionTestUtils.setField(clickConsumer, "clickBatchWriter", writer);
+        ReflectionTestUtils.setField(clickConsumer, "batchController", batchController);
+        ReflectionTestUtils.setField(clickConsumer, "uniqueVisitorService", uniqueVisitors);
+        ReflectionTestUtils.setField(clickConsumer, "clickDeltaPublisher", publisher);
+        ReflectionTestUtils.setField(clickConsumer, "retryRecoverer", retryRecoverer);
+        ReflectionTestUtils.setField(clickConsumer, "deadLetterRecoverer", deadLetterRecoverer);
+        started.add(clickConsumer);
+        return clickConsumer;
+    }
+
+    private static ConsumerRecord<String, byte[]> click(long offset, String shortCode) {
+        byte[] payload = ClickEventCodec.encode(new ClickEvent(shortCode, "203.0.113.7", null, null, 1_736_000_000_000L));
+        return new ConsumerRecord<>(ClickTopics.MAIN, 0, offset, shortCode, payload);
+    }
+
+    private static List<ConsumerRecord<String, byte[]>> batch(long firstOffset, String... shortCodes) {
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        for (int i = 0; i < shortCodes.length; i++) {
+            records.add(click(firstOffset + i, shortCodes[i]));
+        }
+        return records;
+    }
+
+    private Long committed() {
+        OffsetAndMetadata committed = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+        return committed == null ? null : committed.offset();
+    }
+
+    private double rewinds() {
+        return meterRegistry.counter("clicks.pipeline.rewinds").count();
+    }
+
+    private static boolean holds(ClickWindow window, String shortCode) {
+        return window.rows().stream().anyMatch(row -> shortCode.equals(row.getShortCode()));
+    }
+
+    @Test
+    void aWindowIsCommittedOnceWritten() {
+        KafkaClickConsumer clickConsumer = clickConsumer(1, 1);
+        clickConsumer.processBatchClickEvents(batch(0, "a", "b"), consumer);
+
+        verify(writer).write(any());
+        verify(uniqueVisitors).recordVisits(anyList());
+        verify(publisher).publishDeltas(anyCollection());
+        assertEquals(2L, committed());
+        assertEquals(0, rewinds());
+    }
+
+    @Test
+    void aFailingLivePublisherStillCommitsTheWindow() {
+        doThrow(new IllegalStateException("sse down")).when(publisher).publishDeltas(anyCollection());
+        KafkaClickConsumer clickConsumer = clickConsumer(1, 1);
+        clickConsumer.processBatchClickEvents(batch(0, "a", "b"), consumer);
+
+        assertEquals(2L, committed());
+        assertEquals(0, rewinds());
+    }
+
+    @Test
+    void rowsHandedToTheRetryTopicAreCommittedPast() {
+        doThrow(new IllegalStateException("constraint")).when(writer).write(any());
+        when(writer.writeIsolated(any())).thenReturn(Map.of(1, new IllegalStateException("bad row")));
+        KafkaClickConsumer clickConsumer = clickConsumer(1, 1);
+        clickConsumer.processBatchClickEvents(batch(0, "a", "b"), consumer);
+
+        verify(retryRecoverer).accept(argThat(record -> record.offset() == 1), any());
+        verify(uniqueVisitors).recordVisits(argThat((List<UrlClickAnalytics> rows) ->
+                rows.size() == 1 && rows.get(0).getShortCode().equals("a")));
+        assertEquals(2L, committed());
+    }
+
+    @Test
+    void aWindowNeitherWrittenNorRetriedIsNotCommittedButReplayed() {
+        KafkaClickConsumer clickConsumer = clickConsumer(1, 1);
+        clickConsumer.processBatchClickEvents(batch(0, "a", "b"), consumer);
+        assertEquals(2L, committed());
+
+        doThrow(new IllegalStateException("db down")).when(writer).write(any());
+        when(writer.writeIsolated(any())).thenReturn(Map.of(0, new IllegalStateException("db down"),
+                1, new IllegalStateException("db down")));
+        doThrow(new KafkaException("broker down")).when(retryRecoverer).accept(any(), any());
+
+        assertDoesNotThrow(() -> clickConsumer.processBatchClickEvents(batch(2, "c", "d"), consumer));
+        assertEquals(2L, committed());
+        assertEquals(2L, consumer.position(PARTITION));
+        assertEquals(1, rewinds());
+
+        // The replayed batch goes through once the database is back
+        reset(writer, retryRecoverer);
+        clickConsumer.processBatchClickEvents(batch(2, "c", "d"), consumer);
+        assertEquals(4L, committed());
+    }
+
+    @Test
+    void aFailedDeadLetterSendReplaysTheBatch() {
+        doThrow(new KafkaException("broker down")).when(deadLetterRecoverer).accept(any(), any());
+        KafkaClickConsumer clickConsumer = clickConsumer(1, 1);
+        List<ConsumerRecord<String, byte[]>> records = List.of(click(0, "a"),
+                new ConsumerRecord<>(ClickTopics.MAIN, 0, 1, "b", "not a click".getBytes(StandardCharsets.UTF_8)));
+
+        assertDoesNotThrow(() -> clickConsumer.processBatchClickEvents(records, consumer));
+        assertNull(committed());
+        assertEquals(0L, consumer.position(PARTITION));
+        assertEquals(1, rewinds());
+        verify(writer, never()).write(any());
+    }
+
+    @Test
+    void aLaterWindowIsNotCommittedPastAnEarlierFailedOne() throws InterruptedException {
+        doAnswer(invocation -> {
+            if (holds(invocation.getArgument(0), "a")) {
+                throw new IllegalStateException("db down");
+            }
+            return null;
+        }).when(writer).write(any());
+        when(writer.writeIsolated(any())).thenAnswer(invocation ->
+                holds(invocation.getArgument(0), "a") ? Map.of(0, new IllegalStateException("db down")) : Map.of());
+        doThrow(new KafkaException("broker down")).when(retryRecoverer).accept(any(), any());
+
+        KafkaClickConsumer clickConsumer = clickConsumer(2, 8);
+        clickConsumer.processBatchClickEvents(batch(0, "a", "b"), consumer);
+        // Lets the first batch finish parsing, so it usually becomes a window of its own
+        Thread.sleep(100);
+        clickConsumer.processBatchClickEvents(batch(2, "c", "d"), consumer);
+        clickConsumer.onIdle(new ListenerContainerIdleEvent(
+                this, this, 0, KafkaClickConsumer.LISTENER_ID + "-0", List.of(PARTITION), consumer, false));
+
+        assertNull(committed());
+        assertEquals(0L, consumer.position(PARTITION));
+        assertEquals(1, rewinds());
+    }
+}
@@ -0,0 +1,150 @@
+package com.vaibhavgala.url_shortner.service;
+
+import com.vaibhavgala.url_shortner.config.KafkaConfig;
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.analytics.UniqueVisitorService;
+import com.vaibhavgala.url_shortner.service.events.ClickEvent;
+import com.vaibhavgala.url_shortner.service.events.ClickEventCodec;
+import com.vaibhavgala.url_shortner.service.events.ClickTopics;
+import com.vaibhavgala.url_shortner.service.ingest.ClickBatchWriter;
+import com.vaibhavgala.url_shortner.service.ingest.ClickEnrichmentService;
+import com.vaibhavgala.url_shortner.service.live.ClickDeltaPublisher;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.converter.ConversionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class KafkaClickRetryConsumerTests {
+
+    private final ClickBatchWriter writer = mock(ClickBatchWriter.class);
+    private final KafkaClickRetryConsumer retryConsumer = new KafkaClickRetryConsumer();
+
+    KafkaClickRetryConsumerTests() {
+        ReflectionTestUtils.setField(retryConsumer, "retryDelayMillis", 300L);
+        ReflectionTestUtils.setField(retryConsumer, "analyticsService", new AnalyticsService());
+        ReflectionTestUtils.setField(retryConsumer, "enrichmentService", mock(ClickEnrichmentService.class));
+        ReflectionTestUtils.setField(retryConsumer, "clickBatchWriter", writer);
+        ReflectionTestUtils.setField(retryConsumer, "uniqueVisitorService", mock(UniqueVisitorService.class));
+        ReflectionTestUtils.setField(retryConsumer, "clickDeltaPublisher", mock(ClickDeltaPublisher.class));
+    }
+
+    private static ConsumerRecord<String, byte[]> retryRecord(byte[] payload, long timestamp, Long sentAt) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(ClickTopics.RETRY, 0, 0, "abc", payload);
+        record = new ConsumerRecord<>(record.topic(), record.partition(), record.offset(), timestamp,
+                record.timestampType(), record.serializedKeySize(), record.serializedValueSize(), record.key(),
+                record.value(), record.headers(), record.leaderEpoch());
+        if (sentAt != null) {
+            record.headers().add(ClickTopics.RETRY_SENT_AT_HEADER, ByteBuffer.allocate(8).putLong(sentAt).array());
+        }
+        return record;
+    }
+
+    private static byte[] click(String shortCode) {
+        return ClickEventCodec.encode(new ClickEvent(shortCode, "203.0.113.7", null, null, 1_736_000_000_000L));
+    }
+
+    private static DefaultErrorHandler retryErrorHandler(DeadLetterPublishingRecoverer deadLetterRecoverer) {
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(kafkaConfig, "groupId", "click-tracking");
+        return (DefaultErrorHandler) ReflectionTestUtils.getField(
+                kafkaConfig.retryListenerContainerFactory(deadLetterRecoverer), "commonErrorHandler");
+    }
+
+    @Test
+    void undecodablePayloadsAreNotRetryable() {
+        long old = System.currentTimeMillis() - 60_000;
+        for (byte[] payload : new byte[][]{new byte[0], "not a click".getBytes(StandardCharsets.UTF_8),
+                new byte[]{(byte) 0xC1, 0x7F, 0, 0}, "{\"shortCode\":".getBytes(StandardCharsets.UTF_8)}) {
+            assertThrows(ConversionException.class, () -> retryConsumer.processRetry(retryRecord(payload, old, old)));
+        }
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void anUndecodableRecordIsDeadLetteredWithoutBackoff() {
+        DeadLetterPublishingRecoverer deadLetterRecoverer = mock(DeadLetterPublishingRecoverer.class);
+        DefaultErrorHandler errorHandler = retryErrorHandler(deadLetterRecoverer);
+        ConsumerRecord<String, byte[]> record = retryRecord(new byte[0], 0, 0L);
+        Exception thrown = new ListenerExecutionFailedException("listener failed",
+                new ConversionException("Undecodable click", new IllegalArgumentException("Empty click event payload")));
+
+        long started = System.nanoTime();
+        assertTrue(errorHandler.handleOne(thrown, record, mock(Consumer.class), mock(MessageListenerContainer.class)));
+        assertTrue(System.nanoTime() - started < 500_000_000L, "dead-lettered without waiting for the backoff");
+        verify(deadLetterRecoverer).accept(eq(record), any(), any());
+    }
+
+    @Test
+    void aFailedWriteIsRetriedBeforeItIsDeadLettered() {
+        DeadLetterPublishingRecoverer deadLetterRecoverer = mock(DeadLetterPublishingRecoverer.class);
+        DefaultErrorHandler errorHandler = retryErrorHandler(deadLetterRecoverer);
+        ConsumerRecord<String, byte[]> record = retryRecord(click("abc"), 0, 0L);
+        Exception thrown = new ListenerExecutionFailedException("listener failed",
+                new DataAccessResourceFailureException("db down"));
+
+        assertFalse(errorHandler.handleOne(thrown, record, mock(Consumer.class), mock(MessageListenerContainer.class)));
+        verifyNoInteractions(deadLetterRecoverer);
+    }
+
+    @Test
+    void theRetryDelayCountsFromWhenTheRecordWasSentToTheRetryTopic() throws InterruptedException {
+        // The record's own timestamp is the original click's, long past
+        long sentAt = System.currentTimeMillis();
+        long started = System.currentTimeMillis();
+        retryConsumer.processRetry(retryRecord(click("abc"), sentAt - 3_600_000, sentAt));
+
+        assertTrue(System.currentTimeMillis() - started >= 250, "waited for the retry delay");
+        verify(writer).writeSingle(any(UrlClickAnalytics.class));
+    }
+
+    @Test
+    void withoutTheHeaderTheRecordTimestampIsUsed() throws InterruptedException {
+        long started = System.currentTimeMillis();
+        retryConsumer.processRetry(retryRecord(click("abc"), started - 60_000, null));
+
+        assertTrue(System.currentTimeMillis() - started < 250, "an old record is retried at once");
+        verify(writer).writeSingle(any(UrlClickAnalytics.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void theRetryRecovererStampsTheSendTime() {
+        KafkaTemplate<String, byte[]> template = mock(KafkaTemplate.class);
+        ProducerFactory<String, byte[]> producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.getConfigurationProperties()).thenReturn(Map.of());
+        when(template.getProducerFactory()).thenReturn(producerFactory);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        DeadLetterPublishingRecoverer recoverer = new KafkaConfig().clickRetryRecoverer(template);
+
+        long before = System.currentTimeMillis();
+        ConsumerRecord<String, byte[]> failed = new ConsumerRecord<>(ClickTopics.MAIN, 0, 7, "abc", click("abc"));
+        recoverer.accept(failed, new IllegalStateException("db down"));
+
+        verify(template).send(argThat((ProducerRecord<String, byte[]> sent) -> {
+            Header sentAt = sent.headers().lastHeader(ClickTopics.RETRY_SENT_AT_HEADER);
+            return sent.topic().equals(ClickTopics.RETRY) && sentAt != null
+                    && ByteBuffer.wrap(sentAt.value()).getLong() >= before;
+        }));
+    }
+}
@@ -0,0 +1,97 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ClickExportServiceTests {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ClickExportService exportService = new ClickExportService(new SimpleMeterRegistry(), 2);
+
+    ClickExportServiceTests() {
+        ReflectionTestUtils.setField(exportService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper());
+    }
+
+    @SuppressWarnings("unchecked")
+    private String export(ClickExportService.Format format, UrlClickAnalytics... clicks) throws IOException {
+        when(jdbcTemplate.queryForStream(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(Stream.of(clicks));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export("abc", NOON.minusDays(1), NOON, format, false, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static UrlClickAnalytics click(String userAgent, String referer) {
+        UrlClickAnalytics click = new UrlClickAnalytics();
+        click.setTimestamp(NOON);
+        click.setIpAddress("203.0.113.7");
+        click.setUserAgent(userAgent);
+        click.setReferer(referer);
+        return click;
+    }
+
+    @Test
+    void noSlotIsHandedOutWhenAllAreInUse() {
+        ClickExportService.Slot first = exportService.tryAcquire();
+        ClickExportService.Slot second = exportService.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(exportService.tryAcquire());
+
+        first.close();
+        assertNotNull(exportService.tryAcquire());
+    }
+
+    @Test
+    void closingASlotTwiceReleasesItOnce() {
+        ClickExportService.Slot slot = exportService.tryAcquire();
+        slot.close();
+        slot.close();
+
+        assertNotNull(exportService.tryAcquire());
+        assertNotNull(exportService.tryAcquire());
+        assertNull(exportService.tryAcquire());
+    }
+
+    @Test
+    void csvFieldsAreQuotedAndFormulasEscaped() throws IOException {
+        String csv = export(ClickExportService.Format.CSV,
+                click("Mozilla/5.0 (X11, Linux)", "=HYPERLINK(\"http://evil\")"), click("-1+1", null));
+
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("timestamp,ip_address,user_agent,referer,"));
+        assertTrue(lines[1].startsWith(NOON + ",203.0.113.7,\"Mozilla/5.0 (X11, Linux)\","
+                + "\"'=HYPERLINK(\"\"http://evil\"\")\","), lines[1]);
+        assertTrue(lines[2].startsWith(NOON + ",203.0.113.7,'-1+1,,"), lines[2]);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLine() throws IOException {
+        String ndjson = export(ClickExportService.Format.NDJSON, click("a", null), click("b", null));
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"timestamp\":\"" + NOON + "\""), lines[0]);
+        assertTrue(lines[1].contains("\"userAgent\":\"b\""), lines[1]);
+    }
+}
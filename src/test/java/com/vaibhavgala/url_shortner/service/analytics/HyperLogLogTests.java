@@ -0,0 +1,99 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTests {
+
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add("10.0." + (i >>> 8) + "." + (i & 0xff) + "#" + i);
+        }
+        return sketch;
+    }
+
+    private static void assertWithin(double tolerance, long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * tolerance,
+                "estimate " + actual + " is more than " + tolerance * 100 + "% off " + expected);
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        assertWithin(0.02, 100, sketchOf(0, 100).estimate());
+    }
+
+    @Test
+    void largeCardinalitiesStayWithinAFewStandardErrors() {
+        // ~1.6% standard error at precision 12
+        for (int n : new int[]{10_000, 100_000, 1_000_000}) {
+            assertWithin(0.05, n, sketchOf(0, n).estimate());
+        }
+    }
+
+    @Test
+    void duplicatesDoNotCount() {
+        HyperLogLog sketch = sketchOf(0, 5_000);
+        long before = sketch.estimate();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5_000; i++) {
+                sketch.add("10.0." + (i >>> 8) + "." + (i & 0xff) + "#" + i);
+            }
+        }
+        assertEquals(before, sketch.estimate());
+    }
+
+    @Test
+    void nullAndEmptyValuesAreIgnored() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add(null);
+        sketch.add("");
+        assertEquals(0, sketch.estimate());
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog a = sketchOf(0, 60_000);
+        HyperLogLog b = sketchOf(40_000, 100_000);
+        a.merge(b);
+        assertWithin(0.05, 100_000, a.estimate());
+    }
+
+    @Test
+    void mergeMatchesASketchOfEverything() {
+        HyperLogLog merged = sketchOf(0, 30_000);
+        merged.merge(sketchOf(30_000, 70_000));
+        assertEquals(sketchOf(0, 70_000).estimate(), merged.estimate());
+    }
+
+    @Test
+    void mergeRejectsADifferentPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = sketchOf(0, 20_000);
+        byte[] bytes = sketch.toBytes();
+        assertEquals(2 + 4096, bytes.length);
+        assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+    }
+
+    @Test
+    void corruptBytesAreRejected() {
+        byte[] bytes = new HyperLogLog().toBytes();
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{9, 12}));
+        assertThrows(IllegalArgumentException.class,
+                () -> HyperLogLog.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(null));
+    }
+}
@@ -0,0 +1,75 @@
+package com.vaibhavgala.url_shortner.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchBucketTests {
+
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2025, 3, 10, 0, 0);
+
+    private static SketchBucket hour(LocalDateTime start) {
+        return new SketchBucket(SketchBucket.HOUR, start);
+    }
+
+    private static SketchBucket day(LocalDateTime start) {
+        return new SketchBucket(SketchBucket.DAY, start);
+    }
+
+    @Test
+    void aWholeDayIsOneDayBucket() {
+        assertEquals(List.of(day(MIDNIGHT)), SketchBucket.cover(MIDNIGHT, MIDNIGHT.plusDays(1)));
+    }
+
+    @Test
+    void aDayMinusAnHourIsHours() {
+        List<SketchBucket> buckets = SketchBucket.cover(MIDNIGHT, MIDNIGHT.plusHours(23));
+        assertEquals(23, buckets.size());
+        assertTrue(buckets.stream().allMatch(b -> b.granularity() == SketchBucket.HOUR));
+        assertEquals(hour(MIDNIGHT), buckets.get(0));
+        assertEquals(hour(MIDNIGHT.plusHours(22)), buckets.get(22));
+    }
+
+    @Test
+    void hoursAtTheEdgesAndDaysInBetween() {
+        LocalDateTime from = MIDNIGHT.plusHours(22);
+        LocalDateTime to = MIDNIGHT.plusDays(3).plusHours(2);
+        assertEquals(List.of(
+                hour(MIDNIGHT.plusHours(22)),
+                hour(MIDNIGHT.plusHours(23)),
+                day(MIDNIGHT.plusDays(1)),
+                day(MIDNIGHT.plusDays(2)),
+                hour(MIDNIGHT.plusDays(3)),
+                hour(MIDNIGHT.plusDays(3).plusHours(1))), SketchBucket.cover(from, to));
+    }
+
+    @Test
+    void aPartialFirstHourIsIncluded() {
+        LocalDateTime from = MIDNIGHT.plusHours(5).plusMinutes(40);
+        assertEquals(List.of(hour(MIDNIGHT.plusHours(5))), SketchBucket.cover(from, MIDNIGHT.plusHours(6)));
+    }
+
+    @Test
+    void aPartialLastHourIsIncluded() {
+        List<SketchBucket> buckets = SketchBucket.cover(MIDNIGHT, MIDNIGHT.plusHours(1).plusMinutes(1));
+        assertEquals(List.of(hour(MIDNIGHT), hour(MIDNIGHT.plusHours(1))), buckets);
+    }
+
+    @Test
+    void anEmptyRangeHasNoBuckets() {
+        assertTrue(SketchBucket.cover(MIDNIGHT, MIDNIGHT).isEmpty());
+        assertTrue(SketchBucket.cover(MIDNIGHT.plusHours(1), MIDNIGHT).isEmpty());
+    }
+
+    @Test
+    void bucketsOfAClickAreTruncated() {
+        LocalDateTime click = MIDNIGHT.plusHours(13).plusMinutes(7).plusSeconds(3);
+        assertEquals(hour(MIDNIGHT.plusHours(13)), SketchBucket.hourOf(click));
+        assertEquals(day(MIDNIGHT), SketchBucket.dayOf(click));
+        assertEquals("H:2025031013", SketchBucket.hourOf(click).label());
+        assertEquals("D:20250310", SketchBucket.dayOf(click).label());
+    }
+}
@@ -0,0 +1,70 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedUrlTests {
+
+    private static int refreshes(CachedUrl cached, long nowMillis, double beta, int tries) {
+        int refreshes = 0;
+        for (int i = 0; i < tries; i++) {
+            if (cached.shouldRefreshEarly(nowMillis, beta)) {
+                refreshes++;
+            }
+        }
+        return refreshes;
+    }
+
+    @Test
+    void roundTripsUrlsContainingColons() {
+        CachedUrl cached = new CachedUrl("https://example.com:8443/a?b=1:2", 1_736_000_000_000L, 850);
+        assertEquals("x:1736000000000:850:https://example.com:8443/a?b=1:2", cached.encode());
+        assertEquals(cached, CachedUrl.decode(cached.encode()));
+    }
+
+    @Test
+    void aBareUrlNeverRefreshesEarly() {
+        CachedUrl cached = CachedUrl.decode("https://example.com/page");
+        assertEquals("https://example.com/page", cached.url());
+        assertEquals(Long.MAX_VALUE, cached.expiresAtMillis());
+        assertFalse(cached.shouldRefreshEarly(System.currentTimeMillis(), 100));
+    }
+
+    @Test
+    void malformedValuesReadAsBareUrls() {
+        assertEquals("x:soon:fast:https://example.com", CachedUrl.decode("x:soon:fast:https://example.com").url());
+        assertEquals("x:123", CachedUrl.decode("x:123").url());
+        assertNull(CachedUrl.decode(null));
+    }
+
+    @Test
+    void farFromExpiryNeverRefreshes() {
+        long now = System.currentTimeMillis();
+        CachedUrl cached = new CachedUrl("https://example.com", now + 3_600_000, 5_000);
+        assertEquals(0, refreshes(cached, now, 1.0, 10_000));
+    }
+
+    @Test
+    void pastExpiryAlwaysRefreshes() {
+        long now = System.currentTimeMillis();
+        CachedUrl cached = new CachedUrl("https://example.com", now, 1);
+        assertEquals(1_000, refreshes(cached, now, 1.0, 1_000));
+    }
+
+    @Test
+    void subMillisecondRecomputeStillRefreshesNearExpiry() {
+        // Counted as 1 ms: P(refresh 1 ms before expiry) = 1/e. At the raw 50 µs it would be ~e^-20.
+        long now = System.currentTimeMillis();
+        CachedUrl cached = new CachedUrl("https://example.com", now + 1, 50);
+        int refreshes = refreshes(cached, now, 1.0, 10_000);
+        assertTrue(refreshes > 3_000 && refreshes < 4_400, "refreshed " + refreshes + " of 10000");
+    }
+
+    @Test
+    void higherBetaRefreshesEarlier() {
+        long now = System.currentTimeMillis();
+        CachedUrl cached = new CachedUrl("https://example.com", now + 20, 10_000);
+        assertTrue(refreshes(cached, now, 4.0, 10_000) > refreshes(cached, now, 1.0, 10_000));
+    }
+}
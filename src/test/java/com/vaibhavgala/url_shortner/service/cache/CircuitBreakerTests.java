@@ -0,0 +1,125 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final CircuitBreaker circuit = new CircuitBreaker(3, 100, 2);
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            circuit.record(FAST, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        circuit.record(FAST, true);
+        circuit.record(FAST, true);
+        circuit.record(FAST, false);
+        circuit.record(FAST, true);
+        circuit.record(FAST, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+        assertTrue(circuit.allowRequest());
+
+        circuit.record(FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+        assertFalse(circuit.allowRequest());
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        for (int i = 0; i < 3; i++) {
+            circuit.record(SLOW, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+    }
+
+    @Test
+    void untimedCallsAreNotHeldToTheSlowCallLimit() {
+        for (int i = 0; i < 10; i++) {
+            circuit.record(false);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+        for (int i = 0; i < 3; i++) {
+            circuit.record(true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+    }
+
+    @Test
+    void onlyAnOpenCircuitNeedsAProbe() {
+        assertFalse(circuit.needsProbe());
+        open();
+        assertTrue(circuit.needsProbe());
+    }
+
+    @Test
+    void aSuccessfulProbeLetsTrialCallsThrough() {
+        open();
+        circuit.probeSucceeded();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.state());
+        assertFalse(circuit.needsProbe());
+        assertTrue(circuit.allowRequest());
+        assertTrue(circuit.allowRequest());
+        assertFalse(circuit.allowRequest());
+    }
+
+    @Test
+    void allTrialCallsSucceedingCloses() {
+        open();
+        circuit.probeSucceeded();
+        circuit.allowRequest();
+        circuit.record(FAST, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.state());
+        circuit.allowRequest();
+        circuit.record(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+        assertTrue(circuit.allowRequest());
+    }
+
+    @Test
+    void aFailedTrialCallReopens() {
+        open();
+        circuit.probeSucceeded();
+        circuit.allowRequest();
+        circuit.record(SLOW, false);
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+    }
+
+    @Test
+    void aHalfOpenCircuitWithoutPermitsIsProbedAgain() {
+        open();
+        circuit.probeSucceeded();
+        // Both trial calls handed out, neither reported back (dropped, say)
+        circuit.allowRequest();
+        circuit.allowRequest();
+        assertFalse(circuit.allowRequest());
+        assertTrue(circuit.needsProbe());
+
+        circuit.probeSucceeded();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.state());
+        assertTrue(circuit.allowRequest());
+
+        circuit.allowRequest();
+        circuit.probeFailed();
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+        assertFalse(circuit.allowRequest());
+    }
+
+    @Test
+    void aFailedProbeLeavesAnOpenCircuitOpen() {
+        open();
+        circuit.probeFailed();
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+        assertTrue(circuit.needsProbe());
+    }
+}
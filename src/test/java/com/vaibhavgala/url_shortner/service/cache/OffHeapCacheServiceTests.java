@@ -0,0 +1,199 @@
+package com.vaibhavgala.url_shortner.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCacheServiceTests {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<OffHeapCacheService> opened = new ArrayList<>();
+
+    private OffHeapCacheService open(long slots, int slotBytes, int maxProbes, String file) throws IOException {
+        OffHeapCacheService cache = new OffHeapCacheService(registry, slots, slotBytes, maxProbes, 4, file);
+        opened.add(cache);
+        return cache;
+    }
+
+    private OffHeapCacheService open(long slots, int slotBytes, int maxProbes) throws IOException {
+        return open(slots, slotBytes, maxProbes, "");
+    }
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(OffHeapCacheService::close);
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        OffHeapCacheService cache = open(1024, 256, 8);
+        cache.set("abc", "https://example.com/a", TTL);
+        cache.set("ünï", "https://例え.jp/", TTL);
+
+        assertEquals("https://example.com/a", cache.get("abc"));
+        assertEquals("https://例え.jp/", cache.get("ünï"));
+        assertNull(cache.get("missing"));
+
+        cache.set("abc", "https://example.com/changed", TTL);
+        assertEquals("https://example.com/changed", cache.get("abc"));
+    }
+
+    @Test
+    void expiredEntriesReadAsMissing() throws IOException {
+        OffHeapCacheService cache = open(1024, 256, 8);
+        cache.set("abc", "https://example.com/a", Duration.ZERO);
+        assertNull(cache.get("abc"));
+    }
+
+    @Test
+    void entriesLargerThanASlotAreNotCached() throws IOException {
+        OffHeapCacheService cache = open(1024, 64, 8);
+        cache.set("abc", "https://example.com/" + "x".repeat(64), TTL);
+        assertNull(cache.get("abc"));
+        assertNull(cache.get("k".repeat(100)));
+        assertEquals(1.0, registry.find("cache.offheap.oversize").counter().count());
+    }
+
+    @Test
+    void collidingKeysAreFoundAlongTheProbeChain() throws IOException {
+        OffHeapCacheService cache = open(16, 128, 16);
+        for (int i = 0; i < 15; i++) {
+            cache.set("key" + i, "value" + i, TTL);
+        }
+        for (int i = 0; i < 15; i++) {
+            assertEquals("value" + i, cache.get("key" + i));
+        }
+        assertEquals(0.0, registry.find("cache.offheap.evictions").counter().count());
+    }
+
+    @Test
+    void aFullProbeChainOverwritesTheHomeSlot() throws IOException {
+        OffHeapCacheService cache = open(4, 128, 4);
+        for (int i = 0; i < 5; i++) {
+            cache.set("key" + i, "value" + i, TTL);
+        }
+        assertEquals("value4", cache.get("key4"));
+        assertEquals(1.0, registry.find("cache.offheap.evictions").counter().count());
+        long found = 0;
+        for (int i = 0; i < 4; i++) {
+            if (cache.get("key" + i) != null) {
+                found++;
+            }
+        }
+        assertEquals(3, found);
+    }
+
+    @Test
+    void expiredSlotsAreReusedBeforeEvicting() throws IOException {
+        OffHeapCacheService cache = open(4, 128, 4);
+        for (int i = 0; i < 4; i++) {
+            cache.set("old" + i, "value" + i, Duration.ZERO);
+        }
+        for (int i = 0; i < 4; i++) {
+            cache.set("new" + i, "value" + i, TTL);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals("value" + i, cache.get("new" + i));
+        }
+        assertEquals(0.0, registry.find("cache.offheap.evictions").counter().count());
+    }
+
+    @Test
+    void batchCallsMatchSingleCalls() throws IOException {
+        OffHeapCacheService cache = open(1024, 256, 8);
+        Map<String, CacheService.Entry> entries = new LinkedHashMap<>();
+        entries.put("a", new CacheService.Entry("https://example.com/a", TTL));
+        entries.put("b", new CacheService.Entry("https://example.com/b", Duration.ZERO));
+        cache.multiSet(entries);
+
+        assertEquals(Arrays.asList("https://example.com/a", null, null), cache.multiGet(List.of("a", "b", "c")));
+    }
+
+    @Test
+    void aMappedFileStartsWarmAfterARestart() throws IOException {
+        String file = directory.resolve("cache.bin").toString();
+        OffHeapCacheService cache = open(1024, 128, 8, file);
+        cache.set("abc", "https://example.com/a", TTL);
+        cache.close();
+        opened.remove(cache);
+
+        OffHeapCacheService reopened = open(1024, 128, 8, file);
+        assertEquals("https://example.com/a", reopened.get("abc"));
+    }
+
+    @Test
+    void aMappedFileOfAnotherShapeStartsEmpty() throws IOException {
+        String file = directory.resolve("cache.bin").toString();
+        OffHeapCacheService cache = open(1024, 128, 8, file);
+        cache.set("abc", "https://example.com/a", TTL);
+        cache.close();
+        opened.remove(cache);
+
+        OffHeapCacheService reopened = open(1024, 256, 8, file);
+        assertNull(reopened.get("abc"));
+    }
+
+    @Test
+    void rejectsATableShapeItCannotAddress() {
+        assertThrows(IllegalArgumentException.class, () -> open(1000, 128, 8));
+        assertThrows(IllegalArgumentException.class, () -> open(1024, 100, 8));
+        assertThrows(IllegalArgumentException.class, () -> open(1024, 32, 8));
+    }
+
+    @Test
+    void readersNeverSeeATornValue() throws Exception {
+        OffHeapCacheService cache = open(64, 128, 8);
+        String[] keys = {"k0", "k1", "k2", "k3"};
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> torn = new AtomicReference<>();
+
+        // Each write is one letter repeated; a mix of letters or lengths means a torn read
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    char letter = (char) ('a' + random.nextInt(26));
+                    cache.set(keys[random.nextInt(keys.length)], String.valueOf(letter).repeat(1 + random.nextInt(80)), TTL);
+                }
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    String value = cache.get(keys[random.nextInt(keys.length)]);
+                    if (value != null && value.chars().anyMatch(c -> c != value.charAt(0))) {
+                        torn.set(value);
+                    }
+                }
+            }));
+        }
+        Thread.sleep(300);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(torn.get());
+    }
+}
@@ -0,0 +1,111 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickEventCodecTests {
+
+    private static final int HEADER_BYTES = 11;
+
+    @Test
+    void roundTripsEveryField() {
+        ClickEvent event = new ClickEvent("abc123", "203.0.113.7", "Mozilla/5.0 (X11; Linux x86_64)",
+                "https://example.com/page", 1_736_000_000_123L);
+        assertEquals(event, ClickEventCodec.decode(ClickEventCodec.encode(event)));
+    }
+
+    @Test
+    void absentOptionalFieldsStayNull() {
+        ClickEvent event = new ClickEvent("abc", null, null, null, 42L);
+        byte[] payload = ClickEventCodec.encode(event);
+        assertEquals(HEADER_BYTES + 1 + 3, payload.length);
+        assertEquals(event, ClickEventCodec.decode(payload));
+    }
+
+    @Test
+    void lengthsUseVarints() {
+        // 127 fits in one varint byte, 128 and 16383 need two, 16384 needs three
+        for (int length : new int[]{0, 1, 127, 128, 16_383, 16_384, 100_000}) {
+            String userAgent = "u".repeat(length);
+            ClickEvent event = new ClickEvent("abc", null, userAgent, null, 7L);
+            byte[] payload = ClickEventCodec.encode(event);
+            int varint = length < 128 ? 1 : length < 16_384 ? 2 : 3;
+            assertEquals(HEADER_BYTES + 1 + 3 + varint + length, payload.length, "user agent of " + length);
+            assertEquals(event, ClickEventCodec.decode(payload));
+        }
+    }
+
+    @Test
+    void multiByteCharactersAreCountedInBytes() {
+        ClickEvent event = new ClickEvent("çödé", "::1", "Мозилла 🦊", "https://例え.jp/", 1L);
+        assertEquals(event, ClickEventCodec.decode(ClickEventCodec.encode(event)));
+    }
+
+    @Test
+    void decodesFromAnOffsetOrDirectBuffer() {
+        ClickEvent event = new ClickEvent("abc", "198.51.100.1", "agent", null, 99L);
+        byte[] payload = ClickEventCodec.encode(event);
+
+        byte[] padded = new byte[payload.length + 6];
+        System.arraycopy(payload, 0, padded, 3, payload.length);
+        assertEquals(event, ClickEventCodec.decode(ByteBuffer.wrap(padded, 3, payload.length)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(payload.length).put(payload).flip();
+        assertEquals(event, ClickEventCodec.decode(direct));
+    }
+
+    @Test
+    void unknownFlagBitsAndTrailingBytesAreIgnored() {
+        ClickEvent event = new ClickEvent("abc", "198.51.100.1", null, null, 5L);
+        byte[] payload = ClickEventCodec.encode(event);
+        byte[] extended = Arrays.copyOf(payload, payload.length + 4);
+        extended[2] |= (byte) 0x80;
+        assertEquals(event, ClickEventCodec.decode(extended));
+    }
+
+    @Test
+    void legacyJsonStillDecodes() {
+        String json = "{\"shortCode\":\"abc\",\"ipAddress\":\"203.0.113.7\",\"userAgent\":\"null\","
+                + "\"referer\":null,\"timestamp\":\"2025-01-02T03:04:05\"}";
+        ClickEvent event = ClickEventCodec.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        long expectedMillis = LocalDateTime.of(2025, 1, 2, 3, 4, 5)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertEquals(new ClickEvent("abc", "203.0.113.7", null, null, expectedMillis), event);
+    }
+
+    @Test
+    void malformedPayloadsAreRejected() {
+        byte[] valid = ClickEventCodec.encode(new ClickEvent("abc", "198.51.100.1", null, null, 5L));
+
+        assertThrows(IllegalArgumentException.class, () -> ClickEventCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> ClickEventCodec.decode(new byte[]{1, 2, 3}));
+        assertThrows(IllegalArgumentException.class,
+                () -> ClickEventCodec.decode("{not json".getBytes(StandardCharsets.UTF_8)));
+
+        byte[] wrongVersion = valid.clone();
+        wrongVersion[1] = 9;
+        assertThrows(IllegalArgumentException.class, () -> ClickEventCodec.decode(wrongVersion));
+
+        // The IP field claims more bytes than are left
+        assertThrows(IllegalArgumentException.class,
+                () -> ClickEventCodec.decode(Arrays.copyOf(valid, valid.length - 2)));
+
+        byte[] endlessVarint = Arrays.copyOf(valid, HEADER_BYTES + 6);
+        Arrays.fill(endlessVarint, HEADER_BYTES, endlessVarint.length, (byte) 0xFF);
+        assertThrows(IllegalArgumentException.class, () -> ClickEventCodec.decode(endlessVarint));
+    }
+
+    @Test
+    void eventsWithoutShortCodeAreNotEncoded() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ClickEventCodec.encode(new ClickEvent(null, "198.51.100.1", null, null, 5L)));
+    }
+}
@@ -0,0 +1,170 @@
+package com.vaibhavgala.url_shortner.service.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickSpoolTests {
+
+    // Header 8 bytes; a record with a 1-byte key and 50-byte value takes 8 + 2 + 1 + 50 = 61,
+    // so four records fill a 256-byte segment
+    private static final int SEGMENT_BYTES = 256;
+    private static final int RECORD_BYTES = 61;
+
+    @TempDir
+    Path directory;
+
+    private ClickSpool open(long maxBytes) throws IOException {
+        return new ClickSpool(new SimpleMeterRegistry(), directory.toString(), SEGMENT_BYTES, maxBytes);
+    }
+
+    private static byte[] value(int i) {
+        return String.format("%050d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Integer> values(ClickSpool.Batch batch) {
+        return batch.events().stream()
+                .map(event -> Integer.parseInt(new String(event.value(), StandardCharsets.UTF_8)))
+                .toList();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void peekReadsInOrderWithoutConsuming() throws IOException {
+        ClickSpool spool = open(1 << 20);
+        assertTrue(spool.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(spool.append("k", value(i)));
+        }
+
+        assertEquals(List.of(0, 1), values(spool.peek(2)));
+        assertEquals(List.of(0, 1, 2), values(spool.peek(10)));
+        assertEquals("k", spool.peek(1).events().get(0).key());
+        assertEquals(3, spool.pendingRecords());
+
+        spool.acknowledge(spool.peek(2));
+        assertEquals(List.of(2), values(spool.peek(10)));
+        spool.acknowledge(spool.peek(10));
+        assertTrue(spool.isEmpty());
+        assertTrue(spool.peek(10).isEmpty());
+    }
+
+    @Test
+    void rolledSegmentsAreReplayedOldestFirstAndDeleted() throws IOException {
+        ClickSpool spool = open(1 << 20);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spool.append("k", value(i)));
+        }
+        assertEquals(3, segmentFiles());
+
+        // A batch never spans segments
+        ClickSpool.Batch first = spool.peek(100);
+        assertEquals(List.of(0, 1, 2, 3), values(first));
+        spool.acknowledge(first);
+        ClickSpool.Batch second = spool.peek(100);
+        assertEquals(List.of(4, 5, 6, 7), values(second));
+        assertEquals(2, segmentFiles());
+        spool.acknowledge(second);
+        assertEquals(List.of(8, 9), values(spool.peek(100)));
+        assertEquals(1, segmentFiles());
+    }
+
+    @Test
+    void unacknowledgedRecordsSurviveARestart() throws IOException {
+        ClickSpool spool = open(1 << 20);
+        for (int i = 0; i < 6; i++) {
+            spool.append("k", value(i));
+        }
+        spool.acknowledge(spool.peek(1));
+        spool.close();
+
+        ClickSpool reopened = open(1 << 20);
+        assertEquals(5, reopened.pendingRecords());
+        assertEquals(List.of(1, 2, 3), values(reopened.peek(100)));
+        reopened.acknowledge(reopened.peek(100));
+        assertEquals(List.of(4, 5), values(reopened.peek(100)));
+
+        // Appends continue after the recovered data
+        reopened.append("k", value(6));
+        assertEquals(List.of(4, 5, 6), values(reopened.peek(100)));
+    }
+
+    @Test
+    void recoveryStopsAtARecordThatFailsItsChecksum() throws IOException {
+        ClickSpool spool = open(1 << 20);
+        for (int i = 0; i < 3; i++) {
+            spool.append("k", value(i));
+        }
+        spool.close();
+
+        // Flip a value byte of the second record
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("spool-0.log").toFile(), "rw")) {
+            long position = 8 + RECORD_BYTES + 8 + 2 + 1 + 10;
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0x01);
+        }
+
+        ClickSpool reopened = open(1 << 20);
+        assertEquals(1, reopened.pendingRecords());
+        assertEquals(List.of(0), values(reopened.peek(100)));
+    }
+
+    @Test
+    void recoveryStopsAtALengthPastTheSegment() throws IOException {
+        ClickSpool spool = open(1 << 20);
+        for (int i = 0; i < 3; i++) {
+            spool.append("k", value(i));
+        }
+        spool.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("spool-0.log").toFile(), "rw")) {
+            file.seek(8 + 2L * RECORD_BYTES);
+            file.writeInt(1_000_000);
+        }
+
+        ClickSpool reopened = open(1 << 20);
+        assertEquals(List.of(0, 1), values(reopened.peek(100)));
+    }
+
+    @Test
+    void dropsWhenFull() throws IOException {
+        ClickSpool spool = open(2L * SEGMENT_BYTES);
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (spool.append("k", value(i))) {
+                accepted++;
+            }
+        }
+        assertEquals(8, accepted);
+        assertEquals(8, spool.pendingRecords());
+
+        // Replaying the oldest segment makes room again
+        spool.acknowledge(spool.peek(100));
+        spool.peek(100);
+        assertTrue(spool.append("k", value(20)));
+    }
+
+    @Test
+    void dropsARecordLargerThanASegment() throws IOException {
+        ClickSpool spool = open(1 << 20);
+        assertFalse(spool.append("k", new byte[SEGMENT_BYTES]));
+        assertTrue(spool.isEmpty());
+    }
+}
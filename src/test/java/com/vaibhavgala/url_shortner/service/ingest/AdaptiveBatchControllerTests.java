@@ -0,0 +1,123 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchControllerTests {
+
+    private static final TopicPartition P0 = new TopicPartition("click-events", 0);
+    private static final TopicPartition P1 = new TopicPartition("click-events", 1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // Bounds 500..20000 events and 250..5000 ms, 250 ms write target, starting at 5000 events / 1000 ms
+    private final AdaptiveBatchController controller =
+            new AdaptiveBatchController(registry, 500, 20_000, 250, 5_000, 250, 5_000, 1_000);
+
+    // Only assignment() and currentLag() are used by the controller
+    private static Consumer<?, ?> consumerWithLag(Map<TopicPartition, Long> lag) {
+        return (Consumer<?, ?>) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class<?>[]{Consumer.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "assignment" -> lag.keySet();
+                    case "currentLag" -> lag.containsKey(args[0]) ? OptionalLong.of(lag.get(args[0])) : OptionalLong.empty();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Consumer<?, ?> consumerWithLag(long lag) {
+        return consumerWithLag(Map.of(P0, lag));
+    }
+
+    private static ClickWindow window(int size) {
+        List<UrlClickAnalytics> rows = Collections.nCopies(size, new UrlClickAnalytics());
+        return new ClickWindow(rows, List.of(), Map.of(), Map.of());
+    }
+
+    @Test
+    void aSlowWriteShrinksTheWindow() {
+        controller.onFlush(window(5_000), 400, consumerWithLag(100_000));
+        assertEquals(3_750, controller.targetEvents());
+        assertEquals(1_000, controller.targetWindowMillis());
+    }
+
+    @Test
+    void aSlowWriteOfASmallWindowNeverGrowsIt() {
+        for (int i = 0; i < 20; i++) {
+            controller.onFlush(window(5_000), 400, consumerWithLag(0));
+        }
+        assertEquals(500, controller.targetEvents());
+
+        controller.onFlush(window(500), 400, consumerWithLag(100_000));
+        assertEquals(500, controller.targetEvents());
+    }
+
+    @Test
+    void aBacklogGrowsTheWindowWhileWritesAreFast() {
+        controller.onFlush(window(5_000), 100, consumerWithLag(100_000));
+        assertEquals(5_250, controller.targetEvents());
+        assertEquals(1_250, controller.targetWindowMillis());
+
+        for (int i = 0; i < 100; i++) {
+            controller.onFlush(window(5_000), 100, consumerWithLag(1_000_000));
+        }
+        assertEquals(20_000, controller.targetEvents());
+        assertEquals(5_000, controller.targetWindowMillis());
+    }
+
+    @Test
+    void aCaughtUpConsumerFlushesSooner() {
+        controller.onFlush(window(100), 10, consumerWithLag(0));
+        assertEquals(750, controller.targetWindowMillis());
+        assertEquals(5_000, controller.targetEvents());
+
+        for (int i = 0; i < 100; i++) {
+            controller.onFlush(window(100), 10, consumerWithLag(0));
+        }
+        assertEquals(250, controller.targetWindowMillis());
+    }
+
+    @Test
+    void unknownLagChangesNothing() {
+        controller.onFlush(window(100), 10, consumerWithLag(Map.of()));
+        assertEquals(5_000, controller.targetEvents());
+        assertEquals(1_000, controller.targetWindowMillis());
+    }
+
+    @Test
+    void lagIsSummedOverAssignedPartitions() {
+        Map<TopicPartition, Long> lag = new LinkedHashMap<>();
+        lag.put(P0, 3_000L);
+        lag.put(P1, 3_000L);
+        // 6000 behind in total is more than the 5000-event window: grow
+        controller.onFlush(window(5_000), 100, consumerWithLag(lag));
+        assertEquals(5_250, controller.targetEvents());
+    }
+
+    @Test
+    void revokedPartitionsLoseTheirLagGauge() {
+        Map<TopicPartition, Long> lag = new LinkedHashMap<>();
+        lag.put(P0, 10L);
+        lag.put(P1, 20L);
+        controller.onFlush(window(10), 10, consumerWithLag(lag));
+        assertEquals(20.0, registry.find("clicks.consumer.lag").tag("partition", "1").gauge().value());
+
+        controller.onPartitionsRevoked(List.of(P1));
+        assertNull(registry.find("clicks.consumer.lag").tag("partition", "1").gauge());
+        assertNotNull(registry.find("clicks.consumer.lag").tag("partition", "0").gauge());
+
+        // Assigned again later: registered again
+        controller.onFlush(window(10), 10, consumerWithLag(lag));
+        assertEquals(20.0, registry.find("clicks.consumer.lag").tag("partition", "1").gauge().value());
+    }
+}
@@ -0,0 +1,117 @@
+package com.vaibhavgala.url_shortner.service.ingest;
+
+import com.vaibhavgala.url_shortner.models.UrlClickAnalytics;
+import com.vaibhavgala.url_shortner.service.live.ClickDelta;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickWindowAggregatorTests {
+
+    private static final String TOPIC = "click-events";
+
+    private final ClickWindowAggregator aggregator = new ClickWindowAggregator();
+
+    private static UrlClickAnalytics click(String shortCode, String country, String referer) {
+        UrlClickAnalytics click = new UrlClickAnalytics();
+        click.setShortCode(shortCode);
+        click.setCountry(country);
+        click.setDeviceType("Desktop");
+        click.setReferer(referer);
+        return click;
+    }
+
+    private static ConsumerRecord<String, byte[]> record(int partition, long offset, String key) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, key, new byte[0]);
+    }
+
+    private static long count(List<Object[]> pairs, String label) {
+        return pairs.stream().filter(pair -> label.equals(pair[0])).mapToLong(pair -> (Long) pair[1]).sum();
+    }
+
+    @Test
+    void anEmptyWindowIsNeverDue() {
+        assertTrue(aggregator.isEmpty());
+        assertFalse(aggregator.isDue(Long.MAX_VALUE, 1, 1));
+    }
+
+    @Test
+    void dueOnSizeOrAge() {
+        for (int i = 0; i < 3; i++) {
+            aggregator.add(click("abc", "US", null), record(0, i, "abc"));
+        }
+        long now = System.currentTimeMillis();
+        assertTrue(aggregator.isDue(now, 60_000, 3));
+        assertFalse(aggregator.isDue(now, 60_000, 4));
+        assertTrue(aggregator.isDue(now + 60_000, 60_000, 4));
+    }
+
+    @Test
+    void foldsClicksPerShortCode() {
+        aggregator.add(click("abc", "US", "https://a.example"), record(0, 0, "abc"));
+        aggregator.add(click("xyz", "DE", null), record(1, 0, "xyz"));
+        aggregator.add(click("abc", "US", null), record(0, 1, "abc"));
+        aggregator.add(click("abc", "FR", "https://a.example"), record(0, 2, "abc"));
+
+        ClickWindow window = aggregator.drain();
+        assertEquals(4, window.rows().size());
+        assertEquals(4, window.sources().size());
+        assertEquals(List.of("abc", "xyz"), List.copyOf(window.deltas().keySet()));
+
+        ClickDelta abc = window.deltas().get("abc");
+        assertEquals(3, abc.clicks());
+        assertEquals(2, count(abc.clicksByCountry(), "US"));
+        assertEquals(1, count(abc.clicksByCountry(), "FR"));
+        assertEquals(3, count(abc.clicksByDevice(), "Desktop"));
+        // Clicks without a referer are not counted as referrers
+        assertEquals(2, count(abc.topReferrers(), "https://a.example"));
+        assertEquals(1, abc.topReferrers().size());
+        assertEquals(1, window.deltas().get("xyz").clicks());
+    }
+
+    @Test
+    void commitsThePositionAfterTheHighestOffsetPerPartition() {
+        TopicPartition p0 = new TopicPartition(TOPIC, 0);
+        TopicPartition p1 = new TopicPartition(TOPIC, 1);
+        aggregator.markConsumed(p0, 7);
+        aggregator.markConsumed(p0, 5);
+        aggregator.markConsumed(p1, 0);
+        aggregator.markConsumed(p0, 9);
+
+        ClickWindow window = aggregator.drain();
+        assertEquals(10, window.offsets().get(p0).offset());
+        assertEquals(1, window.offsets().get(p1).offset());
+    }
+
+    @Test
+    void anUnparseableRecordStillOpensAWindow() {
+        aggregator.markConsumed(new TopicPartition(TOPIC, 0), 3);
+        assertFalse(aggregator.isEmpty());
+        assertEquals(0, aggregator.size());
+        assertTrue(aggregator.isDue(System.currentTimeMillis() + 1_000, 1_000, 100));
+
+        ClickWindow window = aggregator.drain();
+        assertFalse(window.isEmpty());
+        assertTrue(window.rows().isEmpty());
+    }
+
+    @Test
+    void drainStartsAnEmptyWindow() {
+        aggregator.add(click("abc", "US", null), record(0, 0, "abc"));
+        aggregator.markConsumed(new TopicPartition(TOPIC, 0), 0);
+        ClickWindow first = aggregator.drain();
+
+        assertTrue(aggregator.isEmpty());
+        assertEquals(0, aggregator.size());
+        ClickWindow second = aggregator.drain();
+        assertTrue(second.isEmpty());
+        assertTrue(second.deltas().isEmpty());
+        // The drained window is not touched by later adds
+        aggregator.add(click("abc", "US", null), record(0, 1, "abc"));
+        assertEquals(1, first.rows().size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.vaibhavgala.url_shortner.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRateLimiterTests {
+
+    private final LocalRateLimiter limiter = new LocalRateLimiter();
+
+    private boolean allowed(RateLimiter.Bucket... buckets) {
+        return limiter.tryAcquire(List.of(buckets)).allowed();
+    }
+
+    @Test
+    void aNewBucketAllowsItsCapacityThenRejects() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("client", new RateLimiter.Limit(5, 1));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(allowed(bucket), "request " + i);
+        }
+        RateLimiter.Decision decision = limiter.tryAcquire(List.of(bucket));
+        assertFalse(decision.allowed());
+        assertEquals(0, decision.rejectedBucket());
+        assertTrue(decision.retryAfterMillis() > 900 && decision.retryAfterMillis() <= 1_001,
+                "retry after " + decision.retryAfterMillis());
+    }
+
+    @Test
+    void tokensComeBackAtTheRefillRate() throws InterruptedException {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("client", new RateLimiter.Limit(1, 200));
+        assertTrue(allowed(bucket));
+        assertFalse(allowed(bucket));
+        Thread.sleep(20);
+        assertTrue(allowed(bucket));
+    }
+
+    @Test
+    void aRejectionTakesNothingFromTheOtherBuckets() {
+        RateLimiter.Bucket client = new RateLimiter.Bucket("client", new RateLimiter.Limit(10, 0.001));
+        RateLimiter.Bucket global = new RateLimiter.Bucket("global", new RateLimiter.Limit(1, 0.001));
+        assertTrue(allowed(client, global));
+
+        RateLimiter.Decision decision = limiter.tryAcquire(List.of(client, global));
+        assertFalse(decision.allowed());
+        assertEquals(1, decision.rejectedBucket());
+
+        // One token used by the first request, none by the rejected one
+        for (int i = 0; i < 9; i++) {
+            assertTrue(allowed(client), "request " + i);
+        }
+        assertFalse(allowed(client));
+    }
+
+    @Test
+    void aCostTakesThatManyTokens() {
+        RateLimiter.Limit limit = new RateLimiter.Limit(10, 0.001);
+        assertTrue(allowed(new RateLimiter.Bucket("batch", limit, 4)));
+        assertTrue(allowed(new RateLimiter.Bucket("batch", limit, 4)));
+        assertFalse(allowed(new RateLimiter.Bucket("batch", limit, 4)));
+        assertTrue(allowed(new RateLimiter.Bucket("batch", limit, 2)));
+        assertFalse(allowed(new RateLimiter.Bucket("batch", limit)));
+    }
+
+    @Test
+    void aCostAboveCapacityTakesAFullBucket() {
+        RateLimiter.Limit limit = new RateLimiter.Limit(5, 0.001);
+        assertTrue(allowed(new RateLimiter.Bucket("batch", limit, 50)));
+        assertFalse(allowed(new RateLimiter.Bucket("batch", limit)));
+    }
+
+    @Test
+    void bucketsAreKeyedIndependently() {
+        RateLimiter.Limit limit = new RateLimiter.Limit(1, 0.001);
+        assertTrue(allowed(new RateLimiter.Bucket("a", limit)));
+        assertFalse(allowed(new RateLimiter.Bucket("a", limit)));
+        assertTrue(allowed(new RateLimiter.Bucket("b", limit)));
+    }
+
+    @Test
+    void evictionKeepsBucketsThatAreNotFull() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("client", new RateLimiter.Limit(1, 0.001));
+        assertTrue(allowed(bucket));
+        limiter.evictFullBuckets();
+        assertFalse(allowed(bucket));
+    }
+}
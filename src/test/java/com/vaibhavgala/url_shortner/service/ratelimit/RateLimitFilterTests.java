@@ -0,0 +1,110 @@
+package com.vaibhavgala.url_shortner.service.ratelimit;
+
+import com.vaibhavgala.url_shortner.service.ClientIPService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTests {
+
+    // One token per client for each endpoint, effectively no refill; global buckets never run out
+    private final RateLimitFilter filter = new RateLimitFilter(new SimpleMeterRegistry(),
+            1, 0.001, 1_000, 1_000,
+            1, 0.001, 1_000, 1_000,
+            2, 0.001, 1_000, 1_000,
+            64);
+
+    private MockFilterChain chain;
+
+    RateLimitFilterTests() {
+        ReflectionTestUtils.setField(filter, "rateLimiter", new LocalRateLimiter());
+        ReflectionTestUtils.setField(filter, "clientIPService", new ClientIPService(List.of()));
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String client, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(client);
+        if (body != null) {
+            request.setContent(body.getBytes(StandardCharsets.UTF_8));
+            request.setContentType("application/json");
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse send(String method, String uri) throws Exception {
+        return send(method, uri, "203.0.113.7", null);
+    }
+
+    @Test
+    void aClientOverItsLimitGets429WithRetryAfter() throws Exception {
+        assertEquals(200, send("POST", "/api/shorten").getStatus());
+        MockHttpServletResponse limited = send("POST", "/api/shorten");
+        assertEquals(429, limited.getStatus());
+        assertNull(chain.getRequest());
+        assertTrue(Long.parseLong(limited.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+    }
+
+    @Test
+    void encodedAndMatrixParameterFormsShareTheShortenBucket() throws Exception {
+        assertEquals(200, send("POST", "/api/shorten").getStatus());
+        for (String uri : new String[]{"/api/shorten;x", "/api/%73horten", "/api;x/shorten", "//api/shorten"}) {
+            assertEquals(429, send("POST", uri).getStatus(), uri);
+        }
+    }
+
+    @Test
+    void encodedAndMatrixParameterFormsShareTheRedirectBucket() throws Exception {
+        assertEquals(200, send("GET", "/abc123").getStatus());
+        for (String uri : new String[]{"/abc123;x", "/%61bc123", "/abc%31%32%33"}) {
+            assertEquals(429, send("GET", uri).getStatus(), uri);
+        }
+    }
+
+    @Test
+    void resolveCostsOneTokenPerCodeAndReplaysTheBody() throws Exception {
+        String body = "[\"abc\",\"def\"]";
+        assertEquals(200, send("POST", "/api/resolve", "203.0.113.7", body).getStatus());
+        assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), chain.getRequest().getInputStream().readAllBytes());
+
+        assertEquals(429, send("POST", "/api/resolve;x", "203.0.113.7", "[\"abc\"]").getStatus());
+    }
+
+    @Test
+    void anOversizedResolveBodyIsRejected() throws Exception {
+        assertEquals(413, send("POST", "/api/resolve", "203.0.113.7", "[\"" + "a".repeat(100) + "\"]").getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void otherRequestsAreNotLimited() throws Exception {
+        for (String uri : new String[]{"/analytics", "/css/app.css", "/api/analytics/abc123", "/api/admin/shards"}) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(200, send("GET", uri).getStatus(), uri);
+                assertNotNull(chain.getRequest(), uri);
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("GET", "/api/shorten").getStatus());
+            assertEquals(200, send("POST", "/abc123").getStatus());
+        }
+    }
+
+    @Test
+    void eachClientHasItsOwnBucket() throws Exception {
+        assertEquals(200, send("POST", "/api/shorten", "203.0.113.7", null).getStatus());
+        assertEquals(200, send("POST", "/api/shorten", "203.0.113.8", null).getStatus());
+        assertEquals(429, send("POST", "/api/shorten", "203.0.113.7", null).getStatus());
+    }
+}
@@ -0,0 +1,132 @@
+package com.vaibhavgala.url_shortner.service.snapshot;
+
+import com.vaibhavgala.url_shortner.models.UrlMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTests {
+
+    @TempDir
+    Path directory;
+
+    private static UrlMapping mapping(String shortCode, String url, LocalDateTime expiresAt) {
+        UrlMapping mapping = new UrlMapping(url, shortCode);
+        mapping.setExpiresAt(expiresAt);
+        return mapping;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private MappedSnapshot write(List<UrlMapping> mappings) throws IOException {
+        Path target = directory.resolve("snapshot.bin");
+        SnapshotWriter.write(target, 1_736_000_000_000L, mappings.iterator());
+        return MappedSnapshot.open(target);
+    }
+
+    @Test
+    void findsEveryWrittenCode() throws IOException {
+        List<UrlMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            mappings.add(mapping(String.format("c%05d", i), "https://example.com/" + i, null));
+        }
+        MappedSnapshot snapshot = write(mappings);
+
+        assertEquals(1_000, snapshot.count());
+        assertEquals(1_736_000_000_000L, snapshot.exportedAtMillis());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("https://example.com/" + i, snapshot.find(String.format("c%05d", i), now));
+        }
+        assertNull(snapshot.find("a", now));
+        assertNull(snapshot.find("c00000x", now));
+        assertNull(snapshot.find("c0000", now));
+        assertNull(snapshot.find("zzz", now));
+    }
+
+    @Test
+    void expiredLinksAreNotFound() throws IOException {
+        LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 1, 0, 0);
+        MappedSnapshot snapshot = write(List.of(
+                mapping("abc", "https://example.com/a", expiresAt),
+                mapping("def", "https://example.com/d", null)));
+
+        assertEquals("https://example.com/a", snapshot.find("abc", millis(expiresAt) - 1));
+        assertNull(snapshot.find("abc", millis(expiresAt)));
+        assertEquals("https://example.com/d", snapshot.find("def", Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void forEachVisitsEveryRecordInKeyOrder() throws IOException {
+        LocalDateTime expiresAt = LocalDateTime.of(2020, 1, 1, 0, 0);
+        MappedSnapshot snapshot = write(List.of(
+                mapping("a", "https://example.com/ä", null),
+                mapping("b", "https://example.com/b", expiresAt),
+                mapping("c", "https://example.com/c", null)));
+
+        Map<String, MappedSnapshot.Entry> entries = new LinkedHashMap<>();
+        snapshot.forEach(entries::put);
+        assertEquals(List.of("a", "b", "c"), List.copyOf(entries.keySet()));
+        assertEquals("https://example.com/ä", entries.get("a").url());
+        assertEquals(millis(expiresAt), entries.get("b").expiresAtMillis());
+        assertFalse(entries.get("b").isLive(System.currentTimeMillis()));
+        assertTrue(entries.get("c").isLive(System.currentTimeMillis()));
+    }
+
+    @Test
+    void anEmptySnapshotFindsNothing() throws IOException {
+        MappedSnapshot snapshot = write(List.of());
+        assertEquals(0, snapshot.count());
+        assertNull(snapshot.find("abc", 0));
+    }
+
+    @Test
+    void codesTooLongForTheFormatAreSkipped() throws IOException {
+        MappedSnapshot snapshot = write(List.of(
+                mapping("a", "https://example.com/a", null),
+                mapping("b".repeat(256), "https://example.com/b", null),
+                mapping("c", "https://example.com/c", null)));
+        assertEquals(2, snapshot.count());
+        assertEquals("https://example.com/c", snapshot.find("c", 0));
+    }
+
+    @Test
+    void outOfOrderInputIsRejectedWithoutLeavingFiles() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> write(List.of(
+                mapping("b", "https://example.com/b", null),
+                mapping("a", "https://example.com/a", null))));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void truncatedOrForeignFilesAreRejected() throws IOException {
+        write(List.of(mapping("a", "https://example.com/a", null)));
+        Path target = directory.resolve("snapshot.bin");
+        byte[] bytes = Files.readAllBytes(target);
+
+        Path truncated = directory.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class, () -> MappedSnapshot.open(truncated));
+
+        Path foreign = directory.resolve("foreign.bin");
+        Files.write(foreign, new byte[64]);
+        assertThrows(IllegalArgumentException.class, () -> MappedSnapshot.open(foreign));
+    }
+}